@@ -0,0 +1,73 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.model.Book;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic books for the benchmarks.
+ * <p>
+ * The same seed always produces the same catalog, so results stay comparable between runs.
+ */
+final class BenchmarkData {
+
+    static final String[] AUTHORS = {
+            "Jane Austen", "George Orwell", "Toni Morrison", "Haruki Murakami", "Chinua Achebe",
+            "Ursula K. Le Guin", "Gabriel García Márquez", "Virginia Woolf", "Isaac Asimov", "Zadie Smith"
+    };
+
+    static final String[] TITLE_WORDS = {
+            "Silent", "River", "Garden", "Empire", "Shadow", "Winter", "Glass", "Night", "Machine", "Ocean",
+            "Kingdom", "Memory", "Stone", "Letters", "Harbor", "Fire", "Mountain", "Season", "Library", "Road"
+    };
+
+    private static final String[] PUBLISHERS = {
+            "Penguin", "HarperCollins", "Vintage", "Random House", "Faber & Faber", "Tor"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generate books without IDs and with unique ISBNs
+     *
+     * @param count The number of books to generate
+     * @param seed The random seed
+     * @return The generated books
+     */
+    static List<Book> books(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Book.Genre[] genres = Book.Genre.values();
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = pick(random, TITLE_WORDS) + " " + pick(random, TITLE_WORDS) + " " + i;
+            books.add(Book.builder()
+                    .title(title)
+                    .author(pick(random, AUTHORS))
+                    .isbn(isbn(seed, i))
+                    .publicationDate(LocalDate.of(1900, 1, 1).plusDays(random.nextInt(45_000)))
+                    .price(BigDecimal.valueOf(random.nextInt(500, 10_000), 2))
+                    .description("A story about " + title.toLowerCase() + " and everything that follows.")
+                    .pageCount(random.nextInt(80, 1200))
+                    .publisher(pick(random, PUBLISHERS))
+                    .genre(genres[random.nextInt(genres.length)])
+                    .build());
+        }
+        return books;
+    }
+
+    /**
+     * Build a 13-character ISBN that is unique per (seed, index)
+     */
+    static String isbn(long seed, long index) {
+        return String.format("9%03d%09d", Math.floorMod(seed, 1000), index);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,101 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.BookstoreApplication;
+import com.bookstore.dto.BookQuery;
+import com.bookstore.model.Book;
+import com.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-criteria queries ({@link BookService#queryBooks}) answered by the database and by the
+ * columnar catalog snapshot ({@code snapshot=true}). Run with {@code -prof gc} to compare the
+ * allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookQueryBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final BookQuery FICTION_UNDER_20 = new BookQuery(Set.of(Book.Genre.FICTION), null, null,
+            null, new BigDecimal("20.00"), null, null, null, null);
+    private static final BookQuery RECENT_BY_TITLE = new BookQuery(null, null, "river", null, null,
+            LocalDate.of(2000, 1, 1), null, null, null);
+    private static final Pageable CHEAPEST_FIRST = PageRequest.of(0, 20, Sort.by("price").and(Sort.by("id")));
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    @Param({"false", "true"})
+    private boolean snapshot;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line arguments, unlike default properties, override application.properties
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:query-benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.root=WARN",
+                        "--bookstore.snapshot.enabled=" + snapshot);
+        bookService = context.getBean(BookService.class);
+
+        List<Book> books = BenchmarkData.books(catalogSize, 1);
+        for (int from = 0; from < books.size(); from += SEED_BATCH_SIZE) {
+            bookService.createBooks(books.subList(from, Math.min(from + SEED_BATCH_SIZE, books.size())));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<Book> filterAndSort() {
+        return bookService.queryBooks(FICTION_UNDER_20, CHEAPEST_FIRST);
+    }
+
+    @Benchmark
+    public Slice<Book> filterByTitleAndDate() {
+        return bookService.queryBooks(RECENT_BY_TITLE, PageRequest.of(0, 20, Sort.by("id")));
+    }
+
+    @Benchmark
+    public long count() {
+        return bookService.countBooks(FICTION_UNDER_20);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.BookstoreApplication;
+import com.bookstore.model.Book;
+import com.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BookService} hot paths against an H2 database seeded with a synthetic catalog.
+ * <p>
+ * The application context is started without the web layer; SQL logging is turned off so the
+ * numbers reflect the service and the database, not the console. Lookups are measured both
+ * with the book cache enabled and with it effectively disabled ({@code cacheSize=0}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, Sort.by("id"));
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private Book[] catalog;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line arguments, unlike default properties, override application.properties
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.root=WARN",
+                        "--bookstore.cache.maximum-size=" + cacheSize);
+        bookService = context.getBean(BookService.class);
+
+        List<Book> books = BenchmarkData.books(catalogSize, 1);
+        for (int from = 0; from < books.size(); from += SEED_BATCH_SIZE) {
+            bookService.createBooks(books.subList(from, Math.min(from + SEED_BATCH_SIZE, books.size())));
+        }
+        catalog = bookService.getAllBooks().toArray(Book[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book getBookById() {
+        return bookService.getBookById(randomBook().getId());
+    }
+
+    @Benchmark
+    public Book getBookByIsbn() {
+        return bookService.getBookByIsbn(randomBook().getIsbn());
+    }
+
+    @Benchmark
+    public Slice<Book> findBooksByAuthor() {
+        return bookService.findBooksByAuthor("murakami", Long.MIN_VALUE, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Slice<Book> findBooksByTitle() {
+        return bookService.findBooksByTitle("river", Long.MIN_VALUE, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Slice<Book> findBooksByGenre() {
+        return bookService.findBooksByGenre(Book.Genre.FICTION, Long.MIN_VALUE, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Book createBook() {
+        Book book = BenchmarkData.books(1, 2).get(0);
+        book.setIsbn(BenchmarkData.isbn(2, created.getAndIncrement()));
+        return bookService.createBook(book);
+    }
+
+    @Benchmark
+    public Book updateBook() {
+        Book details = new Book(randomBook());
+        details.setPrice(BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(500, 10_000), 2));
+        return bookService.updateBook(details.getId(), details);
+    }
+
+    private Book randomBook() {
+        return catalog[ThreadLocalRandom.current().nextInt(catalog.length)];
+    }
+}
@@ -0,0 +1,274 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.model.Book;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic synthetic catalog of realistic books, and a loader for a running application.
+ * <p>
+ * Every book is derived from the seed and its index alone, so the load driver can recompute any
+ * book or ISBN of the catalog without storing it. Authors, genres and publishers follow Zipf
+ * distributions (a few prolific authors, a long tail with a book or two each), publication dates lean
+ * towards recent years and prices are log-normal. ISBNs are valid ISBN-13s, unique per
+ * (seed, index).
+ * <p>
+ * Books are loaded through {@code POST /api/books/batch} by several parallel uploaders, so IDs
+ * come from the application's sequence and its caches and indexes see every book:
+ * <pre>
+ * mvn -P benchmarks -DskipTests test-compile exec:exec@generate-catalog -Dcatalog.args="--size=1000000"
+ * </pre>
+ * Options: {@code --url} (default {@value #DEFAULT_URL}), {@code --size}, {@code --seed},
+ * {@code --batch-size} and {@code --parallelism}.
+ */
+public final class CatalogGenerator {
+
+    static final String DEFAULT_URL = "http://localhost:8000";
+
+    /**
+     * ISBN indexes available per seed: 8 digits after the "979" prefix and the seed digit
+     */
+    static final long ISBN_CAPACITY = 100_000_000L;
+
+    static final String[] LAST_NAMES = {
+            "Austen", "Orwell", "Morrison", "Murakami", "Achebe", "Le Guin", "García Márquez", "Woolf", "Asimov",
+            "Smith", "Tolkien", "Atwood", "Ishiguro", "Adichie", "Borges", "Calvino", "Dostoevsky", "Eliot",
+            "Faulkner", "Hemingway", "Hurston", "Kafka", "Lessing", "Mantel", "Nabokov", "Okri", "Pamuk", "Roy",
+            "Rushdie", "Saramago", "Tokarczuk", "Updike", "Vonnegut", "Walker", "Yourcenar", "Zola", "Baldwin",
+            "Christie", "Dickens", "Ferrante", "Gaiman", "Hosseini", "Jemisin", "King", "Lahiri", "Mitchell",
+            "Ng", "Pratchett", "Rowling", "Sanderson", "Tartt", "Waters", "Oyeyemi", "Shafak", "Liu", "Kuang"
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "Jane", "George", "Toni", "Haruki", "Chinua", "Ursula", "Gabriel", "Virginia", "Isaac", "Zadie",
+            "Margaret", "Kazuo", "Chimamanda", "Jorge", "Italo", "Fyodor", "Mary", "William", "Ernest", "Zora",
+            "Franz", "Doris", "Hilary", "Vladimir", "Ben", "Orhan", "Arundhati", "Salman", "José", "Olga"
+    };
+
+    private static final String[] PUBLISHERS = {
+            "Penguin Random House", "HarperCollins", "Simon & Schuster", "Hachette", "Macmillan", "Vintage",
+            "Faber & Faber", "Bloomsbury", "Tor Books", "Scribner", "Knopf", "Del Rey", "Bantam Books",
+            "Picador", "Canongate", "Granta", "Verso", "Graywolf Press", "New Directions", "Melville House",
+            "Europa Editions", "Coffee House Press", "Tin House", "Orbit", "Gollancz", "Angry Robot",
+            "Small Beer Press", "Archipelago", "Two Lines Press", "Fitzcarraldo Editions"
+    };
+
+    private static final String[] TITLE_PATTERNS = {"The %s", "%s and %s", "The %s of %s", "%s", "A %s in %s"};
+
+    private static final LocalDate LATEST = LocalDate.of(2024, 12, 31);
+
+    private final long seed;
+    private final int seedDigit;
+    private final String[] authors;
+    private final Zipf authorRanks;
+    private final Book.Genre[] genres;
+    private final Zipf genreRanks;
+    private final Zipf publisherRanks;
+
+    /**
+     * Create the generator of a catalog
+     *
+     * @param seed The random seed; its last digit is part of every ISBN
+     * @param size The number of books in the catalog, which sizes the author pool
+     */
+    CatalogGenerator(long seed, long size) {
+        this.seed = seed;
+        this.seedDigit = Math.floorMod(seed, 10);
+        int authorCapacity = FIRST_NAMES.length * LAST_NAMES.length * 27;
+        this.authors = new String[(int) Math.max(50, Math.min(size / 25, authorCapacity))];
+        for (int rank = 0; rank < authors.length; rank++) {
+            authors[rank] = authorName(rank);
+        }
+        SplittableRandom shuffle = new SplittableRandom(seed);
+        shuffleArray(authors, shuffle);
+        this.authorRanks = new Zipf(authors.length, 1.0);
+        this.genres = Book.Genre.values().clone();
+        shuffleArray(genres, shuffle);
+        this.genreRanks = new Zipf(genres.length, 1.1);
+        this.publisherRanks = new Zipf(PUBLISHERS.length, 1.2);
+    }
+
+    /**
+     * Generate one book of the catalog, without an ID
+     *
+     * @param index The index of the book, from 0 to {@link #ISBN_CAPACITY} - 1
+     * @return The same book for the same seed and index
+     */
+    Book book(long index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        String title = title(random);
+        int age = (int) Math.min(200, -Math.log(1 - random.nextDouble()) * 15);
+        double price = Math.exp(Math.log(15) + 0.6 * random.nextGaussian());
+        int pages = (int) Math.round(320 + 120 * random.nextGaussian());
+        Book.Genre genre = genres[genreRanks.sample(random)];
+        return Book.builder()
+                .title(title)
+                .author(authors[authorRanks.sample(random)])
+                .isbn(isbn(index))
+                .publicationDate(LATEST.minusYears(age).minusDays(random.nextInt(365)))
+                .price(BigDecimal.valueOf(Math.max(199, Math.min(19_999, Math.round(price * 100))), 2))
+                .description("A " + genre.name().toLowerCase().replace('_', ' ')
+                        + " book about " + title.toLowerCase() + ".")
+                .pageCount(Math.max(40, Math.min(2000, pages)))
+                .publisher(PUBLISHERS[publisherRanks.sample(random)])
+                .genre(genre)
+                .build();
+    }
+
+    /**
+     * Build the ISBN-13 of a book: the "979" prefix, the seed digit, the index on 8 digits and
+     * the check digit
+     *
+     * @param index The index of the book
+     * @return The valid ISBN-13, unique per (seed, index)
+     */
+    String isbn(long index) {
+        if (index < 0 || index >= ISBN_CAPACITY) {
+            throw new IllegalArgumentException("Book index out of range: " + index);
+        }
+        String digits = String.format("979%d%08d", seedDigit, index);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    private static String title(SplittableRandom random) {
+        String pattern = TITLE_PATTERNS[random.nextInt(TITLE_PATTERNS.length)];
+        String[] words = BenchmarkData.TITLE_WORDS;
+        return String.format(pattern, words[random.nextInt(words.length)], words[random.nextInt(words.length)]);
+    }
+
+    /**
+     * Unique name of the author of a rank: first and last name, then an optional middle initial
+     */
+    private static String authorName(int rank) {
+        String first = FIRST_NAMES[rank % FIRST_NAMES.length];
+        String last = LAST_NAMES[(rank / FIRST_NAMES.length) % LAST_NAMES.length];
+        int initial = rank / (FIRST_NAMES.length * LAST_NAMES.length);
+        return initial == 0 ? first + " " + last : first + " " + (char) ('A' + initial - 1) + ". " + last;
+    }
+
+    private static <T> void shuffleArray(T[] values, SplittableRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            T swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    /**
+     * Zipf distribution over ranks 0 to n - 1, sampled by binary search in its cumulative weights
+     */
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int rank = 0; rank < n; rank++) {
+                total += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int found = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(found >= 0 ? found : -found - 1, cumulative.length - 1);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        URI batchUri = URI.create(options.getOrDefault("url", DEFAULT_URL) + "/api/books/batch");
+        long size = Long.parseLong(options.getOrDefault("size", "1000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int batchSize = Integer.parseInt(options.getOrDefault("batch-size", "1000"));
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism", "4"));
+
+        CatalogGenerator generator = new CatalogGenerator(seed, size);
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ObjectWriter writer = mapper.writer();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        AtomicLong nextBatch = new AtomicLong();
+        AtomicLong created = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        long start = System.nanoTime();
+
+        try (ExecutorService uploaders = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<?>> uploads = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                uploads.add(uploaders.submit(() -> {
+                    long from;
+                    while ((from = nextBatch.getAndIncrement() * batchSize) < size) {
+                        List<Book> batch = new ArrayList<>(batchSize);
+                        for (long index = from; index < Math.min(from + batchSize, size); index++) {
+                            batch.add(generator.book(index));
+                        }
+                        JsonNode results = mapper.readTree(upload(client, batchUri, writer.writeValueAsBytes(batch)));
+                        long ok = 0;
+                        for (JsonNode result : results) {
+                            if (BatchItemResult.Status.CREATED.name().equals(result.path("status").asText())) {
+                                ok++;
+                            }
+                        }
+                        created.addAndGet(ok);
+                        rejected.addAndGet(batch.size() - ok);
+                        long done = created.get() + rejected.get();
+                        if (from / batchSize % 100 == 0) {
+                            System.out.printf("%,d / %,d books%n", done, size);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> upload : uploads) {
+                upload.get();
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Created %,d books (%,d rejected, e.g. existing ISBNs) in %.1f s, %,.0f books/s%n",
+                created.get(), rejected.get(), seconds, created.get() / seconds);
+    }
+
+    private static String upload(HttpClient client, URI uri, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(5))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Batch upload failed with " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
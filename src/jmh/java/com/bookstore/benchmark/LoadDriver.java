@@ -0,0 +1,330 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.model.Book;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Open-model HTTP load driver for a running application on localhost.
+ * <p>
+ * Requests are sent at Poisson arrival times for the target rate, whether or not earlier
+ * requests have completed, so a slow server faces a growing backlog as it would in production
+ * instead of slowing the driver down. Latency is measured from the intended send time, which
+ * keeps queueing delay in the percentiles (no coordinated omission), and recorded in HDR
+ * histograms per operation. Requests beyond {@code --max-in-flight} are dropped and reported.
+ * <p>
+ * The IDs and ISBNs to read and update are taken from {@code GET /api/books/export} before the
+ * run and picked with a Zipf skew, so a few books are hot. Created books get fresh ISBNs from a
+ * {@link CatalogGenerator} whose seed differs from the catalog's; updates keep the book's ISBN so
+ * that later lookups by ISBN still find it.
+ * <pre>
+ * mvn -P benchmarks -DskipTests test-compile exec:exec@load-test -Dload.args="--rate=500 --duration=60"
+ * </pre>
+ * Options: {@code --url} (default {@value CatalogGenerator#DEFAULT_URL}), {@code --rate} (requests per
+ * second), {@code --duration} and {@code --warmup} (seconds), {@code --mix} (operation weights,
+ * default {@value #DEFAULT_MIX}), {@code --skew} (Zipf exponent of the book picks, 0 for uniform),
+ * {@code --max-in-flight}, {@code --seed} and {@code --output} (directory of the .hgrm files).
+ */
+public final class LoadDriver {
+
+    static final String DEFAULT_MIX = "get-by-id:50,get-by-isbn:20,search:20,create:5,update:5";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The requests of the mix
+     */
+    enum Operation {
+        GET_BY_ID, GET_BY_ISBN, SEARCH, CREATE, UPDATE;
+
+        String label() {
+            return name().toLowerCase().replace('_', '-');
+        }
+
+        static Operation of(String label) {
+            for (Operation operation : values()) {
+                if (operation.label().equals(label)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation: " + label);
+        }
+    }
+
+    /**
+     * Outcomes of one operation during the measured part of the run
+     */
+    private static final class Results {
+        final Histogram latencies = new ConcurrentHistogram(3);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+    }
+
+    private final String url;
+    private final HttpClient client;
+    private final ObjectWriter writer;
+    private final CatalogGenerator generator;
+    private final long[] ids;
+    private final String[] isbns;
+    private final CatalogGenerator.Zipf bookRanks;
+    private final String[] searchTerms;
+    private final AtomicLong nextIsbn;
+
+    private LoadDriver(String url, HttpClient client, long seed, long[] ids, String[] isbns, double skew) {
+        this.url = url;
+        this.client = client;
+        this.writer = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writer();
+        this.generator = new CatalogGenerator(seed, ids.length);
+        this.ids = ids;
+        this.isbns = isbns;
+        this.bookRanks = new CatalogGenerator.Zipf(ids.length, skew);
+        List<String> terms = new ArrayList<>(List.of(BenchmarkData.TITLE_WORDS));
+        terms.addAll(List.of(CatalogGenerator.LAST_NAMES));
+        this.searchTerms = terms.toArray(String[]::new);
+        // Start at a random index so that repeated runs do not create the same ISBNs
+        this.nextIsbn = new AtomicLong(new SplittableRandom().nextLong(CatalogGenerator.ISBN_CAPACITY / 2));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        String url = options.getOrDefault("url", CatalogGenerator.DEFAULT_URL);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "60")));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        double skew = Double.parseDouble(options.getOrDefault("skew", "0.8"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "2"));
+        Path output = Path.of(options.getOrDefault("output", "target/load-test"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List<String> isbns = new ArrayList<>();
+        long[] ids = fetchCatalog(client, url, isbns);
+        System.out.printf("Catalog of %,d books, target %.0f requests/s for %d s after a %d s warm-up, mix %s%n",
+                ids.length, rate, TimeUnit.NANOSECONDS.toSeconds(duration), TimeUnit.NANOSECONDS.toSeconds(warmup), mix);
+
+        LoadDriver driver = new LoadDriver(url, client, seed, ids, isbns.toArray(String[]::new), skew);
+        Map<Operation, Results> results = driver.run(rate, warmup, duration, mix, maxInFlight, seed);
+        report(results, rate, TimeUnit.NANOSECONDS.toSeconds(duration), output);
+    }
+
+    /**
+     * Send requests at Poisson arrival times until the end of the run, then wait for the stragglers
+     */
+    private Map<Operation, Results> run(double rate, long warmup, long duration, Map<Operation, Integer> mix,
+                                        int maxInFlight, long seed) throws InterruptedException {
+        Map<Operation, Results> results = new EnumMap<>(Operation.class);
+        mix.keySet().forEach(operation -> results.put(operation, new Results()));
+        Operation[] weighted = mix.entrySet().stream()
+                .flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+                .toArray(Operation[]::new);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGap = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup;
+        long end = measureFrom + duration;
+        long intended = start;
+        while (true) {
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanGap);
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = weighted[random.nextInt(weighted.length)];
+            boolean measured = intended >= measureFrom;
+            Results outcome = results.get(operation);
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    outcome.dropped.incrementAndGet();
+                }
+                continue;
+            }
+            long sentAt = intended;
+            client.sendAsync(request(operation, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long latency = System.nanoTime() - sentAt;
+                        inFlight.release();
+                        if (!measured) {
+                            return;
+                        }
+                        if (failure != null || response.statusCode() >= 400) {
+                            outcome.errors.incrementAndGet();
+                        } else {
+                            outcome.latencies.recordValue(latency);
+                        }
+                    });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            System.out.println("Some requests were still in flight at the end of the run");
+        }
+        return results;
+    }
+
+    private HttpRequest request(Operation operation, SplittableRandom random) {
+        int book = bookRanks.sample(random);
+        return switch (operation) {
+            case GET_BY_ID -> get("/api/books/" + ids[book]);
+            case GET_BY_ISBN -> get("/api/books/isbn/" + isbns[book]);
+            case SEARCH -> get("/api/books/search?q="
+                    + URLEncoder.encode(searchTerms[random.nextInt(searchTerms.length)], StandardCharsets.UTF_8));
+            case CREATE -> HttpRequest.newBuilder(URI.create(url + "/api/books"))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(generatedBook(random,
+                            generator.isbn(nextIsbn.getAndIncrement() % CatalogGenerator.ISBN_CAPACITY))))
+                    .build();
+            case UPDATE -> HttpRequest.newBuilder(URI.create(url + "/api/books/" + ids[book]))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(generatedBook(random, isbns[book])))
+                    .build();
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    /**
+     * A generated book with the given ISBN
+     */
+    private byte[] generatedBook(SplittableRandom random, String isbn) {
+        Book book = generator.book(random.nextLong(CatalogGenerator.ISBN_CAPACITY));
+        book.setIsbn(isbn);
+        try {
+            return writer.writeValueAsBytes(book);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Stream the IDs and ISBNs of every book from the export endpoint
+     */
+    private static long[] fetchCatalog(HttpClient client, String url, List<String> isbns)
+            throws IOException, InterruptedException {
+        ObjectMapper mapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/books/export?fields=isbn")).GET().build();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Catalog export failed with " + response.statusCode());
+        }
+        long[] ids = new long[1024];
+        int count = 0;
+        try (Stream<String> lines = response.body()) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode row = mapper.readTree(line);
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = row.get("id").asLong();
+                isbns.add(row.get("isbn").asText());
+            }
+        }
+        if (count == 0) {
+            throw new IllegalStateException("The catalog is empty, load it with CatalogGenerator first");
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                weights.put(Operation.of(parts[0]), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix must contain at least one operation");
+        }
+        return weights;
+    }
+
+    /**
+     * Print throughput and latency percentiles per operation, and write their full distributions
+     */
+    private static void report(Map<Operation, Results> results, double rate, long seconds, Path output)
+            throws IOException {
+        Files.createDirectories(output);
+        Histogram all = new Histogram(3);
+        long errors = 0;
+        long dropped = 0;
+        System.out.printf("%n%-12s %10s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "dropped", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, Results> entry : results.entrySet()) {
+            Results outcome = entry.getValue();
+            Histogram latencies = outcome.latencies.copy();
+            all.add(latencies);
+            errors += outcome.errors.get();
+            dropped += outcome.dropped.get();
+            printRow(entry.getKey().label(), latencies, outcome.errors.get(), outcome.dropped.get(), seconds);
+            try (PrintStream out = new PrintStream(output.resolve(entry.getKey().label() + ".hgrm").toFile())) {
+                latencies.outputPercentileDistribution(out, 1e6);
+            }
+        }
+        printRow("all", all, errors, dropped, seconds);
+        try (PrintStream out = new PrintStream(output.resolve("all.hgrm").toFile())) {
+            all.outputPercentileDistribution(out, 1e6);
+        }
+        System.out.printf("%nTarget %.0f requests/s, achieved %.1f successful requests/s; distributions in %s%n",
+                rate, (double) all.getTotalCount() / seconds, output.toAbsolutePath());
+    }
+
+    private static void printRow(String label, Histogram latencies, long errors, long dropped, long seconds) {
+        System.out.printf("%-12s %,10d %,8d %,8d %,10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                label, latencies.getTotalCount(), errors, dropped, (double) latencies.getTotalCount() / seconds,
+                millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                latencies.getMaxValue() / 1e6);
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1e6;
+    }
+}
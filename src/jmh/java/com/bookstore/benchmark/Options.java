@@ -0,0 +1,31 @@
+package com.bookstore.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parser of the {@code --name=value} options of the command-line tools
+ */
+final class Options {
+
+    private Options() {
+    }
+
+    /**
+     * Parse the arguments into options by name
+     *
+     * @param args The arguments, each of the form {@code --name=value}
+     * @return The values by option name, without the leading dashes
+     */
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,118 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.BookstoreApplication;
+import com.bookstore.dto.BookQuery;
+import com.bookstore.dto.BookRange;
+import com.bookstore.model.Book;
+import com.bookstore.service.BookSearchService;
+import com.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price and date range queries answered by the sorted range indexes
+ * ({@link BookSearchService#range}) and by the equivalent SQL through {@link BookService#queryBooks}
+ * plus {@link BookService#countBooks}, since a range page also carries the total number of matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeQueryBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final BigDecimal MIN_PRICE = new BigDecimal("20.00");
+    private static final BigDecimal MAX_PRICE = new BigDecimal("25.00");
+    private static final LocalDate FROM = LocalDate.of(1990, 1, 1);
+    private static final LocalDate TO = LocalDate.of(1999, 12, 31);
+
+    private static final BookRange PRICE_RANGE = new BookRange(MIN_PRICE, MAX_PRICE, null, null, null);
+    private static final BookQuery PRICE_QUERY = new BookQuery(null, null, null, MIN_PRICE, MAX_PRICE,
+            null, null, null, null);
+    private static final BookRange GENRE_DATE_RANGE = new BookRange(null, null, FROM, TO, Book.Genre.FICTION);
+    private static final BookQuery GENRE_DATE_QUERY = new BookQuery(Set.of(Book.Genre.FICTION), null, null,
+            null, null, FROM, TO, null, null);
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20);
+    private static final Pageable BY_PRICE = PageRequest.of(0, 20, Sort.by("price").and(Sort.by("id")));
+    private static final Pageable BY_DATE = PageRequest.of(0, 20, Sort.by("publicationDate").and(Sort.by("id")));
+
+    @Param({"10000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookSearchService bookSearchService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookstoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:range-benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.root=WARN");
+        bookService = context.getBean(BookService.class);
+        bookSearchService = context.getBean(BookSearchService.class);
+
+        List<Book> books = BenchmarkData.books(catalogSize, 1);
+        for (int from = 0; from < books.size(); from += SEED_BATCH_SIZE) {
+            bookService.createBooks(books.subList(from, Math.min(from + SEED_BATCH_SIZE, books.size())));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> priceRangeIndex() {
+        return bookSearchService.range(PRICE_RANGE, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public void priceRangeSql(Blackhole blackhole) {
+        blackhole.consume(bookService.queryBooks(PRICE_QUERY, BY_PRICE));
+        blackhole.consume(bookService.countBooks(PRICE_QUERY));
+    }
+
+    @Benchmark
+    public Page<Book> genreDateRangeIndex() {
+        return bookSearchService.range(GENRE_DATE_RANGE, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public void genreDateRangeSql(Blackhole blackhole) {
+        blackhole.consume(bookService.queryBooks(GENRE_DATE_QUERY, BY_DATE));
+        blackhole.consume(bookService.countBooks(GENRE_DATE_QUERY));
+    }
+}
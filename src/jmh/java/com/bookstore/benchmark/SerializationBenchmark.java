@@ -0,0 +1,90 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.converter.BookProtobufCodec;
+import com.bookstore.model.Book;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of book lists in every negotiated format: JSON, CBOR, Smile and
+ * Protocol Buffers. The payload size of each format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<List<Book>> BOOK_LIST = new TypeReference<>() { };
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    private String format;
+
+    private List<Book> books;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        books = BenchmarkData.books(size, 42);
+        // Same settings as the ObjectMapper Spring Boot configures for the application
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        ObjectMapper mapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        writer = mapper.writerFor(BOOK_LIST);
+        reader = mapper.readerFor(BOOK_LIST);
+        encoded = encode();
+        System.out.printf("%n%s payload of %d books: %d bytes%n", format, size, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (!format.equals("protobuf")) {
+            return writer.writeValueAsBytes(books);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        BookProtobufCodec.writeBooks(books, output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Book> decode() throws IOException {
+        if (!format.equals("protobuf")) {
+            return reader.readValue(encoded);
+        }
+        return BookProtobufCodec.readBooks(CodedInputStream.newInstance(encoded));
+    }
+}
@@ -0,0 +1,196 @@
+package com.bookstore.cache;
+
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.model.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of books, with a view by ID and a view by ISBN.
+ * <p>
+ * The ID view holds detached copies of the books and is the single source of truth; the
+ * ISBN view only maps an ISBN to an ID and is validated against the ID view on every read.
+ * Invalidating the ID entry therefore invalidates both views in one step.
+ * <p>
+ * A load that returns an older version than the last committed write to the book (as a read
+ * from a lagging replica can) is returned but not cached.
+ * <p>
+ * Cached books are shared between requests and must be treated as read-only. Loaders run
+ * outside of the cache's own locking, so a database call never holds a map lock (which would
+ * also pin a virtual thread to its carrier).
+ */
+@Component
+public class BookCache {
+
+    private static final Duration COMMITTED_VERSION_RETENTION = Duration.ofMinutes(1);
+
+    private final Cache<Long, Book> byId;
+    private final Cache<String, Long> idByIsbn;
+
+    /**
+     * Version of every book written recently, {@link Long#MAX_VALUE} once deleted; kept longer
+     * than any replication lag the replica may have while it is in use
+     */
+    private final Cache<Long, Long> committedVersions;
+
+    /**
+     * Incremented on every invalidation; a load that raced with a write is not cached
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public BookCache(@Value("${bookstore.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${bookstore.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.idByIsbn = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.committedVersions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(COMMITTED_VERSION_RETENTION)
+                .build();
+    }
+
+    /**
+     * Get a book by ID, loading and caching it on a miss
+     *
+     * @param id The ID of the book
+     * @param loader Function loading the book from the database
+     * @return The cached or loaded book, empty if it does not exist
+     */
+    public Optional<Book> getById(Long id, Function<Long, Optional<Book>> loader) {
+        Book cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long observed = generation.get();
+        return loader.apply(id).map(book -> put(book, observed));
+    }
+
+    /**
+     * Get a book by ISBN, loading and caching it on a miss
+     *
+     * @param isbn The ISBN of the book
+     * @param loader Function loading the book from the database
+     * @return The cached or loaded book, empty if it does not exist
+     */
+    public Optional<Book> getByIsbn(String isbn, Function<String, Optional<Book>> loader) {
+        Long id = idByIsbn.getIfPresent(isbn);
+        if (id != null) {
+            Book cached = byId.getIfPresent(id);
+            if (cached != null && isbn.equals(cached.getIsbn())) {
+                return Optional.of(cached);
+            }
+        }
+        long observed = generation.get();
+        return loader.apply(isbn).map(book -> put(book, observed));
+    }
+
+    /**
+     * Invalidate a book in both views
+     *
+     * @param id The ID of the book
+     */
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        Book removed = byId.asMap().remove(id);
+        if (removed != null) {
+            idByIsbn.invalidate(removed.getIsbn());
+        }
+    }
+
+    /**
+     * Invalidate every cached book
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byId.invalidateAll();
+        idByIsbn.invalidateAll();
+    }
+
+    /**
+     * Drop the cached state of a book once a write to it has been committed
+     *
+     * @param event The committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        Book book = event.book();
+        if (book == null) {
+            committedVersions.put(event.id(), Long.MAX_VALUE);
+        } else if (book.getVersion() != null && event.type() == BookChangedEvent.Type.CREATED) {
+            committedVersions.put(event.id(), book.getVersion());
+        } else if (book.getVersion() != null) {
+            committedVersions.asMap().merge(event.id(), book.getVersion(), Math::max);
+        }
+        invalidate(event.id());
+        if (event.book() != null) {
+            idByIsbn.invalidate(event.book().getIsbn());
+        }
+    }
+
+    /**
+     * Get the hit, miss and eviction statistics of both views
+     *
+     * @return The statistics of the ID view and the ISBN view
+     */
+    public Statistics statistics() {
+        return new Statistics(ViewStatistics.of(byId), ViewStatistics.of(idByIsbn));
+    }
+
+    private Book put(Book book, long observed) {
+        Book snapshot = new Book(book);
+        if (generation.get() != observed) {
+            // A write was committed while loading, the loaded state may already be stale
+            return snapshot;
+        }
+        Long committed = committedVersions.getIfPresent(snapshot.getId());
+        if (committed != null && (snapshot.getVersion() == null || snapshot.getVersion() < committed)) {
+            // Loaded from a replica that has not caught up with the last write yet
+            return snapshot;
+        }
+        byId.put(snapshot.getId(), snapshot);
+        idByIsbn.put(snapshot.getIsbn(), snapshot.getId());
+        if (generation.get() != observed) {
+            invalidate(snapshot.getId());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Statistics of both cache views
+     *
+     * @param byId Statistics of the ID view
+     * @param byIsbn Statistics of the ISBN view
+     */
+    public record Statistics(ViewStatistics byId, ViewStatistics byIsbn) {
+    }
+
+    /**
+     * Statistics of a single cache view
+     */
+    public record ViewStatistics(long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+
+        static ViewStatistics of(Cache<?, ?> cache) {
+            CacheStats stats = cache.stats();
+            return new ViewStatistics(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                    stats.hitRate(), stats.evictionCount());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.bookstore.cache;
+
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.model.Book;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ready-to-send JSON bodies of single books, plain and gzip-compressed.
+ * <p>
+ * Entries are keyed by book ID and carry the version they were serialized from; a body is
+ * only served for the exact version asked for, so a stale entry can never be returned even
+ * before its invalidation arrives. The cache is bounded by the total size of the bodies.
+ */
+@Component
+public class BookResponseCache {
+
+    // Rough per-entry cost of the entry, the body record and the two array headers
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Cache<Long, Body> bodies;
+    private final ObjectWriter writer;
+
+    @Autowired
+    public BookResponseCache(ObjectMapper objectMapper,
+                             @Value("${bookstore.response-cache.maximum-size:64MB}") DataSize maximumSize) {
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((Long id, Body body) -> ENTRY_OVERHEAD + body.plain().length + body.gzip().length)
+                .recordStats()
+                .build();
+        this.writer = objectMapper.writerFor(Book.class);
+    }
+
+    /**
+     * Get the serialized body of a book, serializing and caching it on a miss
+     *
+     * @param book The book, as returned by the service layer
+     * @return The JSON body of the book and its gzip-compressed variant
+     */
+    public Body get(Book book) {
+        Body cached = bodies.getIfPresent(book.getId());
+        if (cached != null && Objects.equals(cached.version(), book.getVersion())) {
+            return cached;
+        }
+        Body body = Body.of(book.getVersion(), serialize(book));
+        // Never replace the body of a newer version with that of an older one
+        bodies.asMap().merge(book.getId(), body, (existing, loaded) -> isNewer(existing, loaded) ? existing : loaded);
+        return body;
+    }
+
+    /**
+     * Drop the cached body of a book once a write to it has been committed
+     *
+     * @param event The committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        bodies.invalidate(event.id());
+    }
+
+    /**
+     * Get the hit, miss and eviction statistics of the cache
+     *
+     * @return The statistics
+     */
+    public BookCache.ViewStatistics statistics() {
+        return BookCache.ViewStatistics.of(bodies);
+    }
+
+    private byte[] serialize(Book book) {
+        try {
+            return writer.writeValueAsBytes(book);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static boolean isNewer(Body existing, Body loaded) {
+        return existing.version() != null && loaded.version() != null && existing.version() > loaded.version();
+    }
+
+    /**
+     * The serialized forms of one version of a book
+     *
+     * @param version The version of the book the bodies were serialized from
+     * @param plain The JSON body
+     * @param gzip The JSON body compressed with gzip
+     */
+    public record Body(Long version, byte[] plain, byte[] gzip) {
+
+        static Body of(Long version, byte[] plain) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(plain.length / 2 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(plain);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return new Body(version, plain, compressed.toByteArray());
+        }
+    }
+}
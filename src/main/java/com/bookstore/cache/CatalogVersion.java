@@ -0,0 +1,45 @@
+package com.bookstore.cache;
+
+import com.bookstore.event.BookChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counter of the books table, used as the validator of list and search responses.
+ * <p>
+ * The counter is incremented after every committed write, so a client holding the ETag of the
+ * current counter value cannot have missed a change. It lives in memory and starts over on
+ * restart; the random epoch in the ETag keeps counters of different runs (or instances) from
+ * being mistaken for one another.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Get a weak ETag for responses computed from the current state of the catalog.
+     * <p>
+     * Must be read before the response is computed: a change committed in between then only
+     * makes the response look older than it is, never newer.
+     *
+     * @return The weak ETag of the current catalog version
+     */
+    public String etag() {
+        return "W/\"" + epoch + "-" + changes.get() + "\"";
+    }
+
+    /**
+     * Record a committed write
+     *
+     * @param event The committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        changes.incrementAndGet();
+    }
+}
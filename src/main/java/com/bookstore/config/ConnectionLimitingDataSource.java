@@ -0,0 +1,120 @@
+package com.bookstore.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource that lets at most a fixed number of callers hold a connection at the same time.
+ * <p>
+ * With virtual threads there is no longer a thread pool in front of the connection pool, so
+ * thousands of requests can ask for a connection at once. Callers beyond the limit wait here,
+ * in FIFO order, instead of piling up inside the connection pool; a caller that waits longer
+ * than the acquire timeout fails with a {@link SQLTransientConnectionException}.
+ * <p>
+ * A permit is held from {@code getConnection()} until the returned connection is closed.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    /**
+     * Constructor
+     *
+     * @param target The data source to limit
+     * @param maxConnections The maximum number of connections handed out at the same time
+     * @param acquireTimeout How long a caller waits for a permit before failing
+     */
+    public ConnectionLimitingDataSource(DataSource target, int maxConnections, Duration acquireTimeout) {
+        super(target);
+        this.permits = new Semaphore(maxConnections, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of connections that can still be handed out without waiting
+     *
+     * @return The number of available permits
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after "
+                        + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                try {
+                    return invoke(connection, method, args);
+                } finally {
+                    permits.release();
+                }
+            }
+            return invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
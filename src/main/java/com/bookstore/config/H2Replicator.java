@@ -0,0 +1,182 @@
+package com.bookstore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Replicates the books table of an H2 primary into an H2 replica, for running and testing the
+ * read/write split locally.
+ * <p>
+ * The replica table is created from the DDL of the primary's, with the same keys, constraints
+ * and indexes, so queries on the replica have the same plans. The replica reads the primary
+ * through a linked table and copies the whole table at a fixed interval, which gives it a replication lag of up to that interval. The time each copy was
+ * taken is recorded in a {@code replication_status} table; {@link #LAG_QUERY} turns it into
+ * the lag seen by the {@link ReplicaLagMonitor}.
+ */
+public class H2Replicator implements SmartLifecycle {
+
+    /**
+     * Replication lag of the replica in milliseconds
+     */
+    public static final String LAG_QUERY =
+            "SELECT DATEDIFF('MILLISECOND', applied_at, CURRENT_TIMESTAMP) FROM replication_status";
+
+    private static final Logger log = LoggerFactory.getLogger(H2Replicator.class);
+    // The table, constraint and index statements of a SCRIPT, without its users and comments
+    private static final Pattern SCHEMA_STATEMENT =
+            Pattern.compile("^(CREATE (MEMORY |CACHED )?TABLE|CREATE (UNIQUE )?INDEX|ALTER TABLE) ");
+
+    private final DataSource replica;
+    private final String primaryUrl;
+    private final String primaryUsername;
+    private final String primaryPassword;
+    private final Duration interval;
+    // Not a monitor, so the copy does not pin a virtual thread to its carrier
+    private final Lock replicationLock = new ReentrantLock();
+
+    private boolean initialized;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor
+     *
+     * @param replica The data source of the replica
+     * @param primaryUrl The JDBC URL of the primary, as seen from the replica
+     * @param primaryUsername The user of the primary
+     * @param primaryPassword The password of the primary
+     * @param interval The time between two copies
+     */
+    public H2Replicator(DataSource replica, String primaryUrl, String primaryUsername, String primaryPassword,
+                        Duration interval) {
+        this.replica = replica;
+        this.primaryUrl = primaryUrl;
+        this.primaryUsername = primaryUsername;
+        this.primaryPassword = primaryPassword;
+        this.interval = interval;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "h2-replicator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                replicate();
+            } catch (SQLException | RuntimeException e) {
+                log.error("Replication to the replica failed", e);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Copy the current state of the primary's books table to the replica, in one transaction
+     *
+     * @throws SQLException If either database cannot be accessed
+     */
+    void replicate() throws SQLException {
+        replicationLock.lock();
+        try {
+            copy();
+        } finally {
+            replicationLock.unlock();
+        }
+    }
+
+    private void copy() throws SQLException {
+        Instant takenAt = Instant.now();
+        try (Connection connection = replica.getConnection()) {
+            if (!initialized) {
+                initialize(connection);
+                initialized = true;
+            }
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement();
+                 PreparedStatement status = connection.prepareStatement(
+                         "MERGE INTO replication_status KEY (id) VALUES (1, ?)")) {
+                statement.executeUpdate("MERGE INTO books KEY (id) SELECT * FROM primary_books");
+                statement.executeUpdate("DELETE FROM books WHERE id NOT IN (SELECT id FROM primary_books)");
+                status.setObject(1, OffsetDateTime.ofInstant(takenAt, ZoneOffset.UTC));
+                status.executeUpdate();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void initialize(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE LINKED TABLE IF NOT EXISTS primary_books('org.h2.Driver', "
+                    + literal(primaryUrl) + ", " + literal(primaryUsername) + ", " + literal(primaryPassword)
+                    + ", 'BOOKS') READONLY");
+            createBooksTable(connection, statement);
+            statement.execute("CREATE TABLE IF NOT EXISTS replication_status"
+                    + " (id INT PRIMARY KEY, applied_at TIMESTAMP WITH TIME ZONE NOT NULL)");
+        }
+        log.info("Replicating the books table of {} every {} ms", primaryUrl, interval.toMillis());
+    }
+
+    /**
+     * Create the books table on the replica by replaying the DDL of the primary's, unless it
+     * already exists
+     */
+    private void createBooksTable(Connection connection, Statement statement) throws SQLException {
+        try (ResultSet existing = connection.getMetaData().getTables(null, null, "BOOKS", new String[] {"TABLE"})) {
+            if (existing.next()) {
+                return;
+            }
+        }
+        try (Connection primary = DriverManager.getConnection(primaryUrl, primaryUsername, primaryPassword);
+             Statement script = primary.createStatement();
+             ResultSet ddl = script.executeQuery("SCRIPT NODATA TABLE books")) {
+            while (ddl.next()) {
+                String sql = ddl.getString(1);
+                if (SCHEMA_STATEMENT.matcher(sql).find()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static String literal(String value) {
+        return "'" + (value == null ? "" : value.replace("'", "''")) + "'";
+    }
+}
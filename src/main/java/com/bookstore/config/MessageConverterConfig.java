@@ -0,0 +1,47 @@
+package com.bookstore.config;
+
+import com.bookstore.converter.BookProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary representations of the API, negotiated through {@code Accept} and {@code Content-Type}:
+ * CBOR ({@code application/cbor}), Smile ({@code application/x-jackson-smile}) and Protocol
+ * Buffers ({@code application/x-protobuf}). JSON stays the default.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    /**
+     * CBOR converter with the same Jackson settings as the JSON one (e.g. ISO dates)
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Smile converter with the same Jackson settings as the JSON one
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Append the protobuf converter last, so that requests accepting any type still get JSON
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BookProtobufHttpMessageConverter());
+    }
+}
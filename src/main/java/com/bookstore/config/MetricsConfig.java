@@ -0,0 +1,21 @@
+package com.bookstore.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics configuration
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Record a timer for every method of beans annotated with {@code @Timed}
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookstore.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override of read routing: while set, read-only transactions use the primary
+ * database instead of the replica.
+ * <p>
+ * Used for read-your-writes (a client that has just written reads its own writes from the
+ * primary) and by callers that must not observe replication lag, such as index rebuilds that
+ * are kept up to date by write events. Without a replica this has no effect.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Run an action with every read of the current thread going to the primary database
+     *
+     * @param action The action
+     * @param <T> The result type of the action
+     * @return The result of the action
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = requirePrimary();
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Check whether reads of the current thread must go to the primary database
+     *
+     * @return True if the primary is required
+     */
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    static boolean requirePrimary() {
+        boolean previous = isPrimaryRequired();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void restore(boolean previous) {
+        if (previous) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+}
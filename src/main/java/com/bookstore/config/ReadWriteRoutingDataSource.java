@@ -0,0 +1,74 @@
+package com.bookstore.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource that sends read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * A connection goes to the replica only if the current transaction is read-only, the thread
+ * does not require the primary ({@link ReadRouting}) and the {@link ReplicaLagMonitor} reports
+ * the replica as usable; otherwise it goes to the primary. The decision is made when the
+ * physical connection is fetched, so this data source must be used behind a
+ * {@link LazyConnectionDataSourceProxy}: the transaction manager then begins the transaction
+ * before any connection is fetched, and its read-only flag is known here.
+ * <p>
+ * Routed connections are counted as {@code bookstore.datasource.connections}, tagged with the target.
+ */
+public final class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * The databases connections are routed to
+     */
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    /**
+     * Constructor
+     *
+     * @param primary The data source of the primary database, used for writes
+     * @param replica The data source of the replica, used for read-only transactions
+     * @param lagMonitor Tells whether the replica is usable
+     * @param registry The registry to count routed connections in
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                      MeterRegistry registry) {
+        this.lagMonitor = lagMonitor;
+        this.primaryConnections = counter(registry, Target.PRIMARY);
+        this.replicaConnections = counter(registry, Target.REPLICA);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadRouting.isPrimaryRequired()
+                && lagMonitor.isReplicaUsable()) {
+            replicaConnections.increment();
+            return Target.REPLICA;
+        }
+        primaryConnections.increment();
+        return Target.PRIMARY;
+    }
+
+    private static Counter counter(MeterRegistry registry, Target target) {
+        return Counter.builder("bookstore.datasource.connections")
+                .description("Connections fetched, by the database they were routed to")
+                .tag("target", target.name().toLowerCase())
+                .register(registry);
+    }
+}
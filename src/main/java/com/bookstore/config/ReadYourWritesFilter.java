@@ -0,0 +1,85 @@
+package com.bookstore.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes for clients of a replicated database.
+ * <p>
+ * A request that may write (anything but GET, HEAD, OPTIONS and TRACE) runs on the primary and
+ * answers with a {@value #COOKIE} cookie holding the time until which the client keeps reading
+ * from the primary. Requests carrying an unexpired cookie read from the primary as well, so a
+ * client sees its own writes even while the replica is still behind.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "bookstore-read-primary-until";
+
+    private static final Set<String> SAFE_METHODS = Set.of(
+            HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name(), HttpMethod.TRACE.name());
+
+    private final Duration stickiness;
+    private final Clock clock;
+
+    /**
+     * Constructor
+     *
+     * @param stickiness How long a client reads from the primary after a write
+     * @param clock The clock to compare the cookie with
+     */
+    public ReadYourWritesFilter(Duration stickiness, Clock clock) {
+        this.stickiness = stickiness;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            // Set before the chain runs, the response may be committed by the time it returns
+            Cookie cookie = new Cookie(COOKIE, Long.toString(clock.millis() + stickiness.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, stickiness.toSeconds()));
+            response.addCookie(cookie);
+        }
+        if (!write && !isSticky(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean previous = ReadRouting.requirePrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+
+    private boolean isSticky(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > clock.millis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
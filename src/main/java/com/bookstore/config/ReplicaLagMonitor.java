@@ -0,0 +1,142 @@
+package com.bookstore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically measures the replication lag of the replica and decides whether reads may use it.
+ * <p>
+ * The lag is measured with a configurable query that returns the lag in milliseconds (e.g. on
+ * PostgreSQL {@code SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000}).
+ * Without a query, the replica is only checked to be reachable. The replica is usable while the
+ * last check succeeded with a lag of at most the maximum; it is not usable before the first check,
+ * so reads start out on the primary.
+ */
+public class ReplicaLagMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+
+    private volatile boolean usable;
+    private volatile Duration lag;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor
+     *
+     * @param replica The data source of the replica
+     * @param lagQuery Query returning the replication lag in milliseconds, or blank to only check connectivity
+     * @param maxLag The largest lag at which the replica is still used
+     * @param checkInterval The time between two checks
+     */
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Check whether read-only transactions may currently use the replica
+     *
+     * @return True if the replica is reachable and not lagging more than allowed
+     */
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /**
+     * Get the replication lag measured by the last successful check
+     *
+     * @return The lag, or {@code null} if it could not be measured
+     */
+    public Duration lag() {
+        return lag;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        usable = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Measure the lag once and update whether the replica is usable
+     */
+    void check() {
+        Duration measured;
+        try {
+            measured = measure();
+        } catch (SQLException | RuntimeException e) {
+            lag = null;
+            update(false, "cannot be checked: " + e.getMessage());
+            return;
+        }
+        lag = measured;
+        boolean withinLimit = measured.compareTo(maxLag) <= 0;
+        update(withinLimit, "lags " + measured.toMillis() + " ms behind the primary");
+    }
+
+    private Duration measure() throws SQLException {
+        try (Connection connection = replica.getConnection()) {
+            if (!StringUtils.hasText(lagQuery)) {
+                if (!connection.isValid((int) Math.max(1, checkInterval.toSeconds()))) {
+                    throw new SQLException("Connection is not valid");
+                }
+                return Duration.ZERO;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(lagQuery)) {
+                if (!result.next()) {
+                    throw new SQLException("Lag query returned no row");
+                }
+                return Duration.ofMillis(Math.max(0, result.getLong(1)));
+            }
+        }
+    }
+
+    private void update(boolean nowUsable, String reason) {
+        if (nowUsable != usable) {
+            if (nowUsable) {
+                log.info("Replica is in use for reads, it {}", reason);
+            } else {
+                log.warn("Reads fall back to the primary, the replica {}", reason);
+            }
+        }
+        usable = nowUsable;
+    }
+}
@@ -0,0 +1,96 @@
+package com.bookstore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Splits reads and writes between the primary database and a replica when
+ * {@code bookstore.datasource.replica.enabled=true}.
+ * <p>
+ * The primary pool is configured by {@code spring.datasource.*} as before, the replica pool by
+ * {@code bookstore.datasource.replica.*}. The application data source routes read-only
+ * transactions to the replica ({@link ReadWriteRoutingDataSource}), falls back to the primary
+ * while the replica lags too far behind ({@link ReplicaLagMonitor}) and keeps clients that
+ * have just written on the primary ({@link ReadYourWritesFilter}).
+ * <p>
+ * With {@code bookstore.datasource.replica.simulate-replication=true} both databases are
+ * expected to be H2, and an {@link H2Replicator} keeps the replica up to date.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "bookstore.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("bookstore.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${bookstore.datasource.replica.url}") String url,
+                                              @Value("${bookstore.datasource.replica.username:}") String username,
+                                              @Value("${bookstore.datasource.replica.password:}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${bookstore.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${bookstore.datasource.replica.simulate-replication:false}") boolean simulated,
+            @Value("${bookstore.datasource.replica.max-lag:5s}") Duration maxLag,
+            @Value("${bookstore.datasource.replica.check-interval:1s}") Duration checkInterval) {
+        if (!StringUtils.hasText(lagQuery) && simulated) {
+            lagQuery = H2Replicator.LAG_QUERY;
+        }
+        return new ReplicaLagMonitor(replica, lagQuery, maxLag, checkInterval);
+    }
+
+    /**
+     * The data source used by JPA and everything else; connections are fetched lazily, once
+     * the transaction they belong to has begun and can be routed
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor, MeterRegistry registry) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, lagMonitor, registry));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${bookstore.datasource.replica.read-your-writes:10s}") Duration stickiness) {
+        return new ReadYourWritesFilter(stickiness, Clock.systemUTC());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "bookstore.datasource.replica.simulate-replication", havingValue = "true")
+    public H2Replicator h2Replicator(@Qualifier("replicaDataSource") DataSource replica, DataSourceProperties primary,
+                                     @Value("${bookstore.datasource.replica.replication-interval:1s}") Duration interval) {
+        return new H2Replicator(replica, primary.determineUrl(), primary.determineUsername(),
+                primary.determinePassword(), interval);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookstore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs requests on virtual threads when {@code bookstore.threads.virtual.enabled=true}.
+ * <p>
+ * Tomcat hands every request to a new virtual thread, and so do async requests such as the
+ * streaming export. Service calls, including their transactions, run on the request thread and
+ * therefore on virtual threads as well. Because nothing bounds the number of request threads
+ * any more, the data source is wrapped in a {@link ConnectionLimitingDataSource} sized to the
+ * connection pool.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "bookstore.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                int maxConnections = environment.getProperty("bookstore.jdbc.max-concurrent-connections",
+                        Integer.class, hikari.getMaximumPoolSize());
+                Duration acquireTimeout = environment.getProperty("bookstore.jdbc.acquire-timeout",
+                        Duration.class, Duration.ofMillis(hikari.getConnectionTimeout()));
+                return new ConnectionLimitingDataSource(hikari, maxConnections, acquireTimeout);
+            }
+        };
+    }
+}
@@ -1,8 +1,34 @@
 package com.bookstore.controller;
 
+import com.bookstore.cache.BookResponseCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.config.ReadRouting;
+import com.bookstore.config.ReplicaLagMonitor;
+import com.bookstore.converter.BookProtobufHttpMessageConverter;
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.dto.BookQuery;
+import com.bookstore.dto.BookRange;
+import com.bookstore.dto.Cursor;
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.dto.IngestionStatus;
+import com.bookstore.dto.PageResponse;
+import com.bookstore.dto.QueryPage;
+import com.bookstore.dto.Repricing;
+import com.bookstore.dto.SearchPage;
+import com.bookstore.dto.Suggestion;
+import com.bookstore.dto.UpsertResult;
 import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.index.SuggestIndex;
+import com.bookstore.index.TrigramIndex;
 import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import com.bookstore.service.BookIngestionQueue;
+import com.bookstore.service.BookSearchService;
 import com.bookstore.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,74 +37,233 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * REST Controller for Book operations
+ * <p>
+ * Single-book responses carry a strong ETag derived from the book's version; list and search
+ * responses carry a weak ETag of the {@link CatalogVersion}. Every negotiated format has ETags of
+ * its own, and the responses vary by {@code Accept}. A matching {@code If-None-Match}
+ * is answered with 304 Not Modified without serializing the response (and, for lists,
+ * without querying the database). Lists read from a replica carry no ETag, since the replica
+ * may not have caught up with the catalog version.
  */
 @RestController
 @RequestMapping("/api/books")
 @Tag(name = "Book Controller", description = "CRUD operations for books")
 public class BookController {
 
+    private static final Sort BY_ID = Sort.by("id");
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final List<MediaType> BINARY_TYPES = List.of(MediaType.APPLICATION_CBOR,
+            MediaType.parseMediaType("application/x-jackson-smile"), BookProtobufHttpMessageConverter.PROTOBUF);
+
     private final BookService bookService;
+    private final BookSearchService bookSearchService;
+    private final CatalogVersion catalogVersion;
+    private final BookResponseCache bookResponseCache;
+    private final ObjectProvider<BookIngestionQueue> bookIngestionQueue;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final ObjectWriter exportWriter;
+    private final ObjectWriter exportFieldsWriter;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int maxOffset;
+    private final int maxBatchSize;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService,
+                          BookSearchService bookSearchService,
+                          CatalogVersion catalogVersion,
+                          BookResponseCache bookResponseCache,
+                          ObjectProvider<BookIngestionQueue> bookIngestionQueue,
+                          ObjectProvider<ReplicaLagMonitor> replicaLagMonitor,
+                          ObjectMapper objectMapper,
+                          @Value("${bookstore.pagination.default-limit:20}") int defaultLimit,
+                          @Value("${bookstore.pagination.max-limit:200}") int maxLimit,
+                          @Value("${bookstore.pagination.max-offset:10000}") int maxOffset,
+                          @Value("${bookstore.batch.max-size:1000}") int maxBatchSize) {
         this.bookService = bookService;
+        this.bookSearchService = bookSearchService;
+        this.catalogVersion = catalogVersion;
+        this.bookResponseCache = bookResponseCache;
+        this.bookIngestionQueue = bookIngestionQueue;
+        this.replicaLagMonitor = replicaLagMonitor;
+        // The export writes one document per line, so flushing after each book would only add syscalls
+        this.exportWriter = objectMapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.exportFieldsWriter = objectMapper.writerFor(Map.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.maxOffset = maxOffset;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @GetMapping
-    @Operation(summary = "Get all books", description = "Retrieve a list of all books in the bookstore")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of books")
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    @Operation(summary = "Get all books", description = "Retrieve one page of books ordered by ID. "
+            + "Pass the returned nextCursor as 'after' to fetch the next page, or use 'page' for shallow offset paging")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of books"),
+        @ApiResponse(responseCode = "304", description = "The catalog has not changed since the ETag in If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or paging parameters", content = @Content)
+    })
+    public ResponseEntity<PageResponse<?>> getAllBooks(
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Zero-based page number for offset paging") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        long afterId = afterId(after, page);
+        Pageable pageable = pageRequest(page, limit);
+        Set<BookField> selected = parseFields(fields);
+        return databaseRead(request, () -> {
+            if (selected != null) {
+                return PageResponse.of(bookService.getBooks(afterId, pageable, selected), BookController::idOf);
+            }
+            return PageResponse.of(bookService.getBooks(afterId, pageable), Book::getId);
+        });
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @Operation(summary = "Export all books", description = "Stream every book as newline-delimited JSON, ordered by ID")
+    @ApiResponse(responseCode = "200", description = "Books are streamed one JSON document per line")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields) {
+        Set<BookField> selected = parseFields(fields);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = exportWriter.createGenerator(out)) {
+                // Lines are separated explicitly below instead of by the default root value separator
+                generator.setRootValueSeparator(null);
+                if (selected == null) {
+                    bookService.exportBooks(book -> writeLine(generator, exportWriter, book));
+                } else {
+                    bookService.exportBooks(selected, row -> writeLine(generator, exportFieldsWriter, row));
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get a book by ID", description = "Retrieve a specific book by its ID")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Successfully retrieved the book"),
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the book",
+                content = @Content(schema = @Schema(implementation = Book.class))),
+        @ApiResponse(responseCode = "304", description = "The book has not changed since the ETag in If-None-Match", content = @Content),
         @ApiResponse(responseCode = "404", description = "Book not found with the given ID", content = @Content)
     })
-    public ResponseEntity<Book> getBookById(
-            @Parameter(description = "ID of the book to retrieve") @PathVariable Long id) {
-        Book book = bookService.getBookById(id);
-        return ResponseEntity.ok(book);
+    public ResponseEntity<Object> getBookById(
+            @Parameter(description = "ID of the book to retrieve") @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Set<BookField> selected = parseFields(fields);
+        return bookResponse(bookService.getBookById(id), selected, request);
     }
 
     @GetMapping("/isbn/{isbn}")
     @Operation(summary = "Get a book by ISBN", description = "Retrieve a specific book by its ISBN")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Successfully retrieved the book"),
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the book",
+                content = @Content(schema = @Schema(implementation = Book.class))),
+        @ApiResponse(responseCode = "304", description = "The book has not changed since the ETag in If-None-Match", content = @Content),
         @ApiResponse(responseCode = "404", description = "Book not found with the given ISBN", content = @Content)
     })
-    public ResponseEntity<Book> getBookByIsbn(
-            @Parameter(description = "ISBN of the book to retrieve") @PathVariable String isbn) {
-        Book book = bookService.getBookByIsbn(isbn);
-        return ResponseEntity.ok(book);
+    public ResponseEntity<Object> getBookByIsbn(
+            @Parameter(description = "ISBN of the book to retrieve") @PathVariable String isbn,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Set<BookField> selected = parseFields(fields);
+        return bookResponse(bookService.getBookByIsbn(isbn), selected, request);
     }
 
     @PostMapping
-    @Operation(summary = "Create a new book", description = "Add a new book to the bookstore")
+    @Operation(summary = "Create a new book", description = "Add a new book to the bookstore. With "
+            + "'Prefer: respond-async' and asynchronous ingestion enabled, the book is queued and created in a later "
+            + "batch; the response then carries a tracking ID whose status can be polled")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Book successfully created",
                 content = @Content(schema = @Schema(implementation = Book.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid input data", content = @Content)
+        @ApiResponse(responseCode = "202", description = "Book queued for creation",
+                content = @Content(schema = @Schema(implementation = IngestionStatus.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid input data", content = @Content),
+        @ApiResponse(responseCode = "429", description = "The ingestion queue is full, retry later", content = @Content)
     })
-    public ResponseEntity<Book> createBook(
-            @Parameter(description = "Book details to create") @Valid @RequestBody Book book) {
+    public ResponseEntity<?> createBook(
+            @Parameter(description = "Book details to create") @Valid @RequestBody Book book,
+            @Parameter(description = "respond-async to queue the book instead of creating it right away") @RequestHeader(value = "Prefer", required = false) String prefer) {
+        BookIngestionQueue ingestionQueue = bookIngestionQueue.getIfAvailable();
+        // The preference is ignored when ingestion is disabled, as RFC 7240 allows
+        if (ingestionQueue != null && prefer != null && prefer.toLowerCase(Locale.ROOT).contains(RESPOND_ASYNC)) {
+            IngestionStatus queued = ingestionQueue.submit(book);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/books/ingestion/" + queued.trackingId()))
+                    .header("Preference-Applied", RESPOND_ASYNC)
+                    .body(queued);
+        }
         Book createdBook = bookService.createBook(book);
         return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
     }
 
+    @GetMapping("/ingestion/{trackingId}")
+    @Operation(summary = "Get the status of a queued book", description = "Whether a book accepted with "
+            + "'Prefer: respond-async' is still queued, was created (with its ID) or was rejected (with the reason)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the status"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired tracking ID", content = @Content)
+    })
+    public ResponseEntity<IngestionStatus> getIngestionStatus(
+            @Parameter(description = "Tracking ID returned when the book was queued") @PathVariable String trackingId) {
+        return bookIngestionQueue.stream()
+                .flatMap(queue -> queue.status(trackingId).stream())
+                .findFirst()
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResourceNotFoundException("No queued book with tracking ID: " + trackingId));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create many books", description = "Add up to bookstore.batch.max-size books in one request. "
+            + "Each item is validated and checked for ISBN uniqueness individually; the result lists the outcome of every item")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed, see the status of each item"),
+        @ApiResponse(responseCode = "400", description = "The batch is empty or too large", content = @Content)
+    })
+    public ResponseEntity<List<BatchItemResult>> createBooks(
+            @Parameter(description = "Books to create") @RequestBody List<Book> books) {
+        if (books.isEmpty() || books.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch must contain between 1 and " + maxBatchSize + " books");
+        }
+        return ResponseEntity.ok(bookService.createBooks(books));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update a book", description = "Update an existing book's information or create it with the specified ID")
     @ApiResponses(value = {
@@ -89,20 +274,8 @@ public class BookController {
     public ResponseEntity<Book> updateBook(
             @Parameter(description = "ID of the book to update or create") @PathVariable Long id,
             @Parameter(description = "Book details") @Valid @RequestBody Book bookDetails) {
-        boolean bookExists = true;
-        try {
-            bookService.getBookById(id);
-        } catch (ResourceNotFoundException e) {
-            bookExists = false;
-        }
-        
-        Book updatedBook = bookService.updateBook(id, bookDetails);
-        
-        if (bookExists) {
-            return ResponseEntity.ok(updatedBook);
-        } else {
-            return new ResponseEntity<>(updatedBook, HttpStatus.CREATED);
-        }
+        UpsertResult result = bookService.upsertBook(id, bookDetails);
+        return new ResponseEntity<>(result.book(), result.created() ? HttpStatus.CREATED : HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -117,30 +290,445 @@ public class BookController {
         return ResponseEntity.ok(Map.of("deleted", true));
     }
 
+    @PatchMapping("/bulk")
+    @Operation(summary = "Reprice a genre", description = "Multiply the price of every book of a genre in a single "
+            + "statement, rounding to cents")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Books successfully repriced"),
+        @ApiResponse(responseCode = "400", description = "Missing genre or non-positive price factor", content = @Content)
+    })
+    public ResponseEntity<Map<String, Integer>> repriceBooks(@Valid @RequestBody Repricing repricing) {
+        int updated = bookService.repriceBooks(repricing.genre(), repricing.priceFactor());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    @DeleteMapping("/bulk")
+    @Operation(summary = "Delete a publisher's books", description = "Delete every book of a publisher in a single statement")
+    @ApiResponse(responseCode = "200", description = "Books successfully deleted")
+    public ResponseEntity<Map<String, Integer>> deleteBooksByPublisher(
+            @Parameter(description = "Exact publisher name") @RequestParam String publisher) {
+        if (publisher.isBlank()) {
+            throw new IllegalArgumentException("Publisher must not be blank");
+        }
+        return ResponseEntity.ok(Map.of("deleted", bookService.deleteBooksByPublisher(publisher)));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Full-text search", description = "Search title, author and description, ranked by relevance. "
+            + "Matching is case and accent insensitive")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the ranked books"),
+        @ApiResponse(responseCode = "400", description = "Invalid paging parameters", content = @Content)
+    })
+    public ResponseEntity<SearchPage<?>> searchBooks(
+            @Parameter(description = "Free-text query") @RequestParam String q,
+            @Parameter(description = "Zero-based page number") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        Pageable pageable = pageRequest(page == null ? 0 : page, limit);
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Set<BookField> selected = parseFields(fields);
+        return catalogRead(request, () -> {
+            if (selected != null) {
+                return SearchPage.of(bookSearchService.search(q, unsorted, selected));
+            }
+            Page<Book> books = bookSearchService.search(q, unsorted);
+            return SearchPage.of(books);
+        });
+    }
+
+    @GetMapping("/query")
+    @Operation(summary = "Query books by several criteria", description = "Find the books matching all given criteria "
+            + "in a single database query, sorted by any field. The total number of matches is only counted when requested")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of matching books"),
+        @ApiResponse(responseCode = "304", description = "The catalog has not changed since the ETag in If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid criteria, sort or paging parameters", content = @Content)
+    })
+    public ResponseEntity<QueryPage<?>> queryBooks(
+            @Parameter(description = "Genres to match, any of them (repeat the parameter or separate with commas)") @RequestParam(required = false) Set<Book.Genre> genre,
+            @Parameter(description = "Text the author must contain") @RequestParam(required = false) String author,
+            @Parameter(description = "Text the title must contain") @RequestParam(required = false) String title,
+            @Parameter(description = "Lowest price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Highest price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Earliest publication date (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedFrom,
+            @Parameter(description = "Latest publication date (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedTo,
+            @Parameter(description = "Lowest page count") @RequestParam(required = false) Integer minPages,
+            @Parameter(description = "Highest page count") @RequestParam(required = false) Integer maxPages,
+            @Parameter(description = "Field to sort by, e.g. price or publicationDate") @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Sort direction, asc or desc") @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Zero-based page number") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            @Parameter(description = "Whether to count all matches") @RequestParam(defaultValue = "false") boolean count,
+            WebRequest request) {
+        BookQuery query = new BookQuery(genre, author, title, minPrice, maxPrice, publishedFrom, publishedTo, minPages, maxPages);
+        Pageable pageable = pageRequest(page == null ? 0 : page, limit);
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sortOf(sort, direction));
+        Set<BookField> selected = parseFields(fields);
+        return databaseRead(request, () -> {
+            Long total = count ? bookService.countBooks(query) : null;
+            if (selected != null) {
+                return QueryPage.of(bookService.queryBooks(query, sorted, selected), total);
+            }
+            return QueryPage.of(bookService.queryBooks(query, sorted), total);
+        });
+    }
+
+    @GetMapping("/range")
+    @Operation(summary = "Price and date range query", description = "Find the books in a price range and/or a "
+            + "publication date range, optionally of one genre, from in-memory sorted indexes. Books are ordered by price, "
+            + "or by publication date when only dates are given")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the books in range"),
+        @ApiResponse(responseCode = "304", description = "The catalog has not changed since the ETag in If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid bounds or paging parameters", content = @Content)
+    })
+    public ResponseEntity<SearchPage<?>> rangeBooks(
+            @Parameter(description = "Lowest price") @RequestParam(required = false) BigDecimal priceMin,
+            @Parameter(description = "Highest price") @RequestParam(required = false) BigDecimal priceMax,
+            @Parameter(description = "Earliest publication date (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Latest publication date (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Genre to match") @RequestParam(required = false) Book.Genre genre,
+            @Parameter(description = "Zero-based page number") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        BookRange range = new BookRange(priceMin, priceMax, from, to, genre);
+        Pageable pageable = pageRequest(page == null ? 0 : page, limit);
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Set<BookField> selected = parseFields(fields);
+        return catalogRead(request, () -> {
+            if (selected != null) {
+                return SearchPage.of(bookSearchService.range(range, unsorted, selected));
+            }
+            return SearchPage.of(bookSearchService.range(range, unsorted));
+        });
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Facet counts", description = "Count books per genre and for the top publishers, "
+            + "for the whole catalog or for the matches of a full-text query. Served from memory")
+    @ApiResponse(responseCode = "200", description = "Successfully counted the books")
+    public ResponseEntity<FacetCounts> getFacets(
+            @Parameter(description = "Free-text query restricting the counted books") @RequestParam(required = false) String q,
+            @Parameter(description = "Maximum number of publishers to return") @RequestParam(defaultValue = "10") int publishers,
+            WebRequest request) {
+        if (publishers < 0) {
+            throw new IllegalArgumentException("Publishers must not be negative");
+        }
+        return catalogRead(request, () -> bookSearchService.facets(q, Math.min(publishers, maxLimit)));
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplete titles and authors", description = "Suggest book titles and author names "
+            + "with a word starting with the given prefix, most popular first. Served from memory; matching is case "
+            + "and accent insensitive")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the suggestions"),
+        @ApiResponse(responseCode = "304", description = "The catalog has not changed since the ETag in If-None-Match", content = @Content),
+        @ApiResponse(responseCode = "400", description = "Invalid limit", content = @Content)
+    })
+    public ResponseEntity<List<Suggestion>> suggest(
+            @Parameter(description = "Text typed so far") @RequestParam String prefix,
+            @Parameter(description = "Maximum number of suggestions (at most " + SuggestIndex.MAX_LIMIT + ")") @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return catalogRead(request, () -> bookSearchService.suggest(prefix, Math.min(limit, SuggestIndex.MAX_LIMIT)));
+    }
+
     @GetMapping("/search/author")
-    @Operation(summary = "Search books by author", description = "Find books by a specific author")
+    @Operation(summary = "Search books by author", description = "Find books by a specific author. "
+            + "With fuzzy=true, misspelled names match too and the results are ranked by similarity")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved books by the author")
-    public ResponseEntity<List<Book>> getBooksByAuthor(
-            @Parameter(description = "Author name to search for") @RequestParam String author) {
-        List<Book> books = bookService.findBooksByAuthor(author);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> getBooksByAuthor(
+            @Parameter(description = "Author name to search for") @RequestParam String author,
+            @Parameter(description = "Tolerate typos, ranking the books by similarity; pages with 'page' instead of 'after'") @RequestParam(defaultValue = "false") boolean fuzzy,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Zero-based page number for offset paging") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        if (fuzzy) {
+            return fuzzySearch(TrigramIndex.Field.AUTHOR, author, after, page, limit, fields, request);
+        }
+        long afterId = afterId(after, page);
+        Pageable pageable = pageRequest(page, limit);
+        Set<BookField> selected = parseFields(fields);
+        return databaseRead(request, () -> {
+            if (selected != null) {
+                return PageResponse.of(bookService.findBooksByAuthor(author, afterId, pageable, selected), BookController::idOf);
+            }
+            return PageResponse.of(bookService.findBooksByAuthor(author, afterId, pageable), Book::getId);
+        });
     }
 
     @GetMapping("/search/title")
-    @Operation(summary = "Search books by title", description = "Find books by title")
+    @Operation(summary = "Search books by title", description = "Find books by title. "
+            + "With fuzzy=true, misspelled words match too and the results are ranked by similarity")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved books by title")
-    public ResponseEntity<List<Book>> getBooksByTitle(
-            @Parameter(description = "Title to search for") @RequestParam String title) {
-        List<Book> books = bookService.findBooksByTitle(title);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> getBooksByTitle(
+            @Parameter(description = "Title to search for") @RequestParam String title,
+            @Parameter(description = "Tolerate typos, ranking the books by similarity; pages with 'page' instead of 'after'") @RequestParam(defaultValue = "false") boolean fuzzy,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Zero-based page number for offset paging") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        if (fuzzy) {
+            return fuzzySearch(TrigramIndex.Field.TITLE, title, after, page, limit, fields, request);
+        }
+        long afterId = afterId(after, page);
+        Pageable pageable = pageRequest(page, limit);
+        Set<BookField> selected = parseFields(fields);
+        return databaseRead(request, () -> {
+            if (selected != null) {
+                return PageResponse.of(bookService.findBooksByTitle(title, afterId, pageable, selected), BookController::idOf);
+            }
+            return PageResponse.of(bookService.findBooksByTitle(title, afterId, pageable), Book::getId);
+        });
     }
 
     @GetMapping("/search/genre")
     @Operation(summary = "Search books by genre", description = "Find books by genre")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved books by genre")
-    public ResponseEntity<List<Book>> getBooksByGenre(
-            @Parameter(description = "Genre to search for") @RequestParam Book.Genre genre) {
-        List<Book> books = bookService.findBooksByGenre(genre);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<PageResponse<?>> getBooksByGenre(
+            @Parameter(description = "Genre to search for") @RequestParam Book.Genre genre,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Zero-based page number for offset paging") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Comma-separated fields to return, e.g. title,author,price (id is always included)") @RequestParam(required = false) String fields,
+            WebRequest request) {
+        long afterId = afterId(after, page);
+        Pageable pageable = pageRequest(page, limit);
+        Set<BookField> selected = parseFields(fields);
+        return databaseRead(request, () -> {
+            if (selected != null) {
+                return PageResponse.of(bookService.findBooksByGenre(genre, afterId, pageable, selected), BookController::idOf);
+            }
+            return PageResponse.of(bookService.findBooksByGenre(genre, afterId, pageable), Book::getId);
+        });
+    }
+
+    /**
+     * Answer a list read from the database, with the weak ETag of the {@link CatalogVersion} or
+     * with 304 Not Modified.
+     * <p>
+     * The catalog version counts the writes committed on the primary, so it only describes pages
+     * read from the primary. While a replica serves reads, unconditional requests are read from
+     * it without an ETag; requests with {@code If-None-Match} are read from the primary, where
+     * they can be revalidated.
+     */
+    private <T> ResponseEntity<T> databaseRead(WebRequest request, Supplier<T> read) {
+        ReplicaLagMonitor lagMonitor = replicaLagMonitor.getIfAvailable();
+        if (lagMonitor != null && lagMonitor.isReplicaUsable() && !ReadRouting.isPrimaryRequired()
+                && request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(read.get());
+        }
+        return ReadRouting.onPrimary(() -> catalogRead(request, read));
+    }
+
+    /**
+     * Answer a response computed from the catalog, with the weak ETag of the {@link CatalogVersion}
+     * for the negotiated format or with 304 Not Modified
+     */
+    private <T> ResponseEntity<T> catalogRead(WebRequest request, Supplier<T> read) {
+        String etag = catalogVersion.etag();
+        MediaType format = negotiatedFormat(request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(etag.substring(0, etag.length() - 1) + formatSuffix(format) + "\"")) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(read.get());
+    }
+
+    /**
+     * Parse the requested fields, {@code null} when the whole book is wanted
+     */
+    private static Set<BookField> parseFields(String fields) {
+        return fields == null ? null : BookField.parse(fields);
+    }
+
+    private static Long idOf(Map<String, Object> row) {
+        return (Long) row.get(BookField.ID.attribute());
+    }
+
+    private static void writeLine(JsonGenerator generator, ObjectWriter writer, Object value) {
+        try {
+            writer.writeValue(generator, value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Answer with a book, or with 304 Not Modified.
+     * <p>
+     * The JSON body comes from the response cache, gzip-compressed if the client accepts it;
+     * other negotiated formats are serialized as usual. Every representation has its own strong
+     * ETag, and every response varies by the headers that select the representation.
+     */
+    private ResponseEntity<Object> bookResponse(Book book, Set<BookField> selected, WebRequest request) {
+        MediaType format = negotiatedFormat(request.getHeader(HttpHeaders.ACCEPT));
+        boolean json = MediaType.APPLICATION_JSON.equals(format);
+        boolean gzip = json && selected == null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (request.checkNotModified(etag(book, format, selected, gzip))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (selected != null) {
+            // Single books usually come from the cache, so the fields are picked in memory
+            return response.body(BookField.project(book, selected));
+        }
+        if (!json) {
+            return response.body(book);
+        }
+        BookResponseCache.Body body = bookResponseCache.get(book);
+        response.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.plain());
+    }
+
+    /**
+     * Format content negotiation would pick: JSON unless a binary format is preferred to it,
+     * {@code null} if neither is acceptable
+     */
+    private static MediaType negotiatedFormat(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+            // Sorts by quality first, then by specificity
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.includes(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+            for (MediaType binary : BINARY_TYPES) {
+                if (type.includes(binary)) {
+                    return binary;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ETag suffix of a negotiated format; JSON, the default, has none
+     */
+    private static String formatSuffix(MediaType format) {
+        return format == null || MediaType.APPLICATION_JSON.equals(format) ? "" : "-" + format.getSubtype();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Strong ETag of one representation of a book; the ID is included because an ISBN can move
+     * to another book. Binary formats add their suffix, a field selection the bit set of its
+     * fields, and the gzip-compressed body a suffix of its own.
+     */
+    private static String etag(Book book, MediaType format, Set<BookField> selected, boolean gzip) {
+        StringBuilder etag = new StringBuilder("\"").append(book.getId()).append('-').append(book.getVersion())
+                .append(formatSuffix(format));
+        if (selected != null) {
+            long fields = 0;
+            for (BookField field : selected) {
+                fields |= 1L << field.ordinal();
+            }
+            etag.append("-f").append(Long.toHexString(fields));
+        }
+        if (gzip) {
+            etag.append("-gz");
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Serve a typo-tolerant title or author search from the trigram index, ranked like a full-text search
+     */
+    private ResponseEntity<SearchPage<?>> fuzzySearch(TrigramIndex.Field field, String query, String after,
+                                                      Integer page, Integer limit, String fields, WebRequest request) {
+        if (after != null) {
+            throw new IllegalArgumentException("Fuzzy results are ranked by similarity, use 'page' instead of 'after'");
+        }
+        Pageable pageable = pageRequest(page == null ? 0 : page, limit);
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Set<BookField> selected = parseFields(fields);
+        return catalogRead(request, () -> {
+            if (selected != null) {
+                return SearchPage.of(bookSearchService.fuzzySearch(field, query, unsorted, selected));
+            }
+            return SearchPage.of(bookSearchService.fuzzySearch(field, query, unsorted));
+        });
+    }
+
+    /**
+     * Resolve the keyset starting point of a page request
+     */
+    private long afterId(String after, Integer page) {
+        if (after == null) {
+            return Long.MIN_VALUE;
+        }
+        if (page != null) {
+            throw new IllegalArgumentException("Parameters 'after' and 'page' cannot be combined");
+        }
+        return Cursor.decode(after);
+    }
+
+    /**
+     * Sort by the given field, then by ID so pages are stable across equal values
+     */
+    private static Sort sortOf(String sort, String direction) {
+        BookField field = BookField.of(sort);
+        Sort order = Sort.by(Sort.Direction.fromString(direction), field.attribute());
+        return field == BookField.ID ? order : order.and(BY_ID);
+    }
+
+    /**
+     * Build the page request, capping the page size and the offset depth
+     */
+    private Pageable pageRequest(Integer page, Integer limit) {
+        int size = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        if (size < 1) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        if (page == null) {
+            return PageRequest.of(0, size, BY_ID);
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if ((long) page * size > maxOffset) {
+            throw new IllegalArgumentException("Offset paging is limited to the first " + maxOffset
+                    + " books, use the 'after' cursor to page further");
+        }
+        return PageRequest.of(page, size, BY_ID);
     }
 }
@@ -0,0 +1,44 @@
+package com.bookstore.controller;
+
+import com.bookstore.cache.BookCache;
+import com.bookstore.cache.BookResponseCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller exposing the statistics of the in-process caches
+ */
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache Controller", description = "Statistics of the in-process caches")
+public class CacheController {
+
+    private final BookCache bookCache;
+    private final BookResponseCache bookResponseCache;
+
+    @Autowired
+    public CacheController(BookCache bookCache, BookResponseCache bookResponseCache) {
+        this.bookCache = bookCache;
+        this.bookResponseCache = bookResponseCache;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get book cache statistics", description = "Size, hit, miss and eviction counts of the book cache views")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the cache statistics")
+    public ResponseEntity<BookCache.Statistics> getStatistics() {
+        return ResponseEntity.ok(bookCache.statistics());
+    }
+
+    @GetMapping("/responses/stats")
+    @Operation(summary = "Get response cache statistics", description = "Size, hit, miss and eviction counts of the cache of serialized book bodies")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the cache statistics")
+    public ResponseEntity<BookCache.ViewStatistics> getResponseStatistics() {
+        return ResponseEntity.ok(bookResponseCache.statistics());
+    }
+}
@@ -0,0 +1,307 @@
+package com.bookstore.converter;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Protocol Buffers encoding of books, as described by {@code src/main/proto/bookstore.proto}.
+ * <p>
+ * Books are written straight from the entities with {@link CodedOutputStream} rather than
+ * through generated message classes, so a response is encoded without copying every book into
+ * an intermediate message first. Rows may also be the field maps of a {@code ?fields=} request;
+ * fields that were not requested are simply absent from the message.
+ */
+public final class BookProtobufCodec {
+
+    // Field numbers of the Book message
+    static final int ID = 1;
+    static final int TITLE = 2;
+    static final int AUTHOR = 3;
+    static final int ISBN = 4;
+    static final int PUBLICATION_DATE = 5;
+    static final int PRICE = 6;
+    static final int DESCRIPTION = 7;
+    static final int PAGE_COUNT = 8;
+    static final int PUBLISHER = 9;
+    static final int GENRE = 10;
+    static final int VERSION = 11;
+
+    // Field numbers of the BookList and BookPage messages
+    static final int BOOKS = 1;
+    static final int PAGE = 2;
+    static final int LIMIT = 3;
+    static final int NEXT_CURSOR = 4;
+    static final int HAS_NEXT = 5;
+    static final int TOTAL = 6;
+
+    private static final int VARINT = WireFormat.WIRETYPE_VARINT;
+    private static final int LENGTH_DELIMITED = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    private static final int ID_TAG = ID << 3 | VARINT;
+    private static final int TITLE_TAG = TITLE << 3 | LENGTH_DELIMITED;
+    private static final int AUTHOR_TAG = AUTHOR << 3 | LENGTH_DELIMITED;
+    private static final int ISBN_TAG = ISBN << 3 | LENGTH_DELIMITED;
+    private static final int PUBLICATION_DATE_TAG = PUBLICATION_DATE << 3 | VARINT;
+    private static final int PRICE_TAG = PRICE << 3 | LENGTH_DELIMITED;
+    private static final int DESCRIPTION_TAG = DESCRIPTION << 3 | LENGTH_DELIMITED;
+    private static final int PAGE_COUNT_TAG = PAGE_COUNT << 3 | VARINT;
+    private static final int PUBLISHER_TAG = PUBLISHER << 3 | LENGTH_DELIMITED;
+    private static final int GENRE_TAG = GENRE << 3 | VARINT;
+    private static final int VERSION_TAG = VERSION << 3 | VARINT;
+    private static final int BOOKS_TAG = BOOKS << 3 | LENGTH_DELIMITED;
+
+    private static final Book.Genre[] GENRES = Book.Genre.values();
+
+    private BookProtobufCodec() {
+    }
+
+    /**
+     * Write a book as a top-level Book message
+     *
+     * @param book The book
+     * @param out The stream to write to
+     * @throws IOException If the stream cannot be written
+     */
+    public static void writeBook(Book book, CodedOutputStream out) throws IOException {
+        writeFields(book, out);
+    }
+
+    /**
+     * Write books as a BookList message
+     *
+     * @param rows The books, or field maps of books
+     * @param out The stream to write to
+     * @throws IOException If the stream cannot be written
+     */
+    public static void writeBooks(List<?> rows, CodedOutputStream out) throws IOException {
+        writeRows(rows, out);
+    }
+
+    /**
+     * Write one page of books as a BookPage message
+     *
+     * @param rows The books of the page, or field maps of books
+     * @param page The zero-based page number
+     * @param limit The page size that was applied
+     * @param nextCursor The cursor of the next page, or {@code null}
+     * @param hasNext Whether another page follows
+     * @param total The total number of matches, or {@code null} if unknown
+     * @param out The stream to write to
+     * @throws IOException If the stream cannot be written
+     */
+    public static void writePage(List<?> rows, int page, int limit, String nextCursor, boolean hasNext, Long total,
+                                 CodedOutputStream out) throws IOException {
+        writeRows(rows, out);
+        if (page != 0) {
+            out.writeInt32(PAGE, page);
+        }
+        if (limit != 0) {
+            out.writeInt32(LIMIT, limit);
+        }
+        if (nextCursor != null) {
+            out.writeString(NEXT_CURSOR, nextCursor);
+        }
+        if (hasNext) {
+            out.writeBool(HAS_NEXT, true);
+        }
+        if (total != null) {
+            out.writeInt64(TOTAL, total);
+        }
+    }
+
+    /**
+     * Read a top-level Book message
+     *
+     * @param in The stream to read from
+     * @return The book, with {@code null} for every absent field
+     * @throws IOException If the stream cannot be read or is not a valid Book message
+     */
+    public static Book readBook(CodedInputStream in) throws IOException {
+        Book book = new Book();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case ID_TAG -> book.setId(in.readInt64());
+                case TITLE_TAG -> book.setTitle(in.readStringRequireUtf8());
+                case AUTHOR_TAG -> book.setAuthor(in.readStringRequireUtf8());
+                case ISBN_TAG -> book.setIsbn(in.readStringRequireUtf8());
+                case PUBLICATION_DATE_TAG -> book.setPublicationDate(LocalDate.ofEpochDay(in.readSInt32()));
+                case PRICE_TAG -> book.setPrice(decimal(in.readStringRequireUtf8()));
+                case DESCRIPTION_TAG -> book.setDescription(in.readStringRequireUtf8());
+                case PAGE_COUNT_TAG -> book.setPageCount(in.readInt32());
+                case PUBLISHER_TAG -> book.setPublisher(in.readStringRequireUtf8());
+                case GENRE_TAG -> book.setGenre(genre(in.readEnum()));
+                case VERSION_TAG -> book.setVersion(in.readInt64());
+                default -> in.skipField(tag);
+            }
+        }
+        return book;
+    }
+
+    /**
+     * Read the books of a BookList message; the content of a BookPage message is read the same way
+     *
+     * @param in The stream to read from
+     * @return The books in message order
+     * @throws IOException If the stream cannot be read or is not a valid message
+     */
+    public static List<Book> readBooks(CodedInputStream in) throws IOException {
+        List<Book> books = new ArrayList<>();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (tag == BOOKS_TAG) {
+                int limit = in.pushLimit(in.readRawVarint32());
+                books.add(readBook(in));
+                in.popLimit(limit);
+            } else {
+                in.skipField(tag);
+            }
+        }
+        return books;
+    }
+
+    private static void writeRows(List<?> rows, CodedOutputStream out) throws IOException {
+        for (Object row : rows) {
+            Book book = asBook(row);
+            out.writeTag(BOOKS, LENGTH_DELIMITED);
+            out.writeUInt32NoTag(sizeOf(book));
+            writeFields(book, out);
+        }
+    }
+
+    private static void writeFields(Book book, CodedOutputStream out) throws IOException {
+        if (book.getId() != null) {
+            out.writeInt64(ID, book.getId());
+        }
+        if (book.getTitle() != null) {
+            out.writeString(TITLE, book.getTitle());
+        }
+        if (book.getAuthor() != null) {
+            out.writeString(AUTHOR, book.getAuthor());
+        }
+        if (book.getIsbn() != null) {
+            out.writeString(ISBN, book.getIsbn());
+        }
+        if (book.getPublicationDate() != null) {
+            out.writeSInt32(PUBLICATION_DATE, (int) book.getPublicationDate().toEpochDay());
+        }
+        if (book.getPrice() != null) {
+            out.writeString(PRICE, book.getPrice().toPlainString());
+        }
+        if (book.getDescription() != null) {
+            out.writeString(DESCRIPTION, book.getDescription());
+        }
+        if (book.getPageCount() != null) {
+            out.writeInt32(PAGE_COUNT, book.getPageCount());
+        }
+        if (book.getPublisher() != null) {
+            out.writeString(PUBLISHER, book.getPublisher());
+        }
+        if (book.getGenre() != null) {
+            out.writeEnum(GENRE, book.getGenre().ordinal() + 1);
+        }
+        if (book.getVersion() != null) {
+            out.writeInt64(VERSION, book.getVersion());
+        }
+    }
+
+    /**
+     * Encoded size of the fields of a book, needed before writing it as an embedded message
+     */
+    private static int sizeOf(Book book) {
+        int size = 0;
+        if (book.getId() != null) {
+            size += CodedOutputStream.computeInt64Size(ID, book.getId());
+        }
+        if (book.getTitle() != null) {
+            size += CodedOutputStream.computeStringSize(TITLE, book.getTitle());
+        }
+        if (book.getAuthor() != null) {
+            size += CodedOutputStream.computeStringSize(AUTHOR, book.getAuthor());
+        }
+        if (book.getIsbn() != null) {
+            size += CodedOutputStream.computeStringSize(ISBN, book.getIsbn());
+        }
+        if (book.getPublicationDate() != null) {
+            size += CodedOutputStream.computeSInt32Size(PUBLICATION_DATE, (int) book.getPublicationDate().toEpochDay());
+        }
+        if (book.getPrice() != null) {
+            size += CodedOutputStream.computeStringSize(PRICE, book.getPrice().toPlainString());
+        }
+        if (book.getDescription() != null) {
+            size += CodedOutputStream.computeStringSize(DESCRIPTION, book.getDescription());
+        }
+        if (book.getPageCount() != null) {
+            size += CodedOutputStream.computeInt32Size(PAGE_COUNT, book.getPageCount());
+        }
+        if (book.getPublisher() != null) {
+            size += CodedOutputStream.computeStringSize(PUBLISHER, book.getPublisher());
+        }
+        if (book.getGenre() != null) {
+            size += CodedOutputStream.computeEnumSize(GENRE, book.getGenre().ordinal() + 1);
+        }
+        if (book.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(VERSION, book.getVersion());
+        }
+        return size;
+    }
+
+    /**
+     * A book, or a field map of a book (as returned for {@code ?fields=}) turned into a partial book
+     */
+    private static Book asBook(Object row) {
+        if (row instanceof Book book) {
+            return book;
+        }
+        if (!(row instanceof Map<?, ?> fields)) {
+            throw new IllegalArgumentException("Cannot encode " + row.getClass().getName() + " as a book");
+        }
+        Book book = new Book();
+        for (Map.Entry<?, ?> field : fields.entrySet()) {
+            Object value = field.getValue();
+            switch (BookField.of((String) field.getKey())) {
+                case ID -> book.setId((Long) value);
+                case TITLE -> book.setTitle((String) value);
+                case AUTHOR -> book.setAuthor((String) value);
+                case ISBN -> book.setIsbn((String) value);
+                case PUBLICATION_DATE -> book.setPublicationDate((LocalDate) value);
+                case PRICE -> book.setPrice((BigDecimal) value);
+                case DESCRIPTION -> book.setDescription((String) value);
+                case PAGE_COUNT -> book.setPageCount((Integer) value);
+                case PUBLISHER -> book.setPublisher((String) value);
+                case GENRE -> book.setGenre((Book.Genre) value);
+                case VERSION -> book.setVersion((Long) value);
+            }
+        }
+        return book;
+    }
+
+    private static Book.Genre genre(int number) throws InvalidProtocolBufferException {
+        if (number == 0) {
+            return null;
+        }
+        if (number < 0 || number > GENRES.length) {
+            throw new InvalidProtocolBufferException("Unknown genre " + number);
+        }
+        return GENRES[number - 1];
+    }
+
+    private static BigDecimal decimal(String value) throws InvalidProtocolBufferException {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidProtocolBufferException("Invalid price '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.bookstore.converter;
+
+import com.bookstore.dto.PageResponse;
+import com.bookstore.dto.QueryPage;
+import com.bookstore.dto.SearchPage;
+import com.bookstore.model.Book;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads and writes books, lists of books and pages of books as {@code application/x-protobuf}.
+ * <p>
+ * A book is a Book message, a list of books a BookList message and every page type
+ * ({@link PageResponse}, {@link SearchPage}, {@link QueryPage}) a BookPage message; see
+ * {@code src/main/proto/bookstore.proto}. Other response types are not available in this format.
+ */
+public class BookProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+    private static final Set<Class<?>> PAGE_TYPES = Set.of(PageResponse.class, SearchPage.class, QueryPage.class);
+
+    public BookProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Book.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz) || PAGE_TYPES.contains(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return (type == Book.class || isListOfBooks(type)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        boolean writable = Book.class.isAssignableFrom(clazz) || PAGE_TYPES.contains(clazz)
+                || (List.class.isAssignableFrom(clazz) && isListOfBooks(type));
+        return writable && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(inputMessage.getBody());
+        try {
+            return type == Book.class ? BookProtobufCodec.readBook(input) : BookProtobufCodec.readBooks(input);
+        } catch (InvalidProtocolBufferException ex) {
+            throw new HttpMessageNotReadableException("Invalid protobuf message: " + ex.getMessage(), ex, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        try {
+            if (value instanceof Book book) {
+                BookProtobufCodec.writeBook(book, output);
+            } else if (value instanceof List<?> books) {
+                BookProtobufCodec.writeBooks(books, output);
+            } else if (value instanceof PageResponse<?> page) {
+                BookProtobufCodec.writePage(page.content(), 0, page.limit(), page.nextCursor(),
+                        page.nextCursor() != null, null, output);
+            } else if (value instanceof SearchPage<?> page) {
+                boolean hasNext = (long) (page.page() + 1) * page.limit() < page.totalHits();
+                BookProtobufCodec.writePage(page.content(), page.page(), page.limit(), null, hasNext,
+                        page.totalHits(), output);
+            } else if (value instanceof QueryPage<?> page) {
+                BookProtobufCodec.writePage(page.content(), page.page(), page.limit(), null, page.hasNext(),
+                        page.total(), output);
+            }
+        } catch (IllegalArgumentException | ClassCastException ex) {
+            throw new HttpMessageNotWritableException("Cannot encode response as protobuf: " + ex.getMessage(), ex);
+        }
+        output.flush();
+    }
+
+    private static boolean isListOfBooks(Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && List.class.isAssignableFrom(raw)
+                && parameterized.getActualTypeArguments()[0] == Book.class;
+    }
+}
@@ -0,0 +1,33 @@
+package com.bookstore.dto;
+
+/**
+ * Outcome of one item of a bulk create request
+ *
+ * @param index The position of the item in the request
+ * @param status Whether the item was created or why it was rejected
+ * @param id The ID of the created book, {@code null} if it was rejected
+ * @param message The reason for a rejection, {@code null} if it was created
+ */
+public record BatchItemResult(int index, Status status, Long id, String message) {
+
+    /**
+     * Outcome of a single item
+     */
+    public enum Status {
+        CREATED,
+        INVALID,
+        CONFLICT
+    }
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, Status.CREATED, id, null);
+    }
+
+    public static BatchItemResult invalid(int index, String message) {
+        return new BatchItemResult(index, Status.INVALID, null, message);
+    }
+
+    public static BatchItemResult conflict(int index, String message) {
+        return new BatchItemResult(index, Status.CONFLICT, null, message);
+    }
+}
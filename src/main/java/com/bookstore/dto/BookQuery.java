@@ -0,0 +1,32 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Book;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Criteria of a multi-criteria book query; every criterion is optional and {@code null} (or an
+ * empty genre set) means unrestricted. Ranges are inclusive.
+ *
+ * @param genres The genres to match, any of them
+ * @param author Text the author must contain, case insensitive
+ * @param title Text the title must contain, case insensitive
+ * @param minPrice The lowest price
+ * @param maxPrice The highest price
+ * @param publishedFrom The earliest publication date
+ * @param publishedTo The latest publication date
+ * @param minPages The lowest page count
+ * @param maxPages The highest page count
+ */
+public record BookQuery(Set<Book.Genre> genres,
+                        String author,
+                        String title,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        LocalDate publishedFrom,
+                        LocalDate publishedTo,
+                        Integer minPages,
+                        Integer maxPages) {
+}
@@ -0,0 +1,18 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Book;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Price and publication date bounds of a range query; every bound is optional and inclusive
+ *
+ * @param minPrice The lowest price
+ * @param maxPrice The highest price
+ * @param from The earliest publication date
+ * @param to The latest publication date
+ * @param genre The genre the books must have, {@code null} for any genre
+ */
+public record BookRange(BigDecimal minPrice, BigDecimal maxPrice, LocalDate from, LocalDate to, Book.Genre genre) {
+}
@@ -0,0 +1,49 @@
+package com.bookstore.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor used by the paginated list endpoints.
+ * <p>
+ * A cursor wraps the id of the last row of a page; clients only ever pass it back
+ * unchanged in the {@code after} parameter to fetch the following page.
+ */
+public final class Cursor {
+
+    private static final String PREFIX = "id:";
+
+    private Cursor() {
+    }
+
+    /**
+     * Encode the id of the last returned row into an opaque cursor
+     *
+     * @param lastId The id of the last row of the current page
+     * @return The URL-safe cursor string
+     */
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encode(long)}
+     *
+     * @param cursor The cursor string received from the client
+     * @return The id after which the next page starts
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static long decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // Covers both bad Base64 input and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
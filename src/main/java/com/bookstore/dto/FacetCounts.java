@@ -0,0 +1,22 @@
+package com.bookstore.dto;
+
+import java.util.List;
+
+/**
+ * Number of books per genre and per publisher
+ *
+ * @param total The number of books counted
+ * @param genres The genres with at least one book, most books first
+ * @param publishers The top publishers, most books first
+ */
+public record FacetCounts(long total, List<Count> genres, List<Count> publishers) {
+
+    /**
+     * Number of books with one facet value
+     *
+     * @param value The genre or publisher
+     * @param count The number of books
+     */
+    public record Count(String value, long count) {
+    }
+}
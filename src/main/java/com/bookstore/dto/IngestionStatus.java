@@ -0,0 +1,42 @@
+package com.bookstore.dto;
+
+/**
+ * State of a book submitted for asynchronous creation
+ *
+ * @param trackingId The ID returned when the book was accepted
+ * @param status Whether the book is still queued, was created or why it was rejected
+ * @param id The ID of the created book, {@code null} until it is created
+ * @param message The reason for a rejection or failure, {@code null} otherwise
+ */
+public record IngestionStatus(String trackingId, Status status, Long id, String message) {
+
+    /**
+     * Progress of a submitted book
+     */
+    public enum Status {
+        QUEUED,
+        CREATED,
+        INVALID,
+        CONFLICT,
+        FAILED
+    }
+
+    public static IngestionStatus queued(String trackingId) {
+        return new IngestionStatus(trackingId, Status.QUEUED, null, null);
+    }
+
+    public static IngestionStatus failed(String trackingId, String message) {
+        return new IngestionStatus(trackingId, Status.FAILED, null, message);
+    }
+
+    /**
+     * Status of a book committed as one item of a bulk create
+     *
+     * @param trackingId The tracking ID of the book
+     * @param result The outcome of its item
+     * @return The final status of the book
+     */
+    public static IngestionStatus of(String trackingId, BatchItemResult result) {
+        return new IngestionStatus(trackingId, Status.valueOf(result.status().name()), result.id(), result.message());
+    }
+}
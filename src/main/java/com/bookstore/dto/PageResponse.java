@@ -0,0 +1,37 @@
+package com.bookstore.dto;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a paginated list response.
+ * <p>
+ * {@code nextCursor} is {@code null} on the last page; otherwise it can be passed as
+ * {@code after} to fetch the following page.
+ *
+ * @param content The rows of this page
+ * @param limit The page size that was applied
+ * @param nextCursor Opaque cursor for the next page, or {@code null} if there is none
+ * @param <T> The row type
+ */
+public record PageResponse<T>(List<T> content, int limit, String nextCursor) {
+
+    /**
+     * Build a page response from a slice ordered by id
+     *
+     * @param slice The slice returned by the service layer
+     * @param idExtractor Function returning the id of a row
+     * @param <T> The row type
+     * @return The page response with the cursor of the last row when more rows exist
+     */
+    public static <T> PageResponse<T> of(Slice<T> slice, Function<T, Long> idExtractor) {
+        List<T> content = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !content.isEmpty()) {
+            nextCursor = Cursor.encode(idExtractor.apply(content.get(content.size() - 1)));
+        }
+        return new PageResponse<>(content, slice.getSize(), nextCursor);
+    }
+}
@@ -0,0 +1,32 @@
+package com.bookstore.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * One page of a multi-criteria query
+ *
+ * @param content The matching rows of this page
+ * @param page The zero-based page number
+ * @param limit The page size that was applied
+ * @param hasNext Whether another page follows
+ * @param total The total number of matches, only present when it was requested
+ * @param <T> The row type
+ */
+public record QueryPage<T>(List<T> content, int page, int limit, boolean hasNext,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) Long total) {
+
+    /**
+     * Build a query page from a slice returned by the service layer
+     *
+     * @param slice The slice of matching rows
+     * @param total The total number of matches, or {@code null} if it was not counted
+     * @param <T> The row type
+     * @return The query page
+     */
+    public static <T> QueryPage<T> of(Slice<T> slice, Long total) {
+        return new QueryPage<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), total);
+    }
+}
@@ -0,0 +1,22 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Book;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * Bulk price change applied to every book of a genre
+ *
+ * @param genre The genre of the books to reprice
+ * @param priceFactor The factor to multiply the prices by, e.g. 0.9 for a 10% discount
+ */
+public record Repricing(
+        @NotNull(message = "Genre is required")
+        Book.Genre genre,
+
+        @NotNull(message = "Price factor is required")
+        @DecimalMin(value = "0.0", inclusive = false, message = "Price factor must be greater than 0")
+        BigDecimal priceFactor) {
+}
@@ -0,0 +1,28 @@
+package com.bookstore.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * One page of ranked search results
+ *
+ * @param content The matching rows of this page, best match first
+ * @param page The zero-based page number
+ * @param limit The page size that was applied
+ * @param totalHits The total number of matches
+ * @param <T> The row type
+ */
+public record SearchPage<T>(List<T> content, int page, int limit, long totalHits) {
+
+    /**
+     * Build a search page from a page returned by the service layer
+     *
+     * @param page The page of ranked results
+     * @param <T> The row type
+     * @return The search page
+     */
+    public static <T> SearchPage<T> of(Page<T> page) {
+        return new SearchPage<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements());
+    }
+}
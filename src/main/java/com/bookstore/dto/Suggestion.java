@@ -0,0 +1,21 @@
+package com.bookstore.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One autocomplete suggestion: a book title or an author name
+ *
+ * @param id The ID of the book for a title, {@code null} for an author
+ * @param text The title or author name, as it is displayed
+ * @param type Whether the suggestion is a title or an author
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Suggestion(Long id, String text, Type type) {
+
+    /**
+     * The kinds of suggestions
+     */
+    public enum Type {
+        TITLE, AUTHOR
+    }
+}
@@ -0,0 +1,12 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Book;
+
+/**
+ * Outcome of an insert-or-update of a book
+ *
+ * @param book The book as written
+ * @param created {@code true} if the book did not exist before, {@code false} if it was updated
+ */
+public record UpsertResult(Book book, boolean created) {
+}
@@ -0,0 +1,38 @@
+package com.bookstore.event;
+
+import com.bookstore.model.Book;
+
+/**
+ * Application event published by the service layer whenever a book is written.
+ * <p>
+ * Caches and in-memory indexes listen for it with
+ * {@link org.springframework.transaction.event.TransactionalEventListener}, so they only
+ * react once the change has been committed.
+ *
+ * @param type The kind of change
+ * @param id The ID of the changed book
+ * @param book The book state after the change, or {@code null} if it was deleted
+ */
+public record BookChangedEvent(Type type, Long id, Book book) {
+
+    /**
+     * Kind of change carried by the event
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BookChangedEvent created(Book book) {
+        return new BookChangedEvent(Type.CREATED, book.getId(), book);
+    }
+
+    public static BookChangedEvent updated(Book book) {
+        return new BookChangedEvent(Type.UPDATED, book.getId(), book);
+    }
+
+    public static BookChangedEvent deleted(Long id) {
+        return new BookChangedEvent(Type.DELETED, id, null);
+    }
+}
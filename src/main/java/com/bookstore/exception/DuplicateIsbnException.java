@@ -0,0 +1,21 @@
+package com.bookstore.exception;
+
+/**
+ * Exception thrown when a write would give a book the ISBN of another book.
+ * <p>
+ * It is an {@link IllegalArgumentException} so it keeps being answered with 400 Bad Request,
+ * but it is counted as a conflict rather than as a plain bad request.
+ */
+public class DuplicateIsbnException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor with the conflicting ISBN
+     * 
+     * @param isbn The ISBN that is already taken
+     */
+    public DuplicateIsbnException(String isbn) {
+        super("Book with ISBN " + isbn + " already exists");
+    }
+}
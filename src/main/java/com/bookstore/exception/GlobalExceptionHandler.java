@@ -1,12 +1,21 @@
 package com.bookstore.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -14,16 +23,45 @@ import java.util.Map;
 
 /**
  * Global exception handler to handle all application exceptions
+ * <p>
+ * Every handled exception increments {@code bookstore.errors}, tagged with its outcome.
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final Counter notFound;
+    private final Counter validation;
+    private final Counter conflict;
+    private final Counter badRequest;
+    private final Counter unavailable;
+    private final Counter throttled;
+    private final Counter internal;
+
+    @Autowired
+    public GlobalExceptionHandler(MeterRegistry registry) {
+        this.notFound = errorCounter(registry, "not_found");
+        this.validation = errorCounter(registry, "validation");
+        this.conflict = errorCounter(registry, "conflict");
+        this.badRequest = errorCounter(registry, "bad_request");
+        this.unavailable = errorCounter(registry, "unavailable");
+        this.throttled = errorCounter(registry, "throttled");
+        this.internal = errorCounter(registry, "internal");
+    }
+
+    private static Counter errorCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("bookstore.errors")
+                .description("Requests answered with an error, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
     /**
      * Handle ResourceNotFoundException
      */
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<?> resourceNotFoundException(
             ResourceNotFoundException ex, WebRequest request) {
+        notFound.increment();
         
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now().toString());
@@ -41,6 +79,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handleValidationExceptions(
             MethodArgumentNotValidException ex, WebRequest request) {
+        validation.increment();
         
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now().toString());
@@ -60,16 +99,65 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Handle DuplicateIsbnException (still a bad request, but counted as a conflict)
+     */
+    @ExceptionHandler(DuplicateIsbnException.class)
+    public ResponseEntity<?> duplicateIsbnException(
+            DuplicateIsbnException ex, WebRequest request) {
+        conflict.increment();
+        return badRequest(ex, request);
+    }
+    
     /**
      * Handle IllegalArgumentException
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<?> illegalArgumentException(
             IllegalArgumentException ex, WebRequest request) {
-        
+        badRequest.increment();
+        return badRequest(ex, request);
+    }
+    
+    /**
+     * Handle request parameters that cannot be converted, e.g. an unknown genre
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<?> methodArgumentTypeMismatchException(
+            MethodArgumentTypeMismatchException ex, WebRequest request) {
+        badRequest.increment();
+        return badRequest("Invalid value '" + ex.getValue() + "' for parameter '" + ex.getName() + "'", request);
+    }
+    
+    /**
+     * Handle request bodies that cannot be decoded, e.g. malformed JSON or protobuf
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<?> httpMessageNotReadableException(
+            HttpMessageNotReadableException ex, WebRequest request) {
+        badRequest.increment();
+        return badRequest("Malformed request body", request);
+    }
+    
+    /**
+     * Handle responses that cannot be written in any accepted media type, e.g. facet counts as protobuf.
+     * The error has no body, since no body format would be acceptable either.
+     */
+    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    public ResponseEntity<?> httpMediaTypeNotAcceptableException(
+            HttpMediaTypeNotAcceptableException ex, WebRequest request) {
+        badRequest.increment();
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+    }
+    
+    private ResponseEntity<?> badRequest(IllegalArgumentException ex, WebRequest request) {
+        return badRequest(ex.getMessage(), request);
+    }
+    
+    private ResponseEntity<?> badRequest(String message, WebRequest request) {
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now().toString());
-        body.put("message", ex.getMessage());
+        body.put("message", message);
         body.put("status", HttpStatus.BAD_REQUEST.value());
         body.put("error", HttpStatus.BAD_REQUEST.getReasonPhrase());
         body.put("path", request.getDescription(false));
@@ -77,11 +165,68 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Handle constraint violations raised by the database (e.g. a concurrent write of the same ISBN)
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<?> dataIntegrityViolationException(
+            DataIntegrityViolationException ex, WebRequest request) {
+        conflict.increment();
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("message", "The request conflicts with the current state of the book");
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", HttpStatus.CONFLICT.getReasonPhrase());
+        body.put("path", request.getDescription(false));
+        
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+    
+    /**
+     * Handle transactions that could not start, typically because no connection became available in time
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<?> cannotCreateTransactionException(
+            CannotCreateTransactionException ex, WebRequest request) {
+        unavailable.increment();
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("message", "The service is overloaded, please retry later");
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+        body.put("path", request.getDescription(false));
+        
+        return new ResponseEntity<>(body, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
+    /**
+     * Handle books that cannot be queued for asynchronous creation because the queue is full
+     */
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<?> ingestionQueueFullException(
+            IngestionQueueFullException ex, WebRequest request) {
+        throttled.increment();
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("message", ex.getMessage());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        body.put("path", request.getDescription(false));
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+    
     /**
      * Handle generic exceptions
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> globalExceptionHandler(Exception ex, WebRequest request) {
+        internal.increment();
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now().toString());
         body.put("message", "An unexpected error occurred");
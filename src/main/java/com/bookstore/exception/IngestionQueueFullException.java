@@ -0,0 +1,19 @@
+package com.bookstore.exception;
+
+/**
+ * Exception thrown when a book cannot be queued for asynchronous creation because the queue is
+ * full; the client should retry later
+ */
+public class IngestionQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor with the capacity of the queue
+     *
+     * @param capacity The maximum number of queued books
+     */
+    public IngestionQueueFullException(int capacity) {
+        super("The ingestion queue is full (" + capacity + " books), please retry later");
+    }
+}
@@ -0,0 +1,52 @@
+package com.bookstore.index;
+
+import com.bookstore.model.Book;
+
+/**
+ * In-memory index derived from the books table.
+ * <p>
+ * Implementations are built once at startup by {@link BookIndexer} and then kept up to date
+ * incrementally from committed writes. {@link #put(Book)} and {@link #remove(Long)} must be
+ * idempotent: a change may be applied to an index that already reflects it.
+ */
+public interface BookIndex {
+
+    /**
+     * Start a full rebuild of the index
+     *
+     * @return A builder; its content replaces the current index when published
+     */
+    Builder newBuilder();
+
+    /**
+     * Add a book to the index, or replace its previous state
+     *
+     * @param book The book to index
+     */
+    void put(Book book);
+
+    /**
+     * Remove a book from the index
+     *
+     * @param id The ID of the book to remove
+     */
+    void remove(Long id);
+
+    /**
+     * Accumulates books for a full rebuild
+     */
+    interface Builder {
+
+        /**
+         * Add a book to the index being built
+         *
+         * @param book The book to add
+         */
+        void add(Book book);
+
+        /**
+         * Atomically replace the live index with the built one
+         */
+        void publish();
+    }
+}
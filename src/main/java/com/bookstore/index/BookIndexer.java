@@ -0,0 +1,84 @@
+package com.bookstore.index;
+
+import com.bookstore.config.ReadRouting;
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.model.Book;
+import com.bookstore.service.BookService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Builds every {@link BookIndex} at startup and applies committed writes to them.
+ * <p>
+ * A rebuild streams the books table once and feeds all indexes from that single pass.
+ * Changes committed during a rebuild wait for it to be published and are applied on top,
+ * which is safe because index updates are idempotent.
+ */
+@Component
+public class BookIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(BookIndexer.class);
+
+    private final BookService bookService;
+    private final List<BookIndex> indexes;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Autowired
+    public BookIndexer(BookService bookService, List<BookIndex> indexes) {
+        this.bookService = bookService;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Build all indexes from the database once the application is started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+        try {
+            long start = System.nanoTime();
+            List<BookIndex.Builder> builders = indexes.stream().map(BookIndex::newBuilder).toList();
+            // Read from the primary: a lagging replica could miss writes whose events were already applied
+            long count = ReadRouting.onPrimary(() -> bookService.exportBooks(book -> {
+                for (BookIndex.Builder builder : builders) {
+                    builder.add(book);
+                }
+            }));
+            builders.forEach(BookIndex.Builder::publish);
+            log.info("Built {} book indexes over {} books in {} ms",
+                    indexes.size(), count, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply a committed write to all indexes
+     *
+     * @param event The committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        lock.lock();
+        try {
+            Book book = event.book();
+            for (BookIndex index : indexes) {
+                if (book == null) {
+                    index.remove(event.id());
+                } else {
+                    index.put(book);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.BookQuery;
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Immutable, column-oriented copy of the books table that answers multi-criteria queries
+ * without Hibernate.
+ * <p>
+ * Each attribute is a primitive array indexed by row, rows being in ID order: genres as ordinal
+ * bytes, prices as cents, publication dates as epoch days, and every string attribute
+ * dictionary-encoded as codes into its sorted dictionary, so code order is string order. Filtering,
+ * sorting and counting only read these arrays; {@link Book} objects are created for the rows of
+ * the requested page only.
+ * <p>
+ * Writes are collected and merged into a new snapshot (copy-on-write) by a background worker,
+ * {@code bookstore.snapshot.merge-delay} after the first of them, so a burst of writes costs a
+ * single rebuild and no request waits for one. Until the merge is published, queries see the
+ * previous snapshot.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshot implements BookIndex {
+
+    private static final Book.Genre[] GENRES = Book.Genre.values();
+    // The database stores genres by name, so they sort by name rather than by ordinal
+    private static final int[] GENRE_NAME_RANKS = genreNameRanks();
+    private static final int NO_PAGE_COUNT = Integer.MIN_VALUE;
+
+    private final Lock writeLock = new ReentrantLock();
+    // Held for a whole merge, so merges run one at a time; writers never take it
+    private final Lock mergeLock = new ReentrantLock();
+    private final Duration mergeDelay;
+    private final ScheduledExecutorService merger;
+    // Committed changes not merged yet, by ID; a null value is a deletion. Guarded by writeLock.
+    private TreeMap<Long, Book> pending = new TreeMap<>();
+    private boolean mergeScheduled;
+    private volatile Columns columns;
+
+    /**
+     * Constructor
+     *
+     * @param mergeDelay How long after a write its batch of changes is merged into a new snapshot
+     */
+    @Autowired
+    public CatalogSnapshot(@Value("${bookstore.snapshot.merge-delay:100ms}") Duration mergeDelay) {
+        this.mergeDelay = mergeDelay;
+        this.merger = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "catalog-snapshot-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Builder newBuilder() {
+        Rows building = new Rows();
+        return new Builder() {
+            @Override
+            public void add(Book book) {
+                building.add(book);
+            }
+
+            @Override
+            public void publish() {
+                Columns built = building.toColumns();
+                writeLock.lock();
+                try {
+                    // Changes still pending were committed during the rebuild and are merged on top
+                    columns = built;
+                    scheduleMerge();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void put(Book book) {
+        change(book.getId(), new Book(book));
+    }
+
+    @Override
+    public void remove(Long id) {
+        change(id, null);
+    }
+
+    private void change(Long id, Book book) {
+        writeLock.lock();
+        try {
+            pending.put(id, book);
+            scheduleMerge();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Merge the pending changes now, on the calling thread, instead of waiting for the background
+     * worker; for callers that must see their own writes
+     */
+    public void flush() {
+        merge();
+    }
+
+    /**
+     * Stop the background worker; changes that are still pending are not merged
+     */
+    @PreDestroy
+    public void shutdown() {
+        merger.shutdownNow();
+    }
+
+    /**
+     * Tell whether the snapshot has been built and can answer queries
+     *
+     * @return {@code true} once the first rebuild is published
+     */
+    public boolean isReady() {
+        return columns != null;
+    }
+
+    /**
+     * Find one page of the books matching all given criteria
+     *
+     * @param query The criteria
+     * @param pageable The page to fetch and its sort order
+     * @return Slice of matching books
+     */
+    public Slice<Book> query(BookQuery query, Pageable pageable) {
+        return query(query, pageable, Columns::book);
+    }
+
+    /**
+     * Find one page of the books matching all given criteria, with only the given fields
+     *
+     * @param query The criteria
+     * @param pageable The page to fetch and its sort order
+     * @param fields The fields to return
+     * @return Slice of field values by attribute name
+     */
+    public Slice<Map<String, Object>> query(BookQuery query, Pageable pageable, Set<BookField> fields) {
+        return query(query, pageable, (columns, row) -> BookField.project(columns.book(row), fields));
+    }
+
+    /**
+     * Count the books matching all given criteria
+     *
+     * @param query The criteria
+     * @return The number of matching books
+     */
+    public long count(BookQuery query) {
+        return columns.filter(query, null);
+    }
+
+    private <T> Slice<T> query(BookQuery query, Pageable pageable, RowReader<T> reader) {
+        Columns current = columns;
+        int[] rows = new int[current.size];
+        int matches = current.filter(query, rows);
+        current.sort(rows, matches, pageable.getSort());
+
+        int from = (int) Math.min(pageable.getOffset(), matches);
+        int to = (int) Math.min((long) from + pageable.getPageSize(), matches);
+        List<T> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(reader.read(current, rows[i]));
+        }
+        return new SliceImpl<>(content, pageable, to < matches);
+    }
+
+    /**
+     * Schedule a merge of the pending changes unless one is scheduled already; must hold the write lock
+     */
+    private void scheduleMerge() {
+        if (mergeScheduled || pending.isEmpty() || columns == null) {
+            return;
+        }
+        mergeScheduled = true;
+        try {
+            merger.schedule(this::merge, mergeDelay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the changes stay pending
+            mergeScheduled = false;
+        }
+    }
+
+    /**
+     * Merge the pending changes into a new snapshot and publish it. The merge itself runs
+     * without the write lock, so writes are never blocked by it.
+     */
+    private void merge() {
+        mergeLock.lock();
+        try {
+            mergePending();
+        } finally {
+            mergeLock.unlock();
+        }
+    }
+
+    private void mergePending() {
+        TreeMap<Long, Book> changes;
+        Columns base;
+        writeLock.lock();
+        try {
+            mergeScheduled = false;
+            base = columns;
+            if (base == null || pending.isEmpty()) {
+                return;
+            }
+            changes = pending;
+            pending = new TreeMap<>();
+        } finally {
+            writeLock.unlock();
+        }
+        Columns merged = base.merge(changes);
+        writeLock.lock();
+        try {
+            if (columns == base) {
+                columns = merged;
+            } else {
+                // A rebuild was published meanwhile: apply the changes on top of it, keeping any
+                // newer change to the same books
+                changes.forEach(pending::putIfAbsent);
+            }
+            scheduleMerge();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static int[] genreNameRanks() {
+        Book.Genre[] byName = GENRES.clone();
+        Arrays.sort(byName, (a, b) -> a.name().compareTo(b.name()));
+        int[] ranks = new int[GENRES.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            ranks[byName[rank].ordinal()] = rank;
+        }
+        return ranks;
+    }
+
+    private interface RowReader<T> {
+        T read(Columns columns, int row);
+    }
+
+    /**
+     * Order of two rows, without boxing the row numbers
+     */
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Dictionary-encoded string attribute: one code per row, -1 for {@code null}
+     */
+    private static final class StringColumn {
+        final int[] codes;
+        final String[] dictionary;
+        final String[] lowerDictionary;
+
+        StringColumn(String[] values, int size, boolean caseInsensitive) {
+            String[] distinct = Arrays.stream(values, 0, size).filter(value -> value != null)
+                    .distinct().sorted().toArray(String[]::new);
+            codes = new int[size];
+            for (int row = 0; row < size; row++) {
+                codes[row] = values[row] == null ? -1 : Arrays.binarySearch(distinct, values[row]);
+            }
+            dictionary = distinct;
+            lowerDictionary = caseInsensitive
+                    ? Arrays.stream(distinct).map(value -> value.toLowerCase(Locale.ROOT)).toArray(String[]::new)
+                    : null;
+        }
+
+        String get(int row) {
+            return codes[row] < 0 ? null : dictionary[codes[row]];
+        }
+
+        /**
+         * Evaluate a case-insensitive substring match once per distinct value
+         */
+        boolean[] containing(String text) {
+            String needle = text.toLowerCase(Locale.ROOT);
+            boolean[] matches = new boolean[lowerDictionary.length];
+            for (int code = 0; code < matches.length; code++) {
+                matches[code] = lowerDictionary[code].contains(needle);
+            }
+            return matches;
+        }
+
+        boolean matches(int row, boolean[] matchingCodes) {
+            return codes[row] >= 0 && matchingCodes[codes[row]];
+        }
+    }
+
+    /**
+     * Immutable column arrays of one snapshot
+     */
+    private static final class Columns {
+        final int size;
+        final long[] ids;
+        final long[] versions;
+        final StringColumn titles;
+        final StringColumn authors;
+        final StringColumn isbns;
+        final int[] publicationDays;
+        final long[] priceCents;
+        final StringColumn descriptions;
+        final int[] pageCounts;
+        final StringColumn publishers;
+        final byte[] genres;
+
+        Columns(Rows rows) {
+            size = rows.size;
+            ids = Arrays.copyOf(rows.ids, size);
+            versions = Arrays.copyOf(rows.versions, size);
+            titles = new StringColumn(rows.titles, size, true);
+            authors = new StringColumn(rows.authors, size, true);
+            isbns = new StringColumn(rows.isbns, size, false);
+            publicationDays = Arrays.copyOf(rows.publicationDays, size);
+            priceCents = Arrays.copyOf(rows.priceCents, size);
+            descriptions = new StringColumn(rows.descriptions, size, false);
+            pageCounts = Arrays.copyOf(rows.pageCounts, size);
+            publishers = new StringColumn(rows.publishers, size, false);
+            genres = Arrays.copyOf(rows.genres, size);
+        }
+
+        /**
+         * Copy the rows into a new snapshot, replacing or dropping the changed ones
+         */
+        Columns merge(TreeMap<Long, Book> changes) {
+            Rows merged = new Rows();
+            Iterator<Map.Entry<Long, Book>> iterator = changes.entrySet().iterator();
+            Map.Entry<Long, Book> change = iterator.hasNext() ? iterator.next() : null;
+            for (int row = 0; row < size; row++) {
+                while (change != null && change.getKey() < ids[row]) {
+                    merged.add(change.getValue());
+                    change = iterator.hasNext() ? iterator.next() : null;
+                }
+                if (change != null && change.getKey() == ids[row]) {
+                    merged.add(change.getValue());
+                    change = iterator.hasNext() ? iterator.next() : null;
+                } else {
+                    merged.add(this, row);
+                }
+            }
+            while (change != null) {
+                merged.add(change.getValue());
+                change = iterator.hasNext() ? iterator.next() : null;
+            }
+            return merged.toColumns();
+        }
+
+        /**
+         * Write the matching rows, in ID order, to the start of the given array
+         *
+         * @param matches The array receiving the matching rows, {@code null} to only count them
+         * @return The number of matching rows
+         */
+        int filter(BookQuery query, int[] matches) {
+            boolean[] genreMask = null;
+            if (query.genres() != null && !query.genres().isEmpty()) {
+                genreMask = new boolean[GENRES.length];
+                for (Book.Genre genre : query.genres()) {
+                    genreMask[genre.ordinal()] = true;
+                }
+            }
+            boolean[] authorCodes = query.author() == null ? null : authors.containing(query.author());
+            boolean[] titleCodes = query.title() == null ? null : titles.containing(query.title());
+            long minCents = query.minPrice() == null ? Long.MIN_VALUE : Prices.cents(query.minPrice(), RoundingMode.CEILING);
+            long maxCents = query.maxPrice() == null ? Long.MAX_VALUE : Prices.cents(query.maxPrice(), RoundingMode.FLOOR);
+            long fromDay = query.publishedFrom() == null ? Long.MIN_VALUE : query.publishedFrom().toEpochDay();
+            long toDay = query.publishedTo() == null ? Long.MAX_VALUE : query.publishedTo().toEpochDay();
+            boolean pagesFiltered = query.minPages() != null || query.maxPages() != null;
+            int minPages = query.minPages() == null ? Integer.MIN_VALUE : query.minPages();
+            int maxPages = query.maxPages() == null ? Integer.MAX_VALUE : query.maxPages();
+
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                if ((genreMask == null || genreMask[genres[row]])
+                        && priceCents[row] >= minCents && priceCents[row] <= maxCents
+                        && publicationDays[row] >= fromDay && publicationDays[row] <= toDay
+                        && (!pagesFiltered || (pageCounts[row] != NO_PAGE_COUNT
+                                && pageCounts[row] >= minPages && pageCounts[row] <= maxPages))
+                        && (authorCodes == null || authors.matches(row, authorCodes))
+                        && (titleCodes == null || titles.matches(row, titleCodes))) {
+                    if (matches != null) {
+                        matches[count] = row;
+                    }
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Stable sort of the first {@code count} rows; rows are in ID order, which breaks ties
+         */
+        void sort(int[] rows, int count, Sort sort) {
+            RowComparator comparator = null;
+            for (Sort.Order order : sort) {
+                RowComparator next = comparator(order);
+                RowComparator previous = comparator;
+                comparator = previous == null ? next : (a, b) -> {
+                    int result = previous.compare(a, b);
+                    return result != 0 ? result : next.compare(a, b);
+                };
+            }
+            if (comparator != null && !isIdAscending(sort)) {
+                mergeSort(rows, new int[count], 0, count, comparator);
+            }
+        }
+
+        private static boolean isIdAscending(Sort sort) {
+            Sort.Order first = sort.iterator().next();
+            return first.getProperty().equals(BookField.ID.attribute()) && first.isAscending();
+        }
+
+        private RowComparator comparator(Sort.Order order) {
+            RowComparator ascending = switch (BookField.of(order.getProperty())) {
+                case ID -> (a, b) -> Long.compare(ids[a], ids[b]);
+                case TITLE -> (a, b) -> Integer.compare(titles.codes[a], titles.codes[b]);
+                case AUTHOR -> (a, b) -> Integer.compare(authors.codes[a], authors.codes[b]);
+                case ISBN -> (a, b) -> Integer.compare(isbns.codes[a], isbns.codes[b]);
+                case PUBLICATION_DATE -> (a, b) -> Integer.compare(publicationDays[a], publicationDays[b]);
+                case PRICE -> (a, b) -> Long.compare(priceCents[a], priceCents[b]);
+                case DESCRIPTION -> (a, b) -> Integer.compare(descriptions.codes[a], descriptions.codes[b]);
+                case PAGE_COUNT -> (a, b) -> Integer.compare(pageCounts[a], pageCounts[b]);
+                case PUBLISHER -> (a, b) -> Integer.compare(publishers.codes[a], publishers.codes[b]);
+                case GENRE -> (a, b) -> Integer.compare(GENRE_NAME_RANKS[genres[a]], GENRE_NAME_RANKS[genres[b]]);
+                case VERSION -> (a, b) -> Long.compare(versions[a], versions[b]);
+            };
+            // Null codes and page counts are the lowest values: first ascending, last descending, as in H2
+            return order.isAscending() ? ascending : (a, b) -> ascending.compare(b, a);
+        }
+
+        private static void mergeSort(int[] rows, int[] buffer, int from, int to, RowComparator comparator) {
+            if (to - from < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(rows, buffer, from, middle, comparator);
+            mergeSort(rows, buffer, middle, to, comparator);
+            if (comparator.compare(rows[middle - 1], rows[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(rows, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                    rows[i] = buffer[left++];
+                } else {
+                    rows[i] = buffer[right++];
+                }
+            }
+        }
+
+        /**
+         * Materialize one row
+         */
+        Book book(int row) {
+            Book book = Book.builder()
+                    .id(ids[row])
+                    .title(titles.get(row))
+                    .author(authors.get(row))
+                    .isbn(isbns.get(row))
+                    .publicationDate(LocalDate.ofEpochDay(publicationDays[row]))
+                    .price(BigDecimal.valueOf(priceCents[row], 2))
+                    .description(descriptions.get(row))
+                    .pageCount(pageCounts[row] == NO_PAGE_COUNT ? null : pageCounts[row])
+                    .publisher(publishers.get(row))
+                    .genre(GENRES[genres[row]])
+                    .build();
+            book.setVersion(versions[row]);
+            return book;
+        }
+    }
+
+    /**
+     * Growable row buffer, filled in ID order and encoded into {@link Columns}
+     */
+    private static final class Rows {
+        int size;
+        long[] ids = new long[1024];
+        long[] versions = new long[1024];
+        String[] titles = new String[1024];
+        String[] authors = new String[1024];
+        String[] isbns = new String[1024];
+        int[] publicationDays = new int[1024];
+        long[] priceCents = new long[1024];
+        String[] descriptions = new String[1024];
+        int[] pageCounts = new int[1024];
+        String[] publishers = new String[1024];
+        byte[] genres = new byte[1024];
+
+        /**
+         * Append a book; {@code null} (a deleted book) is skipped
+         */
+        void add(Book book) {
+            if (book == null) {
+                return;
+            }
+            int row = append(book.getId(), book.getVersion() == null ? 0 : book.getVersion());
+            titles[row] = book.getTitle();
+            authors[row] = book.getAuthor();
+            isbns[row] = book.getIsbn();
+            publicationDays[row] = (int) book.getPublicationDate().toEpochDay();
+            // The price column has two decimals
+            priceCents[row] = Prices.cents(book.getPrice(), RoundingMode.HALF_UP);
+            descriptions[row] = book.getDescription();
+            pageCounts[row] = book.getPageCount() == null ? NO_PAGE_COUNT : book.getPageCount();
+            publishers[row] = book.getPublisher();
+            genres[row] = (byte) book.getGenre().ordinal();
+        }
+
+        /**
+         * Append a row of an existing snapshot, sharing its strings
+         */
+        void add(Columns columns, int source) {
+            int row = append(columns.ids[source], columns.versions[source]);
+            titles[row] = columns.titles.get(source);
+            authors[row] = columns.authors.get(source);
+            isbns[row] = columns.isbns.get(source);
+            publicationDays[row] = columns.publicationDays[source];
+            priceCents[row] = columns.priceCents[source];
+            descriptions[row] = columns.descriptions.get(source);
+            pageCounts[row] = columns.pageCounts[source];
+            publishers[row] = columns.publishers.get(source);
+            genres[row] = columns.genres[source];
+        }
+
+        Columns toColumns() {
+            return new Columns(this);
+        }
+
+        private int append(long id, long version) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                authors = Arrays.copyOf(authors, capacity);
+                isbns = Arrays.copyOf(isbns, capacity);
+                publicationDays = Arrays.copyOf(publicationDays, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+                descriptions = Arrays.copyOf(descriptions, capacity);
+                pageCounts = Arrays.copyOf(pageCounts, capacity);
+                publishers = Arrays.copyOf(publishers, capacity);
+                genres = Arrays.copyOf(genres, capacity);
+            }
+            ids[size] = id;
+            versions[size] = version;
+            return size++;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Book counts per genre and per publisher, kept up to date with every committed write.
+ * <p>
+ * The genre and publisher of each book are remembered in primitive arrays, at a slot assigned
+ * to the book, so an update can move the book from its old counters to the new ones. Publishers
+ * are kept ranked by count as they change, so counting the whole catalog reads the genre counters
+ * and the head of the ranking only. Counting a subset (e.g. the matches of a text search) looks
+ * up each book of the subset and ranks the publishers it found.
+ */
+@Component
+public class FacetIndex implements BookIndex {
+
+    private static final Book.Genre[] GENRES = Book.Genre.values();
+
+    private static final Comparator<FacetCounts.Count> MOST_FIRST = Comparator
+            .comparingLong(FacetCounts.Count::count).reversed()
+            .thenComparing(FacetCounts.Count::value);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    @Override
+    public Builder newBuilder() {
+        State building = new State();
+        return new Builder() {
+            @Override
+            public void add(Book book) {
+                building.put(book);
+            }
+
+            @Override
+            public void publish() {
+                lock.writeLock().lock();
+                try {
+                    state = building;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            state.put(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            state.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Count all books, without looking at individual books
+     *
+     * @param maxPublishers The maximum number of publishers to return
+     * @return The counts per genre and the top publishers
+     */
+    public FacetCounts counts(int maxPublishers) {
+        lock.readLock().lock();
+        try {
+            List<FacetCounts.Count> publishers = new ArrayList<>();
+            for (int number : state.ranking) {
+                if (publishers.size() == maxPublishers) {
+                    break;
+                }
+                publishers.add(new FacetCounts.Count(state.publisherNames.get(number), state.publisherCounts[number]));
+            }
+            return new FacetCounts(state.size(), genres(state.genreCounts), publishers);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the given books
+     *
+     * @param ids The IDs of the books to count; unknown IDs are ignored
+     * @param maxPublishers The maximum number of publishers to return
+     * @return The counts per genre and the top publishers
+     */
+    public FacetCounts counts(long[] ids, int maxPublishers) {
+        lock.readLock().lock();
+        try {
+            long[] genreCounts = new long[GENRES.length];
+            Map<Integer, Long> publisherCounts = new HashMap<>();
+            long total = 0;
+            for (long id : ids) {
+                Integer slot = state.slots.get(id);
+                if (slot != null) {
+                    genreCounts[state.genres[slot]]++;
+                    publisherCounts.merge(state.publishers[slot], 1L, Long::sum);
+                    total++;
+                }
+            }
+
+            // Keep the top publishers in a min-heap bounded by maxPublishers
+            PriorityQueue<FacetCounts.Count> top = new PriorityQueue<>(MOST_FIRST.reversed());
+            for (Map.Entry<Integer, Long> publisher : publisherCounts.entrySet()) {
+                if (maxPublishers == 0) {
+                    break;
+                }
+                top.offer(new FacetCounts.Count(state.publisherNames.get(publisher.getKey()), publisher.getValue()));
+                if (top.size() > maxPublishers) {
+                    top.poll();
+                }
+            }
+            List<FacetCounts.Count> publishers = new ArrayList<>(top);
+            publishers.sort(MOST_FIRST);
+            return new FacetCounts(total, genres(genreCounts), publishers);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<FacetCounts.Count> genres(long[] genreCounts) {
+        List<FacetCounts.Count> genres = new ArrayList<>();
+        for (int ordinal = 0; ordinal < GENRES.length; ordinal++) {
+            if (genreCounts[ordinal] > 0) {
+                genres.add(new FacetCounts.Count(GENRES[ordinal].name(), genreCounts[ordinal]));
+            }
+        }
+        genres.sort(MOST_FIRST);
+        return genres;
+    }
+
+    /**
+     * Mutable counters, guarded by the enclosing lock
+     */
+    private static final class State {
+        // Slot of each counted book in the genre and publisher arrays; slots of removed books are reused
+        final Map<Long, Integer> slots = new HashMap<>();
+        byte[] genres = new byte[1024];
+        int[] publishers = new int[1024];
+        int[] freeSlots = new int[16];
+        int freeCount;
+        int slotCount;
+        final long[] genreCounts = new long[GENRES.length];
+        long[] publisherCounts = new long[64];
+        final List<String> publisherNames = new ArrayList<>();
+        final Map<String, Integer> publisherNumbers = new HashMap<>();
+        // Publishers with at least one book, most books first; re-ranked before their count changes
+        final TreeSet<Integer> ranking = new TreeSet<>((a, b) -> publisherCounts[a] != publisherCounts[b]
+                ? Long.compare(publisherCounts[b], publisherCounts[a])
+                : publisherNames.get(a).compareTo(publisherNames.get(b)));
+
+        void put(Book book) {
+            remove(book.getId());
+            if (book.getGenre() == null || book.getPublisher() == null) {
+                return;
+            }
+            int slot = allocateSlot();
+            slots.put(book.getId(), slot);
+            genres[slot] = (byte) book.getGenre().ordinal();
+            publishers[slot] = publisherNumber(book.getPublisher());
+            genreCounts[genres[slot]]++;
+            countPublisher(publishers[slot], 1);
+        }
+
+        void remove(Long id) {
+            Integer slot = slots.remove(id);
+            if (slot != null) {
+                genreCounts[genres[slot]]--;
+                countPublisher(publishers[slot], -1);
+                if (freeCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+                }
+                freeSlots[freeCount++] = slot;
+            }
+        }
+
+        int size() {
+            return slots.size();
+        }
+
+        private int allocateSlot() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (slotCount == genres.length) {
+                genres = Arrays.copyOf(genres, slotCount * 2);
+                publishers = Arrays.copyOf(publishers, slotCount * 2);
+            }
+            return slotCount++;
+        }
+
+        private void countPublisher(int number, int delta) {
+            if (publisherCounts[number] > 0) {
+                ranking.remove(number);
+            }
+            publisherCounts[number] += delta;
+            if (publisherCounts[number] > 0) {
+                ranking.add(number);
+            }
+        }
+
+        private int publisherNumber(String publisher) {
+            return publisherNumbers.computeIfAbsent(publisher, name -> {
+                int number = publisherNames.size();
+                publisherNames.add(name);
+                if (number == publisherCounts.length) {
+                    publisherCounts = Arrays.copyOf(publisherCounts, number * 2);
+                }
+                return number;
+            });
+        }
+    }
+}
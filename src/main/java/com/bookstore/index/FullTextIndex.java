@@ -0,0 +1,357 @@
+package com.bookstore.index;
+
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over the title, author and description of every book, ranked with BM25.
+ * <p>
+ * Documents get an internal ordinal in insertion order, so posting lists are appended to and
+ * stay sorted. Updates delete the previous ordinal and append a new one; deleted ordinals are
+ * skipped at query time and dropped when the index is compacted.
+ */
+@Component
+public class FullTextIndex implements BookIndex {
+
+    static final int TITLE_WEIGHT = 3;
+    static final int AUTHOR_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    @Override
+    public Builder newBuilder() {
+        State building = new State();
+        return new Builder() {
+            @Override
+            public void add(Book book) {
+                building.add(book);
+            }
+
+            @Override
+            public void publish() {
+                lock.writeLock().lock();
+                try {
+                    state = building;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            state.remove(book.getId());
+            state.add(book);
+            if (state.needsCompaction()) {
+                state = state.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            state.remove(id);
+            if (state.needsCompaction()) {
+                state = state.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank the books matching any of the query terms
+     *
+     * @param query The free-text query
+     * @param offset The number of top hits to skip
+     * @param limit The maximum number of hits to return
+     * @return The total number of matches and the requested hits, best first
+     */
+    public Hits search(String query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return state.search(TextAnalyzer.tokenize(query), offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the IDs of all books matching any of the query terms, unranked
+     *
+     * @param query The free-text query
+     * @return The IDs of the matching books
+     */
+    public long[] matchingIds(String query) {
+        lock.readLock().lock();
+        try {
+            return state.matchingIds(TextAnalyzer.tokenize(query));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of live documents in the index
+     *
+     * @return The number of indexed books
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Result of a ranked search
+     *
+     * @param totalHits The total number of matching books
+     * @param ids The IDs of the requested hits, best first
+     * @param scores The BM25 scores of the requested hits
+     */
+    public record Hits(int totalHits, List<Long> ids, List<Double> scores) {
+    }
+
+    /**
+     * Sorted, append-only list of (ordinal, weighted term frequency) pairs
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private record ScoredDoc(long id, double score) {
+    }
+
+    private static final Comparator<ScoredDoc> BEST_FIRST = Comparator
+            .comparingDouble(ScoredDoc::score).reversed()
+            .thenComparingLong(ScoredDoc::id);
+
+    /**
+     * Mutable index content, guarded by the enclosing lock
+     */
+    private static final class State {
+        final Map<String, Postings> postings = new HashMap<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        final BitSet deleted = new BitSet();
+        long[] ids = new long[1024];
+        int[] lengths = new int[1024];
+        int size;
+        int liveCount;
+        long liveLength;
+
+        void add(Book book) {
+            Map<String, Integer> termFreqs = new HashMap<>();
+            int length = count(termFreqs, book.getTitle(), TITLE_WEIGHT)
+                    + count(termFreqs, book.getAuthor(), AUTHOR_WEIGHT)
+                    + count(termFreqs, book.getDescription(), DESCRIPTION_WEIGHT);
+            int ordinal = append(book.getId(), length);
+            termFreqs.forEach((term, freq) -> postings.computeIfAbsent(term, t -> new Postings()).add(ordinal, freq));
+        }
+
+        void remove(Long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                deleted.set(ordinal);
+                liveCount--;
+                liveLength -= lengths[ordinal];
+            }
+        }
+
+        boolean needsCompaction() {
+            int deletedCount = size - liveCount;
+            return deletedCount > 1024 && deletedCount > size / 4;
+        }
+
+        /**
+         * Copy the live documents into a new state with dense ordinals
+         */
+        State compact() {
+            State compacted = new State();
+            int[] remap = new int[size];
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                remap[ordinal] = deleted.get(ordinal) ? -1 : compacted.append(ids[ordinal], lengths[ordinal]);
+            }
+            postings.forEach((term, list) -> {
+                Postings live = null;
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = remap[list.docs[i]];
+                    if (ordinal >= 0) {
+                        if (live == null) {
+                            live = new Postings();
+                        }
+                        live.add(ordinal, list.freqs[i]);
+                    }
+                }
+                if (live != null) {
+                    compacted.postings.put(term, live);
+                }
+            });
+            return compacted;
+        }
+
+        Hits search(List<String> terms, int offset, int limit) {
+            List<Postings> lists = postingsOf(terms);
+            if (lists.isEmpty()) {
+                return new Hits(0, List.of(), List.of());
+            }
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int df = lists.get(i).size;
+                idf[i] = Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+            }
+            double avgLength = liveCount == 0 ? 1 : (double) liveLength / liveCount;
+            int wanted = offset + limit;
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(wanted + 1, BEST_FIRST.reversed());
+
+            int[] cursors = new int[lists.size()];
+            int totalHits = 0;
+            int doc;
+            while ((doc = nextDoc(lists, cursors)) != Integer.MAX_VALUE) {
+                double score = 0;
+                for (int i = 0; i < lists.size(); i++) {
+                    Postings list = lists.get(i);
+                    if (cursors[i] < list.size && list.docs[cursors[i]] == doc) {
+                        int tf = list.freqs[cursors[i]];
+                        double norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                        score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                        cursors[i]++;
+                    }
+                }
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                totalHits++;
+                if (top.size() < wanted) {
+                    top.offer(new ScoredDoc(ids[doc], score));
+                } else if (wanted > 0 && isBetter(score, ids[doc], top.peek())) {
+                    top.poll();
+                    top.offer(new ScoredDoc(ids[doc], score));
+                }
+            }
+
+            List<ScoredDoc> ranked = new ArrayList<>(top);
+            ranked.sort(BEST_FIRST);
+            List<Long> hitIds = new ArrayList<>();
+            List<Double> hitScores = new ArrayList<>();
+            for (int i = offset; i < ranked.size(); i++) {
+                hitIds.add(ranked.get(i).id());
+                hitScores.add(ranked.get(i).score());
+            }
+            return new Hits(totalHits, hitIds, hitScores);
+        }
+
+        private static boolean isBetter(double score, long id, ScoredDoc worst) {
+            return score > worst.score() || (score == worst.score() && id < worst.id());
+        }
+
+        long[] matchingIds(List<String> terms) {
+            List<Postings> lists = postingsOf(terms);
+            int[] cursors = new int[lists.size()];
+            long[] matches = new long[16];
+            int count = 0;
+            int doc;
+            while ((doc = nextDoc(lists, cursors)) != Integer.MAX_VALUE) {
+                for (int i = 0; i < lists.size(); i++) {
+                    Postings list = lists.get(i);
+                    if (cursors[i] < list.size && list.docs[cursors[i]] == doc) {
+                        cursors[i]++;
+                    }
+                }
+                if (!deleted.get(doc)) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = ids[doc];
+                }
+            }
+            return Arrays.copyOf(matches, count);
+        }
+
+        private List<Postings> postingsOf(List<String> terms) {
+            Set<String> distinct = new LinkedHashSet<>(terms);
+            List<Postings> lists = new ArrayList<>(distinct.size());
+            for (String term : distinct) {
+                Postings list = postings.get(term);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            return lists;
+        }
+
+        /**
+         * Smallest ordinal under any cursor, or {@link Integer#MAX_VALUE} when all lists are exhausted
+         */
+        private static int nextDoc(List<Postings> lists, int[] cursors) {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < lists.size(); i++) {
+                Postings list = lists.get(i);
+                if (cursors[i] < list.size && list.docs[cursors[i]] < min) {
+                    min = list.docs[cursors[i]];
+                }
+            }
+            return min;
+        }
+
+        private int append(long id, int length) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            ids[size] = id;
+            lengths[size] = length;
+            ordinals.put(id, size);
+            liveCount++;
+            liveLength += length;
+            return size++;
+        }
+
+        private static int count(Map<String, Integer> termFreqs, String text, int weight) {
+            List<String> tokens = TextAnalyzer.tokenize(text);
+            for (String token : tokens) {
+                termFreqs.merge(token, weight, Integer::sum);
+            }
+            return tokens.size() * weight;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookstore.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Price conversions shared by the in-memory indexes, which store prices as whole cents
+ */
+final class Prices {
+
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private Prices() {
+    }
+
+    /**
+     * Convert an amount to cents. Amounts beyond the range of a long are clamped to it, which
+     * still orders them correctly against every real price, so they can be used as query bounds.
+     *
+     * @param amount The amount to convert
+     * @param rounding How to round fractions of a cent
+     * @return The amount in cents
+     */
+    static long cents(BigDecimal amount, RoundingMode rounding) {
+        BigDecimal cents = amount.movePointRight(2);
+        if (cents.compareTo(MAX_CENTS) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(MIN_CENTS) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.setScale(0, rounding).longValueExact();
+    }
+}
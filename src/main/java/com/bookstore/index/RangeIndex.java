@@ -0,0 +1,510 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.BookRange;
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted indexes over price and publication date, for the whole catalog and per genre.
+ * <p>
+ * Each index is a set of parallel primitive arrays sorted by (key, id): the key, the other
+ * attribute and the book ID, split into chunks of at most {@value #CHUNK_SIZE} entries so that a
+ * write only shifts one chunk. A range is located by binary search. With bounds on one attribute,
+ * only the requested page is visited, plus one step per chunk to count the matches. With bounds
+ * on both, the narrower of the two ranges is scanned and filtered on the other attribute, so a
+ * query costs O(log n + r) for r books in that range.
+ */
+@Component
+public class RangeIndex implements BookIndex {
+
+    private static final Book.Genre[] GENRES = Book.Genre.values();
+    private static final int CHUNK_SIZE = 512;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    @Override
+    public Builder newBuilder() {
+        State building = new State();
+        return new Builder() {
+            @Override
+            public void add(Book book) {
+                building.append(book);
+            }
+
+            @Override
+            public void publish() {
+                building.sort();
+                lock.writeLock().lock();
+                try {
+                    state = building;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            state.remove(book.getId());
+            state.add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            state.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the books in the given price and publication date ranges, ordered by price (or by
+     * publication date when no price bound is given), then by ID
+     *
+     * @param range The bounds and the optional genre
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of matches to return
+     * @return The total number of matches and the requested ones
+     */
+    public Hits find(BookRange range, int offset, int limit) {
+        long minCents = range.minPrice() == null ? Long.MIN_VALUE : Prices.cents(range.minPrice(), RoundingMode.CEILING);
+        long maxCents = range.maxPrice() == null ? Long.MAX_VALUE : Prices.cents(range.maxPrice(), RoundingMode.FLOOR);
+        long fromDay = range.from() == null ? Long.MIN_VALUE : range.from().toEpochDay();
+        long toDay = range.to() == null ? Long.MAX_VALUE : range.to().toEpochDay();
+        boolean byPrice = range.minPrice() != null || range.maxPrice() != null || (range.from() == null && range.to() == null);
+
+        lock.readLock().lock();
+        try {
+            Indexes indexes = range.genre() == null ? state.all : state.byGenre[range.genre().ordinal()];
+            if (!byPrice) {
+                return indexes.byDate.scan(fromDay, toDay, minCents, maxCents, offset, limit);
+            }
+            boolean dated = range.from() != null || range.to() != null;
+            if (dated && indexes.byDate.count(fromDay, toDay) < indexes.byPrice.count(minCents, maxCents)) {
+                // Fewer books in the date range: scan it and order its matches by price
+                return indexes.byDate.scanByOther(fromDay, toDay, minCents, maxCents, offset, limit);
+            }
+            return indexes.byPrice.scan(minCents, maxCents, fromDay, toDay, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Result of a range query
+     *
+     * @param totalHits The total number of matching books
+     * @param ids The IDs of the requested matches, in index order
+     */
+    public record Hits(int totalHits, List<Long> ids) {
+    }
+
+    /**
+     * Indexed attributes of a book, to find its entries again on update or removal
+     */
+    private record Entry(int genre, long cents, long day) {
+
+        static Entry of(Book book) {
+            return new Entry(book.getGenre().ordinal(), Prices.cents(book.getPrice(), RoundingMode.HALF_UP),
+                    book.getPublicationDate().toEpochDay());
+        }
+    }
+
+    /**
+     * The price and date orders of one set of books
+     */
+    private static final class Indexes {
+        final SortedEntries byPrice = new SortedEntries();
+        final SortedEntries byDate = new SortedEntries();
+
+        void append(long id, Entry entry) {
+            byPrice.append(entry.cents(), entry.day(), id);
+            byDate.append(entry.day(), entry.cents(), id);
+        }
+
+        void add(long id, Entry entry) {
+            byPrice.insert(entry.cents(), entry.day(), id);
+            byDate.insert(entry.day(), entry.cents(), id);
+        }
+
+        void remove(long id, Entry entry) {
+            byPrice.delete(entry.cents(), id);
+            byDate.delete(entry.day(), id);
+        }
+
+        void sort() {
+            byPrice.sort();
+            byDate.sort();
+        }
+    }
+
+    /**
+     * Mutable indexes, guarded by the enclosing lock
+     */
+    private static final class State {
+        final Map<Long, Entry> entries = new HashMap<>();
+        final Indexes all = new Indexes();
+        final Indexes[] byGenre = new Indexes[GENRES.length];
+
+        State() {
+            for (int genre = 0; genre < byGenre.length; genre++) {
+                byGenre[genre] = new Indexes();
+            }
+        }
+
+        /**
+         * Add a book of a full rebuild, unsorted; {@link #sort()} must follow
+         */
+        void append(Book book) {
+            if (!isIndexable(book)) {
+                return;
+            }
+            Entry entry = Entry.of(book);
+            entries.put(book.getId(), entry);
+            all.append(book.getId(), entry);
+            byGenre[entry.genre()].append(book.getId(), entry);
+        }
+
+        /**
+         * Sort everything appended by a full rebuild, once
+         */
+        void sort() {
+            all.sort();
+            for (Indexes genre : byGenre) {
+                genre.sort();
+            }
+        }
+
+        void add(Book book) {
+            if (!isIndexable(book)) {
+                return;
+            }
+            Entry entry = Entry.of(book);
+            entries.put(book.getId(), entry);
+            all.add(book.getId(), entry);
+            byGenre[entry.genre()].add(book.getId(), entry);
+        }
+
+        private static boolean isIndexable(Book book) {
+            return book.getGenre() != null && book.getPrice() != null && book.getPublicationDate() != null;
+        }
+
+        void remove(Long id) {
+            Entry entry = entries.remove(id);
+            if (entry != null) {
+                all.remove(id, entry);
+                byGenre[entry.genre()].remove(id, entry);
+            }
+        }
+    }
+
+    /**
+     * Entries sorted by (key, id), each also carrying the other indexed attribute.
+     * <p>
+     * The entries are split into chunks of at most {@link #CHUNK_SIZE}, so a write only shifts
+     * the arrays of one chunk. A rebuild appends its unsorted entries to a single chunk, then
+     * sorts and splits it once.
+     */
+    private static final class SortedEntries {
+        final List<Chunk> chunks = new ArrayList<>(List.of(new Chunk(CHUNK_SIZE)));
+
+        /**
+         * Add an entry of a full rebuild, unsorted; {@link #sort()} must follow
+         */
+        void append(long key, long other, long id) {
+            chunks.get(0).append(key, other, id);
+        }
+
+        void insert(long key, long other, long id) {
+            int index = chunkOf(key, id);
+            Chunk chunk = chunks.get(index);
+            chunk.insert(chunk.lowerBound(key, id), key, other, id);
+            if (chunk.size == CHUNK_SIZE) {
+                chunks.add(index + 1, chunk.split());
+            }
+        }
+
+        void delete(long key, long id) {
+            int index = chunkOf(key, id);
+            Chunk chunk = chunks.get(index);
+            int position = chunk.lowerBound(key, id);
+            if (position == chunk.size || chunk.keys[position] != key || chunk.ids[position] != id) {
+                return;
+            }
+            chunk.delete(position);
+            if (index + 1 < chunks.size() && chunk.size + chunks.get(index + 1).size <= CHUNK_SIZE / 2) {
+                chunk.absorb(chunks.remove(index + 1));
+            } else if (chunk.size == 0 && chunks.size() > 1) {
+                chunks.remove(index);
+            }
+        }
+
+        /**
+         * Count the entries with a key in [minKey, maxKey], visiting the chunks but not the entries
+         */
+        int count(long minKey, long maxKey) {
+            int total = 0;
+            int index = chunkOf(minKey, Long.MIN_VALUE);
+            int start = chunks.get(index).lowerBound(minKey, Long.MIN_VALUE);
+            for (; index < chunks.size(); index++, start = 0) {
+                Chunk chunk = chunks.get(index);
+                int end = chunk.upperBound(maxKey);
+                total += end - start;
+                if (end < chunk.size) {
+                    break;
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Scan the entries with a key in [minKey, maxKey] and keep those with the other attribute
+         * in [minOther, maxOther], in (key, id) order
+         */
+        Hits scan(long minKey, long maxKey, long minOther, long maxOther, int offset, int limit) {
+            boolean filtered = minOther != Long.MIN_VALUE || maxOther != Long.MAX_VALUE;
+            int total = 0;
+            List<Long> page = new ArrayList<>();
+            int index = chunkOf(minKey, Long.MIN_VALUE);
+            int start = chunks.get(index).lowerBound(minKey, Long.MIN_VALUE);
+            for (; index < chunks.size(); index++, start = 0) {
+                Chunk chunk = chunks.get(index);
+                int end = chunk.upperBound(maxKey);
+                if (filtered) {
+                    for (int i = start; i < end; i++) {
+                        if (chunk.others[i] >= minOther && chunk.others[i] <= maxOther) {
+                            if (total >= offset && page.size() < limit) {
+                                page.add(chunk.ids[i]);
+                            }
+                            total++;
+                        }
+                    }
+                } else {
+                    // Every entry of the key range matches: only the entries of the page are visited
+                    for (int i = Math.max(start, start + offset - total); i < end && page.size() < limit; i++) {
+                        page.add(chunk.ids[i]);
+                    }
+                    total += end - start;
+                }
+                if (end < chunk.size) {
+                    break;
+                }
+            }
+            return new Hits(total, page);
+        }
+
+        /**
+         * Scan the entries with a key in [minKey, maxKey], keep those with the other attribute in
+         * [minOther, maxOther] and order them by (other, id)
+         */
+        Hits scanByOther(long minKey, long maxKey, long minOther, long maxOther, int offset, int limit) {
+            Chunk matches = new Chunk(16);
+            int index = chunkOf(minKey, Long.MIN_VALUE);
+            int start = chunks.get(index).lowerBound(minKey, Long.MIN_VALUE);
+            for (; index < chunks.size(); index++, start = 0) {
+                Chunk chunk = chunks.get(index);
+                int end = chunk.upperBound(maxKey);
+                for (int i = start; i < end; i++) {
+                    if (chunk.others[i] >= minOther && chunk.others[i] <= maxOther) {
+                        matches.append(chunk.others[i], chunk.keys[i], chunk.ids[i]);
+                    }
+                }
+                if (end < chunk.size) {
+                    break;
+                }
+            }
+            int[] order = sortedOrder(matches.keys, matches.ids, matches.size);
+            List<Long> page = new ArrayList<>();
+            for (int i = offset; i < matches.size && page.size() < limit; i++) {
+                page.add(matches.ids[order[i]]);
+            }
+            return new Hits(matches.size, page);
+        }
+
+        /**
+         * Sort the entries appended by a full rebuild by (key, id) and split them into chunks
+         * filled to three quarters, leaving room for inserts
+         */
+        void sort() {
+            Chunk appended = chunks.get(0);
+            int[] order = sortedOrder(appended.keys, appended.ids, appended.size);
+            chunks.clear();
+            Chunk chunk = new Chunk(CHUNK_SIZE);
+            for (int position : order) {
+                if (chunk.size == CHUNK_SIZE * 3 / 4) {
+                    chunks.add(chunk);
+                    chunk = new Chunk(CHUNK_SIZE);
+                }
+                chunk.append(appended.keys[position], appended.others[position], appended.ids[position]);
+            }
+            chunks.add(chunk);
+        }
+
+        /**
+         * Index of the first chunk whose last entry is not less than (key, id), or of the last
+         * chunk if there is none; only the last chunk can be empty
+         */
+        private int chunkOf(long key, long id) {
+            int low = 0;
+            int high = chunks.size() - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                Chunk chunk = chunks.get(middle);
+                int last = chunk.size - 1;
+                if (chunk.keys[last] < key || (chunk.keys[last] == key && chunk.ids[last] < id)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Parallel arrays of consecutive entries, sorted by (key, id) once published
+     */
+    private static final class Chunk {
+        long[] keys;
+        long[] others;
+        long[] ids;
+        int size;
+
+        Chunk(int capacity) {
+            keys = new long[capacity];
+            others = new long[capacity];
+            ids = new long[capacity];
+        }
+
+        void append(long key, long other, long id) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                others = Arrays.copyOf(others, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            keys[size] = key;
+            others[size] = other;
+            ids[size] = id;
+            size++;
+        }
+
+        void insert(int position, long key, long other, long id) {
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            System.arraycopy(others, position, others, position + 1, size - position);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            keys[position] = key;
+            others[position] = other;
+            ids[position] = id;
+            size++;
+        }
+
+        void delete(int position) {
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            System.arraycopy(others, position + 1, others, position, size - position - 1);
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+
+        /**
+         * Move the upper half of the entries to a new chunk
+         */
+        Chunk split() {
+            Chunk upper = new Chunk(keys.length);
+            int half = size / 2;
+            upper.size = size - half;
+            System.arraycopy(keys, half, upper.keys, 0, upper.size);
+            System.arraycopy(others, half, upper.others, 0, upper.size);
+            System.arraycopy(ids, half, upper.ids, 0, upper.size);
+            size = half;
+            return upper;
+        }
+
+        /**
+         * Append the entries of the following chunk, which must fit
+         */
+        void absorb(Chunk next) {
+            System.arraycopy(next.keys, 0, keys, size, next.size);
+            System.arraycopy(next.others, 0, others, size, next.size);
+            System.arraycopy(next.ids, 0, ids, size, next.size);
+            size += next.size;
+        }
+
+        /**
+         * First position whose (key, id) is not less than the given one
+         */
+        int lowerBound(long key, long id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] < key || (keys[middle] == key && ids[middle] < id)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * First position whose key is greater than the given one
+         */
+        int upperBound(long key) {
+            return key == Long.MAX_VALUE ? size : lowerBound(key + 1, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Positions 0 to size - 1 ordered by (key, id), merge-sorted on primitive arrays
+     */
+    private static int[] sortedOrder(long[] keys, long[] ids, int size) {
+        int[] order = new int[size];
+        int[] merged = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int middle = Math.min(low + width, size);
+                int high = Math.min(low + 2 * width, size);
+                int left = low;
+                int right = middle;
+                int out = low;
+                while (left < middle && right < high) {
+                    int a = order[left];
+                    int b = order[right];
+                    boolean rightFirst = keys[b] < keys[a] || (keys[b] == keys[a] && ids[b] < ids[a]);
+                    merged[out++] = rightFirst ? order[right++] : order[left++];
+                }
+                while (left < middle) {
+                    merged[out++] = order[left++];
+                }
+                while (right < high) {
+                    merged[out++] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = merged;
+            merged = swap;
+        }
+        return order;
+    }
+}
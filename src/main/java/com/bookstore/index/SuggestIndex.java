@@ -0,0 +1,514 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.Suggestion;
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix autocomplete over book titles and author names, kept up to date with every committed write.
+ * <p>
+ * Titles and names are normalized like the full-text index and stored in a compressed (radix)
+ * trie under every word start, so "hob" suggests "The Hobbit" and "tolk" suggests "J.R.R. Tolkien".
+ * Suggestions are ranked by weight: the number of books of an author, 1 for a title; ties go to
+ * the shorter text. Every trie node with more than {@link #MAX_LIMIT} keys below it caches its
+ * best entries, so a lookup walks the prefix and copies at most {@link #MAX_LIMIT} entries,
+ * whatever the size of the catalog.
+ */
+@Component
+public class SuggestIndex implements BookIndex {
+
+    /**
+     * The largest number of suggestions a lookup returns
+     */
+    public static final int MAX_LIMIT = 20;
+
+    // Bounds on the keys of one title or name: word starts indexed, and characters per key
+    private static final int MAX_KEYS_PER_TEXT = 6;
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final Comparator<Entry> RANK = Comparator
+            .comparingInt((Entry entry) -> entry.weight).reversed()
+            .thenComparingInt(entry -> entry.text.length())
+            .thenComparing(entry -> entry.text)
+            .thenComparing(entry -> entry.id == null ? 0L : entry.id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    @Override
+    public Builder newBuilder() {
+        State building = new State();
+        building.trie.bulk = true;
+        return new Builder() {
+            @Override
+            public void add(Book book) {
+                building.put(book);
+            }
+
+            @Override
+            public void publish() {
+                building.trie.finishBulk();
+                lock.writeLock().lock();
+                try {
+                    state = building;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            state.put(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            state.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suggest titles and authors starting with the given text at a word boundary
+     *
+     * @param prefix The text typed so far; matching is case and accent insensitive
+     * @param limit The maximum number of suggestions, at most {@link #MAX_LIMIT}
+     * @return The best suggestions, highest weight first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = key(TextAnalyzer.tokenize(prefix), 0);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Entry[] best = state.trie.find(key);
+            int size = Math.min(Math.min(limit, MAX_LIMIT), best.length);
+            List<Suggestion> suggestions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                suggestions.add(best[i].toSuggestion());
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Normalized tokens from the given one on, joined by single spaces
+     */
+    private static String key(List<String> tokens, int from) {
+        String key = String.join(" ", tokens.subList(from, tokens.size()));
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    /**
+     * Keys of a title or name: the text from each of its first word starts on
+     */
+    private static String[] keys(String text) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        String[] keys = new String[Math.min(tokens.size(), MAX_KEYS_PER_TEXT)];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(tokens, i);
+        }
+        return keys;
+    }
+
+    /**
+     * A suggestion stored in the trie under each of its keys; compared by identity
+     */
+    private static final class Entry {
+        final Long id;
+        final String text;
+        final Suggestion.Type type;
+        final int weight;
+        final String[] keys;
+
+        Entry(Long id, String text, Suggestion.Type type, int weight) {
+            this.id = id;
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+            this.keys = keys(text);
+        }
+
+        Suggestion toSuggestion() {
+            return new Suggestion(id, text, type);
+        }
+    }
+
+    /**
+     * An author's suggestion and number of books
+     */
+    private record Author(Entry entry, int books) {
+    }
+
+    /**
+     * The indexed state of a book: its title entry and the normalized name of its author
+     */
+    private record Indexed(Entry title, String author) {
+    }
+
+    /**
+     * Entries by book and author, guarded by the enclosing lock
+     */
+    private static final class State {
+        final Trie trie = new Trie();
+        final Map<Long, Indexed> books = new HashMap<>();
+        final Map<String, Author> authors = new HashMap<>();
+
+        void put(Book book) {
+            remove(book.getId());
+            Entry title = null;
+            if (book.getTitle() != null && !book.getTitle().isBlank()) {
+                title = new Entry(book.getId(), book.getTitle(), Suggestion.Type.TITLE, 1);
+                trie.insert(title);
+            }
+            String author = null;
+            if (book.getAuthor() != null && !book.getAuthor().isBlank()) {
+                author = key(TextAnalyzer.tokenize(book.getAuthor()), 0);
+                Author previous = authors.get(author);
+                String name = previous == null ? book.getAuthor() : previous.entry().text;
+                int count = previous == null ? 1 : previous.books() + 1;
+                replaceAuthor(author, previous, name, count);
+            }
+            books.put(book.getId(), new Indexed(title, author));
+        }
+
+        void remove(Long id) {
+            Indexed indexed = books.remove(id);
+            if (indexed == null) {
+                return;
+            }
+            if (indexed.title() != null) {
+                trie.remove(indexed.title());
+            }
+            if (indexed.author() != null) {
+                Author previous = authors.get(indexed.author());
+                replaceAuthor(indexed.author(), previous, previous.entry().text, previous.books() - 1);
+            }
+        }
+
+        /**
+         * Re-insert an author with a new weight, the rank of an entry being fixed once in the trie
+         */
+        private void replaceAuthor(String author, Author previous, String name, int books) {
+            if (previous != null) {
+                trie.remove(previous.entry());
+            }
+            if (books == 0) {
+                authors.remove(author);
+                return;
+            }
+            Entry entry = new Entry(null, name, Suggestion.Type.AUTHOR, books);
+            trie.insert(entry);
+            authors.put(author, new Author(entry, books));
+        }
+    }
+
+    /**
+     * Radix trie from keys to entries. Each node counts the keys in its subtree and, while
+     * there are more than {@link #MAX_LIMIT}, caches the best distinct entries among them.
+     */
+    private static final class Trie {
+        final Node root = new Node("");
+        // While building, best entries are computed once at the end instead of on every insert
+        boolean bulk;
+
+        void insert(Entry entry) {
+            for (String key : entry.keys) {
+                List<Node> path = new ArrayList<>();
+                Node node = root;
+                path.add(node);
+                int i = 0;
+                while (i < key.length()) {
+                    int index = node.childIndex(key.charAt(i));
+                    if (index < 0) {
+                        Node leaf = new Node(key.substring(i));
+                        node.addChild(leaf);
+                        node = leaf;
+                        path.add(node);
+                        break;
+                    }
+                    Node child = node.children[index];
+                    int common = commonPrefix(child.label, key, i);
+                    if (common < child.label.length()) {
+                        child = node.split(index, common);
+                    }
+                    node = child;
+                    path.add(node);
+                    i += common;
+                }
+                node.terminals = append(node.terminals, entry);
+                // Bottom-up, the best entries of a node being computed from those of its children
+                for (int depth = path.size() - 1; depth >= 0; depth--) {
+                    Node onPath = path.get(depth);
+                    onPath.count++;
+                    if (!bulk) {
+                        onPath.offer(entry);
+                    }
+                }
+            }
+        }
+
+        void remove(Entry entry) {
+            for (String key : entry.keys) {
+                List<Node> path = new ArrayList<>();
+                Node node = root;
+                path.add(node);
+                int i = 0;
+                while (i < key.length()) {
+                    node = node.children[node.childIndex(key.charAt(i))];
+                    path.add(node);
+                    i += node.label.length();
+                }
+                node.terminals = without(node.terminals, entry);
+                for (int depth = path.size() - 1; depth >= 0; depth--) {
+                    Node onPath = path.get(depth);
+                    onPath.count--;
+                    if (onPath.count <= MAX_LIMIT) {
+                        onPath.top = null;
+                    } else if (onPath.top != null && contains(onPath.top, entry)) {
+                        // The entry may still be below under another key; recomputing keeps it then
+                        onPath.top = onPath.best();
+                    }
+                }
+                for (int depth = path.size() - 1; depth > 0; depth--) {
+                    path.get(depth - 1).compact(path.get(depth));
+                }
+            }
+        }
+
+        void finishBulk() {
+            root.computeTops();
+            bulk = false;
+        }
+
+        /**
+         * The best entries with a key starting with the given one
+         */
+        Entry[] find(String key) {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int index = node.childIndex(key.charAt(i));
+                if (index < 0) {
+                    return Node.NO_ENTRIES;
+                }
+                Node child = node.children[index];
+                int common = commonPrefix(child.label, key, i);
+                if (i + common < key.length() && common < child.label.length()) {
+                    return Node.NO_ENTRIES;
+                }
+                node = child;
+                i += common;
+            }
+            return node.top != null ? node.top : node.best();
+        }
+
+        private static int commonPrefix(String label, String key, int from) {
+            int max = Math.min(label.length(), key.length() - from);
+            int common = 0;
+            while (common < max && label.charAt(common) == key.charAt(from + common)) {
+                common++;
+            }
+            return common;
+        }
+    }
+
+    private static final class Node {
+        static final Entry[] NO_ENTRIES = new Entry[0];
+        static final Node[] NO_CHILDREN = new Node[0];
+        static final char[] NO_CHARS = new char[0];
+
+        String label;
+        // First characters of the child labels, sorted, and the children in the same order
+        char[] firsts = NO_CHARS;
+        Node[] children = NO_CHILDREN;
+        // Entries with a key ending here
+        Entry[] terminals = NO_ENTRIES;
+        // Keys in the subtree, and its best distinct entries while there are more than MAX_LIMIT keys
+        int count;
+        Entry[] top;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char first) {
+            return Arrays.binarySearch(firsts, first);
+        }
+
+        void addChild(Node child) {
+            int index = -childIndex(child.label.charAt(0)) - 1;
+            firsts = insertAt(firsts, index, child.label.charAt(0));
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        /**
+         * Split the edge to a child after the given number of characters
+         *
+         * @return The new intermediate node, which has the same subtree as the child had
+         */
+        Node split(int index, int length) {
+            Node child = children[index];
+            Node middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.firsts = new char[] {child.label.charAt(0)};
+            middle.children = new Node[] {child};
+            middle.count = child.count;
+            middle.top = child.top;
+            children[index] = middle;
+            return middle;
+        }
+
+        /**
+         * Drop an empty child, or merge it with its only child
+         */
+        void compact(Node child) {
+            if (child.terminals.length > 0) {
+                return;
+            }
+            int index = childIndex(child.label.charAt(0));
+            if (child.children.length == 0) {
+                firsts = removeAt(firsts, index);
+                Node[] shrunk = new Node[children.length - 1];
+                System.arraycopy(children, 0, shrunk, 0, index);
+                System.arraycopy(children, index + 1, shrunk, index, shrunk.length - index);
+                children = shrunk;
+            } else if (child.children.length == 1) {
+                Node grandchild = child.children[0];
+                grandchild.label = child.label + grandchild.label;
+                children[index] = grandchild;
+            }
+        }
+
+        /**
+         * Account for an entry inserted below, the count already including it
+         */
+        void offer(Entry entry) {
+            if (count <= MAX_LIMIT) {
+                return;
+            }
+            if (top == null) {
+                top = best();
+                return;
+            }
+            if (contains(top, entry)) {
+                return;
+            }
+            int position = 0;
+            while (position < top.length && RANK.compare(top[position], entry) < 0) {
+                position++;
+            }
+            if (position == MAX_LIMIT) {
+                return;
+            }
+            Entry[] updated = new Entry[Math.min(top.length + 1, MAX_LIMIT)];
+            System.arraycopy(top, 0, updated, 0, position);
+            updated[position] = entry;
+            System.arraycopy(top, position, updated, position + 1, updated.length - position - 1);
+            top = updated;
+        }
+
+        /**
+         * Compute the best distinct entries of the subtree from those of the children
+         */
+        Entry[] best() {
+            Set<Entry> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+            collect(candidates);
+            Entry[] sorted = candidates.toArray(NO_ENTRIES);
+            Arrays.sort(sorted, RANK);
+            return sorted.length > MAX_LIMIT ? Arrays.copyOf(sorted, MAX_LIMIT) : sorted;
+        }
+
+        private void collect(Set<Entry> candidates) {
+            candidates.addAll(Arrays.asList(terminals));
+            for (Node child : children) {
+                if (child.top != null) {
+                    candidates.addAll(Arrays.asList(child.top));
+                } else {
+                    child.collect(candidates);
+                }
+            }
+        }
+
+        void computeTops() {
+            for (Node child : children) {
+                child.computeTops();
+            }
+            top = count > MAX_LIMIT ? best() : null;
+        }
+    }
+
+    private static boolean contains(Entry[] entries, Entry entry) {
+        for (Entry candidate : entries) {
+            if (candidate == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = entry;
+        return grown;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                if (entries.length == 1) {
+                    return Node.NO_ENTRIES;
+                }
+                Entry[] shrunk = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, shrunk, 0, i);
+                System.arraycopy(entries, i + 1, shrunk, i, shrunk.length - i);
+                return shrunk;
+            }
+        }
+        return entries;
+    }
+
+    private static char[] insertAt(char[] chars, int index, char value) {
+        char[] grown = new char[chars.length + 1];
+        System.arraycopy(chars, 0, grown, 0, index);
+        grown[index] = value;
+        System.arraycopy(chars, index, grown, index + 1, chars.length - index);
+        return grown;
+    }
+
+    private static char[] removeAt(char[] chars, int index) {
+        char[] shrunk = new char[chars.length - 1];
+        System.arraycopy(chars, 0, shrunk, 0, index);
+        System.arraycopy(chars, index + 1, shrunk, index, shrunk.length - index);
+        return shrunk;
+    }
+}
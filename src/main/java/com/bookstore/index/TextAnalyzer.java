@@ -0,0 +1,61 @@
+package com.bookstore.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization and tokenization shared by the text indexes.
+ * <p>
+ * Text is case-folded and accent-folded, so "García Márquez" and "garcia marquez" produce
+ * the same tokens.
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Lower-case the text and strip its diacritics
+     *
+     * @param text The text to normalize, may be {@code null}
+     * @return The normalized text, empty if the input is {@code null}
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Split the normalized text into tokens of letters and digits
+     *
+     * @param text The text to tokenize, may be {@code null}
+     * @return The tokens in order of appearance
+     */
+    public static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(normalized.substring(start));
+        }
+        return tokens;
+    }
+}
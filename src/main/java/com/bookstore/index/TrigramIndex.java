@@ -0,0 +1,464 @@
+package com.bookstore.index;
+
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant index over the words of the title and author of every book.
+ * <p>
+ * Each field keeps its vocabulary of distinct words, a posting list of books per word and a
+ * posting list of words per trigram. A query word only computes its edit distance to the words
+ * sharing enough trigrams with it, so the cost of a search depends on the vocabulary that looks
+ * alike rather than on the number of books. Books are stored under ordinals in insertion order,
+ * like in {@link FullTextIndex}: updates delete the previous ordinal and append a new one.
+ */
+@Component
+public class TrigramIndex implements BookIndex {
+
+    /**
+     * Pads words so that their first and last letters start and end a trigram of their own
+     */
+    private static final String START = "$$";
+    private static final String END = "$";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    /**
+     * The indexed fields
+     */
+    public enum Field {
+        TITLE, AUTHOR
+    }
+
+    @Override
+    public Builder newBuilder() {
+        State building = new State();
+        return new Builder() {
+            @Override
+            public void add(Book book) {
+                building.add(book);
+            }
+
+            @Override
+            public void publish() {
+                lock.writeLock().lock();
+                try {
+                    state = building;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void put(Book book) {
+        lock.writeLock().lock();
+        try {
+            state.remove(book.getId());
+            state.add(book);
+            if (state.needsCompaction()) {
+                state = state.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            state.remove(id);
+            if (state.needsCompaction()) {
+                state = state.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the books whose field has a similar word for every word of the query
+     *
+     * @param field The field to search
+     * @param query The text to look for, possibly misspelled
+     * @param offset The number of top hits to skip
+     * @param limit The maximum number of hits to return
+     * @return The total number of matches and the requested hits, most similar first
+     */
+    public Hits search(Field field, String query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return state.search(field, new LinkedHashSet<>(TextAnalyzer.tokenize(query)), offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Result of a fuzzy search
+     *
+     * @param totalHits The total number of matching books
+     * @param ids The IDs of the requested hits, most similar first
+     * @param scores The similarities of the requested hits, from 0 (exclusive) to 1 for an exact match
+     */
+    public record Hits(int totalHits, List<Long> ids, List<Double> scores) {
+    }
+
+    /**
+     * Get the number of typos tolerated in a word, growing with its length
+     *
+     * @param length The length of the word
+     * @return The maximum edit distance
+     */
+    static int maxEdits(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Levenshtein distance, computed only within {@code max} of the diagonal and given up as soon
+     * as it is known to exceed {@code max}
+     *
+     * @param a The first word
+     * @param b The second word
+     * @param max The largest distance of interest
+     * @return The distance, or {@code max + 1} if it is larger than {@code max}
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = Math.min(j, max + 1);
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[0] = Math.min(i, max + 1);
+            if (from > 1) {
+                current[from - 1] = max + 1;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(value, max + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) {
+                current[to + 1] = max + 1;
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Get the distinct trigrams of a padded word
+     */
+    static Set<String> trigrams(String word) {
+        String padded = START + word + END;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Sorted, append-only list of ordinals (of books or of words)
+     */
+    private static final class Postings {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+    }
+
+    /**
+     * A vocabulary word close to a query word
+     */
+    private record WordMatch(Postings books, double similarity) {
+    }
+
+    private record ScoredDoc(long id, double score) {
+    }
+
+    private static final Comparator<ScoredDoc> BEST_FIRST = Comparator
+            .comparingDouble(ScoredDoc::score).reversed()
+            .thenComparingLong(ScoredDoc::id);
+
+    private static final Comparator<WordMatch> MOST_SIMILAR = Comparator
+            .comparingDouble(WordMatch::similarity).reversed();
+
+    /**
+     * Vocabulary and posting lists of one field
+     */
+    private static final class FieldState {
+        final Map<String, Integer> wordNumbers = new HashMap<>();
+        final List<String> words = new ArrayList<>();
+        final List<Postings> books = new ArrayList<>();
+        final Map<String, Postings> trigrams = new HashMap<>();
+
+        void add(int ordinal, String text) {
+            for (String word : new LinkedHashSet<>(TextAnalyzer.tokenize(text))) {
+                postingsOf(word).add(ordinal);
+            }
+        }
+
+        Postings postingsOf(String word) {
+            Integer number = wordNumbers.get(word);
+            if (number == null) {
+                number = words.size();
+                wordNumbers.put(word, number);
+                words.add(word);
+                books.add(new Postings());
+                for (String gram : trigrams(word)) {
+                    trigrams.computeIfAbsent(gram, g -> new Postings()).add(number);
+                }
+            }
+            return books.get(number);
+        }
+
+        /**
+         * Find the vocabulary words within the tolerated edit distance of a query word.
+         * <p>
+         * Each edit changes at most three trigrams of the padded word, so a word within {@code k}
+         * edits shares at least {@code grams - 3k} of the query's trigrams; only those candidates
+         * are compared with {@link #distance(String, String, int)}.
+         */
+        List<WordMatch> match(String word) {
+            int maxEdits = maxEdits(word.length());
+            List<WordMatch> matches = new ArrayList<>();
+            if (maxEdits == 0) {
+                Integer number = wordNumbers.get(word);
+                if (number != null) {
+                    matches.add(new WordMatch(books.get(number), 1.0));
+                }
+                return matches;
+            }
+            Set<String> grams = trigrams(word);
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                Postings list = trigrams.get(gram);
+                if (list != null) {
+                    for (int i = 0; i < list.size; i++) {
+                        shared.merge(list.values[i], 1, Integer::sum);
+                    }
+                }
+            }
+            int minShared = Math.max(1, grams.size() - 3 * maxEdits);
+            shared.forEach((number, count) -> {
+                String candidate = words.get(number);
+                if (count >= minShared) {
+                    int edits = distance(word, candidate, maxEdits);
+                    if (edits <= maxEdits) {
+                        double similarity = 1 - (double) edits / Math.max(word.length(), candidate.length());
+                        matches.add(new WordMatch(books.get(number), similarity));
+                    }
+                }
+            });
+            matches.sort(MOST_SIMILAR);
+            return matches;
+        }
+
+        /**
+         * Copy the words still used by live books, with their book ordinals remapped
+         */
+        FieldState compact(int[] remap) {
+            FieldState compacted = new FieldState();
+            for (int number = 0; number < words.size(); number++) {
+                Postings list = books.get(number);
+                Postings live = null;
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = remap[list.values[i]];
+                    if (ordinal >= 0) {
+                        if (live == null) {
+                            live = compacted.postingsOf(words.get(number));
+                        }
+                        live.add(ordinal);
+                    }
+                }
+            }
+            return compacted;
+        }
+    }
+
+    /**
+     * Mutable index content, guarded by the enclosing lock
+     */
+    private static final class State {
+        final Map<Field, FieldState> fields = new HashMap<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        final BitSet deleted = new BitSet();
+        long[] ids = new long[1024];
+        int size;
+        int liveCount;
+
+        State() {
+            for (Field field : Field.values()) {
+                fields.put(field, new FieldState());
+            }
+        }
+
+        void add(Book book) {
+            int ordinal = append(book.getId());
+            fields.get(Field.TITLE).add(ordinal, book.getTitle());
+            fields.get(Field.AUTHOR).add(ordinal, book.getAuthor());
+        }
+
+        void remove(Long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                deleted.set(ordinal);
+                liveCount--;
+            }
+        }
+
+        boolean needsCompaction() {
+            int deletedCount = size - liveCount;
+            return deletedCount > 1024 && deletedCount > size / 4;
+        }
+
+        /**
+         * Copy the live books into a new state with dense ordinals, dropping unused words
+         */
+        State compact() {
+            State compacted = new State();
+            int[] remap = new int[size];
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                remap[ordinal] = deleted.get(ordinal) ? -1 : compacted.append(ids[ordinal]);
+            }
+            fields.forEach((field, content) -> compacted.fields.put(field, content.compact(remap)));
+            return compacted;
+        }
+
+        /**
+         * Score the books matching every query word, each by its most similar word in the field.
+         * <p>
+         * Candidates come from the query word with the fewest postings; the other words are
+         * checked by binary search in the postings of their matches.
+         */
+        Hits search(Field field, Set<String> queryWords, int offset, int limit) {
+            if (queryWords.isEmpty()) {
+                return new Hits(0, List.of(), List.of());
+            }
+            FieldState content = fields.get(field);
+            List<List<WordMatch>> matches = new ArrayList<>(queryWords.size());
+            for (String word : queryWords) {
+                List<WordMatch> wordMatches = content.match(word);
+                if (wordMatches.isEmpty()) {
+                    return new Hits(0, List.of(), List.of());
+                }
+                matches.add(wordMatches);
+            }
+            matches.sort(Comparator.comparingLong(State::postingCount));
+            Map<Integer, Double> candidates = new HashMap<>();
+            for (WordMatch match : matches.get(0)) {
+                for (int i = 0; i < match.books().size; i++) {
+                    candidates.merge(match.books().values[i], match.similarity(), Math::max);
+                }
+            }
+
+            int wanted = offset + limit;
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(wanted + 1, BEST_FIRST.reversed());
+            int totalHits = 0;
+            for (Map.Entry<Integer, Double> candidate : candidates.entrySet()) {
+                int doc = candidate.getKey();
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                double total = candidate.getValue();
+                for (int w = 1; w < matches.size() && total >= 0; w++) {
+                    double similarity = bestSimilarity(matches.get(w), doc);
+                    total = similarity < 0 ? -1 : total + similarity;
+                }
+                if (total < 0) {
+                    continue;
+                }
+                totalHits++;
+                ScoredDoc scored = new ScoredDoc(ids[doc], total / matches.size());
+                if (top.size() < wanted) {
+                    top.offer(scored);
+                } else if (wanted > 0 && BEST_FIRST.compare(scored, top.peek()) < 0) {
+                    top.poll();
+                    top.offer(scored);
+                }
+            }
+
+            List<ScoredDoc> ranked = new ArrayList<>(top);
+            ranked.sort(BEST_FIRST);
+            List<Long> hitIds = new ArrayList<>();
+            List<Double> hitScores = new ArrayList<>();
+            for (int i = offset; i < ranked.size(); i++) {
+                hitIds.add(ranked.get(i).id());
+                hitScores.add(ranked.get(i).score());
+            }
+            return new Hits(totalHits, hitIds, hitScores);
+        }
+
+        /**
+         * Similarity of the most similar match containing the book, or -1 if none does
+         */
+        private static double bestSimilarity(List<WordMatch> matches, int doc) {
+            for (WordMatch match : matches) {
+                if (match.books().contains(doc)) {
+                    return match.similarity();
+                }
+            }
+            return -1;
+        }
+
+        private static long postingCount(List<WordMatch> matches) {
+            long count = 0;
+            for (WordMatch match : matches) {
+                count += match.books().size;
+            }
+            return count;
+        }
+
+        private int append(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            ordinals.put(id, size);
+            liveCount++;
+            return size++;
+        }
+    }
+}
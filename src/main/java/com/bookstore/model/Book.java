@@ -1,5 +1,6 @@
 package com.bookstore.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -10,6 +11,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -18,7 +24,21 @@ import java.time.LocalDate;
  * Book entity representing a book in the bookstore
  */
 @Entity
-@Table(name = "books")
+@Table(name = "books",
+        uniqueConstraints = @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn"),
+        // Secondary indexes for genre, date and price filters and bulk deletes by publisher;
+        // QueryPlanTest checks they are used
+        indexes = {
+                @Index(name = "idx_books_genre", columnList = "genre"),
+                @Index(name = "idx_books_publication_date", columnList = "publication_date"),
+                @Index(name = "idx_books_price", columnList = "price"),
+                @Index(name = "idx_books_genre_price", columnList = "genre, price"),
+                @Index(name = "idx_books_publisher", columnList = "publisher")
+        })
+// Second-level cache regions, only in use with the l2cache profile (see hibernate-jcache.conf)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+@NaturalIdCache(region = Book.NATURAL_ID_CACHE_REGION)
 // Removed Lombok annotations and replaced with manual implementations
 // @Data
 // @NoArgsConstructor
@@ -26,9 +46,18 @@ import java.time.LocalDate;
 // @Builder
 public class Book {
 
+    // Name of the unique ISBN constraint, used to recognize ISBN conflicts reported by the database
+    public static final String ISBN_CONSTRAINT = "uk_books_isbn";
+
+    // Second-level cache regions of books by ID and of book IDs by ISBN
+    public static final String CACHE_REGION = "books";
+    public static final String NATURAL_ID_CACHE_REGION = "books-by-isbn";
+
     @Id
-    // Only auto-generate IDs for new entities when no ID is specified
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Only auto-generate IDs for new entities when no ID is specified.
+    // A pooled sequence (instead of IDENTITY) lets Hibernate batch inserts.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -43,7 +72,8 @@ public class Book {
 
     @NotBlank(message = "ISBN is required")
     @Size(min = 10, max = 13, message = "ISBN must be between 10 and 13 characters")
-    @Column(nullable = false, unique = true)
+    @NaturalId(mutable = true)
+    @Column(nullable = false)
     private String isbn;
 
     @NotNull(message = "Publication date is required")
@@ -73,6 +103,14 @@ public class Book {
     @Column(nullable = false)
     private Genre genre;
 
+    // Incremented by Hibernate on every update; drives the ETag of the book.
+    // Read-only in JSON so clients cannot make a new book look like an existing one.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     /**
      * Enum representing book genres
      */
@@ -124,6 +162,13 @@ public class Book {
         this.genre = genre;
     }
     
+    // Copy constructor, used to keep detached snapshots of a book
+    public Book(Book source) {
+        this(source.id, source.title, source.author, source.isbn, source.publicationDate,
+                source.price, source.description, source.pageCount, source.publisher, source.genre);
+        this.version = source.version;
+    }
+    
     // Manually added getter and setter methods to work around Lombok issues
     
     public Long getId() {
@@ -205,6 +250,14 @@ public class Book {
     public void setGenre(Genre genre) {
         this.genre = genre;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
     
     // Manual implementation of builder for Lombok @Builder
     public static BookBuilder builder() {
@@ -0,0 +1,95 @@
+package com.bookstore.model;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Book attributes that can be requested individually with {@code ?fields=}.
+ * <p>
+ * The field names are the JSON property names of {@link Book}, which are also its entity
+ * attribute names. The ID is always part of a field set.
+ */
+public enum BookField {
+    ID("id", Book::getId),
+    TITLE("title", Book::getTitle),
+    AUTHOR("author", Book::getAuthor),
+    ISBN("isbn", Book::getIsbn),
+    PUBLICATION_DATE("publicationDate", Book::getPublicationDate),
+    PRICE("price", Book::getPrice),
+    DESCRIPTION("description", Book::getDescription),
+    PAGE_COUNT("pageCount", Book::getPageCount),
+    PUBLISHER("publisher", Book::getPublisher),
+    GENRE("genre", Book::getGenre),
+    VERSION("version", Book::getVersion);
+
+    private final String attribute;
+    private final Function<Book, Object> getter;
+
+    BookField(String attribute, Function<Book, Object> getter) {
+        this.attribute = attribute;
+        this.getter = getter;
+    }
+
+    /**
+     * Get the entity attribute (and JSON property) name of the field
+     *
+     * @return The attribute name
+     */
+    public String attribute() {
+        return attribute;
+    }
+
+    /**
+     * Parse a comma-separated list of field names
+     *
+     * @param fields The field names, e.g. {@code "title,author,price"}
+     * @return The requested fields plus the ID, in declaration order
+     * @throws IllegalArgumentException If a field name is unknown
+     */
+    public static Set<BookField> parse(String fields) {
+        Set<BookField> parsed = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                parsed.add(of(trimmed));
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Look up a field by its attribute name
+     *
+     * @param name The attribute name, e.g. {@code "publicationDate"}
+     * @return The field
+     * @throws IllegalArgumentException If the name is unknown
+     */
+    public static BookField of(String name) {
+        return Arrays.stream(values())
+                .filter(field -> field.attribute.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown field '" + name
+                        + "', expected any of " + Arrays.stream(values())
+                        .map(BookField::attribute).collect(Collectors.joining(","))));
+    }
+
+    /**
+     * Copy the given fields of a book into a map, for a book that is already in memory
+     *
+     * @param book The book
+     * @param fields The fields to copy
+     * @return The field values by attribute name, in declaration order
+     */
+    public static Map<String, Object> project(Book book, Set<BookField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (BookField field : fields) {
+            values.put(field.attribute, field.getter.apply(book));
+        }
+        return values;
+    }
+}
@@ -1,25 +1,36 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Book entity
  */
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookRepositoryCustom {
     
     /**
-     * Find a book by its ISBN
+     * Find which of the given ISBNs are already used, with a single IN query
      * 
-     * @param isbn The ISBN to search for
-     * @return Optional containing the book if found
+     * @param isbns The ISBNs to check
+     * @return The subset of the ISBNs that already exist
      */
-    Optional<Book> findByIsbn(String isbn);
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
     
     /**
      * Find all books by a specific author
@@ -43,5 +54,60 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      * @param genre The genre to search for
      * @return List of books in the specified genre
      */
+    // Result IDs are kept in the query cache with the l2cache profile, the books in the entity region
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Book> findByGenre(Book.Genre genre);
+    
+    /**
+     * Find the books whose id is greater than the given one (keyset pagination)
+     * 
+     * @param afterId The id after which the page starts
+     * @param pageable The page size and sort order (expected to sort by id)
+     * @return Slice of books following the given id
+     */
+    Slice<Book> findByIdGreaterThan(Long afterId, Pageable pageable);
+    
+    /**
+     * Find one page of books by author, starting after the given id
+     * 
+     * @param author The author to search for
+     * @param afterId The id after which the page starts
+     * @param pageable The page size and sort order (expected to sort by id)
+     * @return Slice of books by the author
+     */
+    Slice<Book> findByAuthorContainingIgnoreCaseAndIdGreaterThan(String author, Long afterId, Pageable pageable);
+    
+    /**
+     * Find one page of books by title, starting after the given id
+     * 
+     * @param title The title to search for
+     * @param afterId The id after which the page starts
+     * @param pageable The page size and sort order (expected to sort by id)
+     * @return Slice of books matching the title search
+     */
+    Slice<Book> findByTitleContainingIgnoreCaseAndIdGreaterThan(String title, Long afterId, Pageable pageable);
+    
+    /**
+     * Find one page of books by genre, starting after the given id
+     * 
+     * @param genre The genre to search for
+     * @param afterId The id after which the page starts
+     * @param pageable The page size and sort order (expected to sort by id)
+     * @return Slice of books in the specified genre
+     */
+    Slice<Book> findByGenreAndIdGreaterThan(Book.Genre genre, Long afterId, Pageable pageable);
+    
+    /**
+     * Stream all books in id order without materializing the whole table.
+     * Rows are fetched from the driver in chunks of the configured fetch size and
+     * loaded read-only; the stream must be consumed inside a transaction and closed.
+     * 
+     * @return Stream of all books ordered by id
+     */
+    @Query("select b from Book b order by b.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAll();
 }
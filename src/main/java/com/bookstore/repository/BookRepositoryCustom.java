@@ -0,0 +1,110 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Book repository operations that derived and annotated queries cannot express
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Find a book by its ISBN, the natural ID of books
+     * <p>
+     * With the second-level cache enabled, both the ISBN and the book are resolved from the
+     * cache, without SQL.
+     *
+     * @param isbn The ISBN to search for
+     * @return Optional containing the book if found
+     */
+    @Transactional(readOnly = true)
+    Optional<Book> findByIsbn(String isbn);
+
+    /**
+     * Insert or update a book by ID in a single MERGE statement.
+     * <p>
+     * The statement bypasses the persistence context: entities already loaded in the current
+     * transaction are not refreshed. The book is evicted from the second-level cache instead,
+     * and cached query results are invalidated.
+     *
+     * @param book The book to write; its ID selects the row, its version is ignored
+     * @return The row as written, with version 0 if it was inserted
+     * @throws org.springframework.dao.DuplicateKeyException If the ISBN belongs to another book;
+     *         a concurrent insert of the same ID is retried and never reported this way
+     */
+    Book upsert(Book book);
+
+    /**
+     * Multiply the price of every book of a genre in a single UPDATE statement, selecting the
+     * updated rows in the same round trip.
+     * Prices are rounded to cents and never drop below one cent; versions are incremented.
+     * <p>
+     * The persistence context is flushed before and cleared after the statement; the updated
+     * books are evicted from the second-level cache and cached query results are invalidated.
+     *
+     * @param genre The genre of the books to reprice
+     * @param factor The positive factor to multiply the prices by
+     * @return The updated books as written
+     */
+    @Transactional
+    List<Book> multiplyPriceByGenre(Book.Genre genre, BigDecimal factor);
+
+    /**
+     * Delete every book of a publisher in a single DELETE statement, selecting the IDs of the
+     * deleted rows in the same round trip, so a book inserted concurrently is never deleted
+     * without being reported.
+     * <p>
+     * The persistence context is flushed before and cleared after the statement; the deleted
+     * books are evicted from the second-level cache and cached query results are invalidated.
+     *
+     * @param publisher The exact publisher name
+     * @return The IDs of the deleted books
+     */
+    @Transactional
+    List<Long> deleteAllByPublisher(String publisher);
+
+    /**
+     * Find one page of books without counting all matches
+     * <p>
+     * One row more than the page size is fetched to tell whether another page follows.
+     *
+     * @param spec The condition on the books, {@code null} for all books
+     * @param pageable The page to fetch and its sort order
+     * @return Slice of matching books
+     */
+    Slice<Book> findSlice(Specification<Book> spec, Pageable pageable);
+
+    /**
+     * Find one page of books, selecting only the given fields
+     * <p>
+     * Only the requested columns are read from the database, and the rows are plain maps that
+     * never enter the persistence context.
+     *
+     * @param spec The condition on the books, {@code null} for all books
+     * @param fields The fields to select
+     * @param pageable The page to fetch and its sort order, may be unpaged
+     * @return Slice of field values by attribute name
+     */
+    Slice<Map<String, Object>> findFields(Specification<Book> spec, Set<BookField> fields, Pageable pageable);
+
+    /**
+     * Stream all books ordered by ID, selecting only the given fields
+     * <p>
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @param fields The fields to select
+     * @return Stream of field values by attribute name
+     */
+    Stream<Map<String, Object>> streamFields(Set<BookField> fields);
+}
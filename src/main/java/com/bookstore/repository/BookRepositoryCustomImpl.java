@@ -0,0 +1,278 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link BookRepositoryCustom}: the lookup by natural ID, the upsert and bulk
+ * statements in plain JDBC, the slices and field projections as Criteria queries
+ */
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    /**
+     * Merges the book by ID and selects the resulting row in the same round trip. Updates
+     * increment the version, inserts start it at 0, so the version tells the two apart.
+     */
+    static final String UPSERT = """
+            SELECT * FROM FINAL TABLE (
+                MERGE INTO books b
+                USING (VALUES (CAST(? AS BIGINT), ?, ?, ?, CAST(? AS DATE), CAST(? AS NUMERIC(38, 2)),
+                               ?, CAST(? AS INTEGER), ?, ?))
+                    AS s (id, title, author, isbn, publication_date, price, description, page_count, publisher, genre)
+                ON b.id = s.id
+                WHEN MATCHED THEN UPDATE SET
+                    title = s.title, author = s.author, isbn = s.isbn, publication_date = s.publication_date,
+                    price = s.price, description = s.description, page_count = s.page_count,
+                    publisher = s.publisher, genre = s.genre, version = b.version + 1
+                WHEN NOT MATCHED THEN INSERT
+                    (id, title, author, isbn, publication_date, price, description, page_count, publisher, genre, version)
+                    VALUES (s.id, s.title, s.author, s.isbn, s.publication_date, s.price, s.description,
+                            s.page_count, s.publisher, s.genre, 0)
+            )
+            """;
+
+    /**
+     * Reprices the books of a genre and selects the updated rows in the same round trip
+     */
+    static final String REPRICE = """
+            SELECT * FROM FINAL TABLE (
+                UPDATE books
+                SET price = GREATEST(ROUND(price * CAST(? AS NUMERIC(19, 6)), 2), 0.01), version = version + 1
+                WHERE genre = ?
+            )
+            """;
+
+    /**
+     * Deletes the books of a publisher and selects the IDs of the deleted rows in the same round trip
+     */
+    static final String DELETE_BY_PUBLISHER = """
+            SELECT id FROM OLD TABLE (
+                DELETE FROM books WHERE publisher = ?
+            )
+            """;
+
+    private static final RowMapper<Book> BOOK_ROW_MAPPER = (rs, rowNum) -> {
+        Book book = Book.builder()
+                .id(rs.getLong("id"))
+                .title(rs.getString("title"))
+                .author(rs.getString("author"))
+                .isbn(rs.getString("isbn"))
+                .publicationDate(rs.getObject("publication_date", LocalDate.class))
+                .price(rs.getBigDecimal("price"))
+                .description(rs.getString("description"))
+                .pageCount(rs.getInt("page_count"))
+                .publisher(rs.getString("publisher"))
+                .genre(Book.Genre.valueOf(rs.getString("genre")))
+                .build();
+        book.setVersion(rs.getLong("version"));
+        return book;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public BookRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Book.class).loadOptional(isbn);
+    }
+
+    @Override
+    public Book upsert(Book book) {
+        Book written = write(book);
+        evictCachedState(List.of(written.getId()));
+        return written;
+    }
+
+    @Override
+    public List<Book> multiplyPriceByGenre(Book.Genre genre, BigDecimal factor) {
+        entityManager.flush();
+        List<Book> repriced = jdbcTemplate.query(REPRICE, BOOK_ROW_MAPPER, factor, genre.name());
+        entityManager.clear();
+        evictCachedState(repriced.stream().map(Book::getId).toList());
+        return repriced;
+    }
+
+    @Override
+    public List<Long> deleteAllByPublisher(String publisher) {
+        entityManager.flush();
+        List<Long> ids = jdbcTemplate.queryForList(DELETE_BY_PUBLISHER, Long.class, publisher);
+        entityManager.clear();
+        evictCachedState(ids);
+        return ids;
+    }
+
+    private Book write(Book book) {
+        try {
+            return merge(book);
+        } catch (DuplicateKeyException e) {
+            if (isIsbnConflict(e)) {
+                throw e;
+            }
+            // A concurrent upsert inserted the same ID first: the row exists now, so merging
+            // again updates it. H2 only rolls back the failed statement, not the transaction.
+            try {
+                return merge(book);
+            } catch (DuplicateKeyException retryFailure) {
+                if (isIsbnConflict(retryFailure)) {
+                    throw retryFailure;
+                }
+                throw new ConcurrencyFailureException("Concurrent upserts of book " + book.getId(), retryFailure);
+            }
+        }
+    }
+
+    @Override
+    public Slice<Book> findSlice(Specification<Book> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+        where(query, root, cb, spec);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        return slice(entityManager.createQuery(query), pageable, rows -> rows);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findFields(Specification<Book> spec, Set<BookField> fields, Pageable pageable) {
+        TypedQuery<Tuple> query = fieldsQuery(spec, fields, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(toMaps(query.getResultList(), fields));
+        }
+        return slice(query, pageable, tuples -> toMaps(tuples, fields));
+    }
+
+    @Override
+    public Stream<Map<String, Object>> streamFields(Set<BookField> fields) {
+        return fieldsQuery(null, fields, Sort.by("id"))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .getResultStream()
+                .map(tuple -> toMap(tuple, fields));
+    }
+
+    private TypedQuery<Tuple> fieldsQuery(Specification<Book> spec, Set<BookField> fields, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        query.multiselect(fields.stream()
+                .<Selection<?>>map(field -> root.get(field.attribute()).alias(field.attribute()))
+                .toList());
+        where(query, root, cb, spec);
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private static void where(CriteriaQuery<?> query, Root<Book> root, CriteriaBuilder cb, Specification<Book> spec) {
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+    }
+
+    /**
+     * Fetch one page, plus one extra row that tells whether another page follows without a count query
+     */
+    private static <R, T> Slice<T> slice(TypedQuery<R> query, Pageable pageable, Function<List<R>, List<T>> mapper) {
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<T> rows = mapper.apply(query.getResultList());
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> tuples, Set<BookField> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(toMap(tuple, fields));
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> toMap(Tuple tuple, Set<BookField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (BookField field : fields) {
+            row.put(field.attribute(), tuple.get(field.attribute()));
+        }
+        return row;
+    }
+
+    private Book merge(Book book) {
+        return jdbcTemplate.queryForObject(UPSERT, BOOK_ROW_MAPPER,
+                book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublicationDate(),
+                book.getPrice(), book.getDescription(), book.getPageCount(), book.getPublisher(),
+                book.getGenre() == null ? null : book.getGenre().name());
+    }
+
+    /**
+     * Evict books written behind Hibernate's back from the second-level cache, now and once the
+     * transaction has completed (readers may cache the old rows again until then)
+     */
+    private void evictCachedState(List<Long> ids) {
+        evict(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(ids);
+                }
+            });
+        }
+    }
+
+    private void evict(List<Long> ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        for (Long id : ids) {
+            cache.evictEntityData(Book.class, id);
+        }
+        // The ISBNs may have changed or gone, and natural IDs cannot be evicted one by one
+        cache.evictNaturalIdData(Book.class);
+        cache.evictQueryRegions();
+    }
+
+    private static boolean isIsbnConflict(DuplicateKeyException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Book.ISBN_CONSTRAINT);
+    }
+}
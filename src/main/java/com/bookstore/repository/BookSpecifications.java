@@ -0,0 +1,109 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.BookQuery;
+import com.bookstore.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reusable query predicates on books
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> idGreaterThan(long afterId) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), afterId);
+    }
+
+    public static Specification<Book> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Book> authorContains(String author) {
+        return containsIgnoreCase("author", author);
+    }
+
+    public static Specification<Book> titleContains(String title) {
+        return containsIgnoreCase("title", title);
+    }
+
+    public static Specification<Book> genreIs(Book.Genre genre) {
+        return (root, query, cb) -> cb.equal(root.get("genre"), genre);
+    }
+
+    public static Specification<Book> genreIn(Collection<Book.Genre> genres) {
+        return (root, query, cb) -> root.get("genre").in(genres);
+    }
+
+    public static Specification<Book> priceBetween(BigDecimal min, BigDecimal max) {
+        return between("price", min, max);
+    }
+
+    public static Specification<Book> publishedBetween(LocalDate from, LocalDate to) {
+        return between("publicationDate", from, to);
+    }
+
+    public static Specification<Book> pageCountBetween(Integer min, Integer max) {
+        return between("pageCount", min, max);
+    }
+
+    /**
+     * Combine the criteria of a query into one condition
+     *
+     * @param bookQuery The criteria, any of which may be absent
+     * @return The conjunction of the given criteria
+     */
+    public static Specification<Book> matching(BookQuery bookQuery) {
+        List<Specification<Book>> specs = new ArrayList<>();
+        if (bookQuery.genres() != null && !bookQuery.genres().isEmpty()) {
+            specs.add(genreIn(bookQuery.genres()));
+        }
+        if (bookQuery.author() != null) {
+            specs.add(authorContains(bookQuery.author()));
+        }
+        if (bookQuery.title() != null) {
+            specs.add(titleContains(bookQuery.title()));
+        }
+        if (bookQuery.minPrice() != null || bookQuery.maxPrice() != null) {
+            specs.add(priceBetween(bookQuery.minPrice(), bookQuery.maxPrice()));
+        }
+        if (bookQuery.publishedFrom() != null || bookQuery.publishedTo() != null) {
+            specs.add(publishedBetween(bookQuery.publishedFrom(), bookQuery.publishedTo()));
+        }
+        if (bookQuery.minPages() != null || bookQuery.maxPages() != null) {
+            specs.add(pageCountBetween(bookQuery.minPages(), bookQuery.maxPages()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    /**
+     * Inclusive range on an attribute, open-ended on a {@code null} bound
+     */
+    private static <T extends Comparable<? super T>> Specification<Book> between(String attribute, T min, T max) {
+        return (root, query, cb) -> {
+            if (min != null && max != null) {
+                return cb.between(root.get(attribute), min, max);
+            }
+            return min != null
+                    ? cb.greaterThanOrEqualTo(root.get(attribute), min)
+                    : cb.lessThanOrEqualTo(root.get(attribute), max);
+        };
+    }
+
+    /**
+     * Same matching as the derived {@code ...ContainingIgnoreCase} queries, with LIKE wildcards escaped
+     */
+    private static Specification<Book> containsIgnoreCase(String attribute, String value) {
+        String pattern = "%" + value.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(attribute)), pattern, '\\');
+    }
+}
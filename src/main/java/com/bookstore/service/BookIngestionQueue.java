@@ -0,0 +1,205 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.dto.IngestionStatus;
+import com.bookstore.exception.IngestionQueueFullException;
+import com.bookstore.model.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for book creation, enabled with {@code bookstore.ingestion.enabled=true}.
+ * <p>
+ * Submitted books are acknowledged as soon as they are queued. A single committer thread
+ * drains the queue and creates the queued books in groups of up to
+ * {@code bookstore.ingestion.batch-size} with {@link BookService#createBooks}, so a burst of
+ * single-book requests costs one transaction and a few JDBC batches per group instead of one
+ * commit per book. The bounded queue provides backpressure: when it is full, submissions are
+ * rejected instead of piling up in memory.
+ * <p>
+ * The outcome of every book can be looked up by its tracking ID for
+ * {@code bookstore.ingestion.status-retention} after it was submitted. Queued books are
+ * committed before the application shuts down.
+ */
+@Component
+@ConditionalOnProperty(name = "bookstore.ingestion.enabled", havingValue = "true")
+public class BookIngestionQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookIngestionQueue.class);
+
+    private final BookService bookService;
+    private final BlockingQueue<Submission> queue;
+    private final Cache<String, IngestionStatus> statuses;
+    private final int capacity;
+    private final int batchSize;
+
+    private volatile boolean running;
+    private Thread committer;
+
+    @Autowired
+    public BookIngestionQueue(BookService bookService, MeterRegistry registry,
+                              @Value("${bookstore.ingestion.queue-capacity:10000}") int capacity,
+                              @Value("${bookstore.ingestion.batch-size:500}") int batchSize,
+                              @Value("${bookstore.ingestion.status-retention:1h}") Duration statusRetention) {
+        this.bookService = bookService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.statuses = Caffeine.newBuilder().expireAfterWrite(statusRetention).build();
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        Gauge.builder("bookstore.ingestion.queue.size", queue, BlockingQueue::size)
+                .description("Books waiting to be created by the ingestion committer")
+                .register(registry);
+    }
+
+    /**
+     * Queue a validated book for creation
+     *
+     * @param book The book to create
+     * @return The queued status, with the tracking ID of the book
+     * @throws IngestionQueueFullException If the queue is full
+     */
+    public IngestionStatus submit(Book book) {
+        IngestionStatus queued = IngestionStatus.queued(UUID.randomUUID().toString());
+        // Recorded first, so the committer can never overwrite a final status with it
+        statuses.put(queued.trackingId(), queued);
+        if (!queue.offer(new Submission(queued.trackingId(), book))) {
+            statuses.invalidate(queued.trackingId());
+            throw new IngestionQueueFullException(capacity);
+        }
+        return queued;
+    }
+
+    /**
+     * Get the status of a submitted book
+     *
+     * @param trackingId The tracking ID returned on submission
+     * @return The status, empty if the ID is unknown or its status has expired
+     */
+    public Optional<IngestionStatus> status(String trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        committer = new Thread(this::run, "book-ingestion");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (committer == null) {
+            return;
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server (phase {@code DEFAULT_PHASE - 2048}), so that no book is
+     * submitted after the queue was drained for shutdown
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<Submission> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    commit(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ingestion committer failed", e);
+            }
+        }
+    }
+
+    /**
+     * Create the queued books that are available right now, without waiting for more
+     */
+    void drain() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Submission> batch) {
+        List<Book> books = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            books.add(submission.book());
+        }
+        List<BatchItemResult> results;
+        try {
+            results = bookService.createBooks(books);
+        } catch (DataAccessException e) {
+            // Typically an ISBN inserted by a concurrent synchronous request after the ISBN check:
+            // the whole group was rolled back, so retry its books one by one to isolate the culprit
+            if (batch.size() > 1) {
+                for (Submission submission : batch) {
+                    commit(List.of(submission));
+                }
+            } else {
+                log.warn("Could not create queued book {}", batch.get(0).trackingId(), e);
+                statuses.put(batch.get(0).trackingId(), IngestionStatus.failed(batch.get(0).trackingId(),
+                        "The book could not be created"));
+            }
+            return;
+        } catch (RuntimeException e) {
+            // No connection or transaction could be obtained: nothing tells which book is at fault,
+            // so the whole batch fails rather than being dropped while still reported as queued
+            log.error("Could not create a batch of {} queued books", batch.size(), e);
+            for (Submission submission : batch) {
+                statuses.put(submission.trackingId(), IngestionStatus.failed(submission.trackingId(),
+                        "The book could not be created"));
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            String trackingId = batch.get(i).trackingId();
+            statuses.put(trackingId, IngestionStatus.of(trackingId, results.get(i)));
+        }
+    }
+
+    private record Submission(String trackingId, Book book) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BookRange;
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.dto.Suggestion;
+import com.bookstore.index.TrigramIndex;
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service interface for searches served by the in-memory indexes
+ */
+public interface BookSearchService {
+    
+    /**
+     * Full-text search over title, author and description, ranked by relevance (BM25)
+     * 
+     * @param query The free-text query; matching is case and accent insensitive
+     * @param pageable The page to fetch
+     * @return Page of matching books, best match first
+     */
+    Page<Book> search(String query, Pageable pageable);
+    
+    /**
+     * Full-text search, reading only the given fields of the matching books
+     * 
+     * @param query The free-text query; matching is case and accent insensitive
+     * @param pageable The page to fetch
+     * @param fields The fields to read
+     * @return Page of field values by field name, best match first
+     */
+    Page<Map<String, Object>> search(String query, Pageable pageable, Set<BookField> fields);
+    
+    /**
+     * Count books per genre and per publisher, from in-memory counters (no database access)
+     * 
+     * @param query Free-text query restricting the counted books, {@code null} or blank to count all books
+     * @param maxPublishers The maximum number of publishers to return
+     * @return The counts per genre and the top publishers
+     */
+    FacetCounts facets(String query, int maxPublishers);
+    
+    /**
+     * Find the books in price and publication date ranges, from the in-memory sorted indexes
+     * 
+     * @param range The inclusive bounds, all optional, and an optional genre
+     * @param pageable The page to fetch
+     * @return Page of matching books, by price (or by publication date when only dates are bounded), then by ID
+     */
+    Page<Book> range(BookRange range, Pageable pageable);
+    
+    /**
+     * Find the books in price and publication date ranges, reading only the given fields
+     * 
+     * @param range The inclusive bounds, all optional, and an optional genre
+     * @param pageable The page to fetch
+     * @param fields The fields to read
+     * @return Page of field values by field name, in the same order as {@link #range(BookRange, Pageable)}
+     */
+    Page<Map<String, Object>> range(BookRange range, Pageable pageable, Set<BookField> fields);
+    
+    /**
+     * Suggest book titles and author names for a prefix, from the in-memory trie (no database access)
+     * 
+     * @param prefix The text typed so far, matched at word starts; case and accent insensitive
+     * @param limit The maximum number of suggestions
+     * @return The suggestions, most popular first
+     */
+    List<Suggestion> suggest(String prefix, int limit);
+    
+    /**
+     * Typo-tolerant search of the title or author, from the in-memory trigram index
+     * 
+     * @param field The field to search
+     * @param query The text to look for; every word must match a word of the field within a few typos
+     * @param pageable The page to fetch
+     * @return Page of matching books, most similar first
+     */
+    Page<Book> fuzzySearch(TrigramIndex.Field field, String query, Pageable pageable);
+    
+    /**
+     * Typo-tolerant search of the title or author, reading only the given fields of the matching books
+     * 
+     * @param field The field to search
+     * @param query The text to look for; every word must match a word of the field within a few typos
+     * @param pageable The page to fetch
+     * @param fields The fields to read
+     * @return Page of field values by field name, most similar first
+     */
+    Page<Map<String, Object>> fuzzySearch(TrigramIndex.Field field, String query, Pageable pageable, Set<BookField> fields);
+}
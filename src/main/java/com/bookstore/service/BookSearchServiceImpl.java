@@ -0,0 +1,146 @@
+package com.bookstore.service;
+
+import com.bookstore.config.ReadRouting;
+import com.bookstore.dto.BookRange;
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.dto.Suggestion;
+import com.bookstore.index.FacetIndex;
+import com.bookstore.index.FullTextIndex;
+import com.bookstore.index.RangeIndex;
+import com.bookstore.index.SuggestIndex;
+import com.bookstore.index.TrigramIndex;
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import com.bookstore.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.bookstore.repository.BookSpecifications.idIn;
+
+/**
+ * Implementation of BookSearchService interface
+ * <p>
+ * The hits come from in-memory indexes that follow the writes committed on the primary, so the
+ * books of a page are loaded from the primary as well: a lagging replica could miss them or
+ * return older versions, under the ETag of the current catalog.
+ */
+@Service
+public class BookSearchServiceImpl implements BookSearchService {
+
+    private final FullTextIndex fullTextIndex;
+    private final FacetIndex facetIndex;
+    private final RangeIndex rangeIndex;
+    private final SuggestIndex suggestIndex;
+    private final TrigramIndex trigramIndex;
+    private final BookRepository bookRepository;
+
+    @Autowired
+    public BookSearchServiceImpl(FullTextIndex fullTextIndex, FacetIndex facetIndex, RangeIndex rangeIndex,
+                                 SuggestIndex suggestIndex, TrigramIndex trigramIndex, BookRepository bookRepository) {
+        this.fullTextIndex = fullTextIndex;
+        this.facetIndex = facetIndex;
+        this.rangeIndex = rangeIndex;
+        this.suggestIndex = suggestIndex;
+        this.trigramIndex = trigramIndex;
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public Page<Book> search(String query, Pageable pageable) {
+        FullTextIndex.Hits hits = fullTextIndex.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.totalHits());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> search(String query, Pageable pageable, Set<BookField> fields) {
+        FullTextIndex.Hits hits = fullTextIndex.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadFieldsInOrder(hits.ids(), fields), pageable, hits.totalHits());
+    }
+
+    @Override
+    public FacetCounts facets(String query, int maxPublishers) {
+        if (query == null || query.isBlank()) {
+            return facetIndex.counts(maxPublishers);
+        }
+        return facetIndex.counts(fullTextIndex.matchingIds(query), maxPublishers);
+    }
+
+    @Override
+    public Page<Book> range(BookRange range, Pageable pageable) {
+        RangeIndex.Hits hits = rangeIndex.find(range, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.totalHits());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> range(BookRange range, Pageable pageable, Set<BookField> fields) {
+        RangeIndex.Hits hits = rangeIndex.find(range, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadFieldsInOrder(hits.ids(), fields), pageable, hits.totalHits());
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public Page<Book> fuzzySearch(TrigramIndex.Field field, String query, Pageable pageable) {
+        TrigramIndex.Hits hits = trigramIndex.search(field, query, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.totalHits());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> fuzzySearch(TrigramIndex.Field field, String query, Pageable pageable,
+                                                 Set<BookField> fields) {
+        TrigramIndex.Hits hits = trigramIndex.search(field, query, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadFieldsInOrder(hits.ids(), fields), pageable, hits.totalHits());
+    }
+
+    /**
+     * Load the books of a page of hits with one query, keeping the order of the hits
+     */
+    private List<Book> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return inHitOrder(ids, ReadRouting.onPrimary(() -> bookRepository.findAllById(ids)), Book::getId);
+    }
+
+    private List<Map<String, Object>> loadFieldsInOrder(List<Long> ids, Set<BookField> fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Map<String, Object>> rows = ReadRouting.onPrimary(
+                () -> bookRepository.findFields(idIn(ids), fields, Pageable.unpaged()).getContent());
+        return inHitOrder(ids, rows, row -> (Long) row.get(BookField.ID.attribute()));
+    }
+
+    private static <T> List<T> inHitOrder(List<Long> ids, Iterable<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : rows) {
+            byId.put(idOf.apply(row), row);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            // A book deleted after the index was read is simply skipped
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+}
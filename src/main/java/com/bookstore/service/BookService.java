@@ -1,8 +1,18 @@
 package com.bookstore.service;
 
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.dto.BookQuery;
+import com.bookstore.dto.UpsertResult;
 import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Service interface for Book operations
@@ -16,6 +26,43 @@ public interface BookService {
      */
     List<Book> getAllBooks();
     
+    /**
+     * Get one page of books ordered by id
+     * 
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @return Slice of books
+     */
+    Slice<Book> getBooks(long afterId, Pageable pageable);
+    
+    /**
+     * Get one page of books ordered by id, reading only the given fields
+     * 
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @param fields The fields to read
+     * @return Slice of field values by field name
+     */
+    Slice<Map<String, Object>> getBooks(long afterId, Pageable pageable, Set<BookField> fields);
+    
+    /**
+     * Pass every book, in id order, to the given consumer. Books are streamed from the
+     * database and detached once consumed, so memory use does not grow with the catalog size.
+     * 
+     * @param consumer The consumer receiving each book
+     * @return The number of books exported
+     */
+    long exportBooks(Consumer<Book> consumer);
+    
+    /**
+     * Pass the given fields of every book, in id order, to the given consumer
+     * 
+     * @param fields The fields to read
+     * @param consumer The consumer receiving the field values of each book
+     * @return The number of books exported
+     */
+    long exportBooks(Set<BookField> fields, Consumer<Map<String, Object>> consumer);
+    
     /**
      * Get a book by its ID
      * 
@@ -42,6 +89,16 @@ public interface BookService {
      */
     Book createBook(Book book);
     
+    /**
+     * Create many books in one transaction. Each book is validated and checked for ISBN
+     * uniqueness (within the batch and against existing books, with a single query); the
+     * accepted books are inserted with JDBC batching. IDs are always generated.
+     * 
+     * @param books The books to create
+     * @return One result per book, in request order
+     */
+    List<BatchItemResult> createBooks(List<Book> books);
+    
     /**
      * Update an existing book or create it if it doesn't exist
      * 
@@ -51,6 +108,16 @@ public interface BookService {
      */
     Book updateBook(Long id, Book bookDetails);
     
+    /**
+     * Update an existing book or create it if it doesn't exist, in a single statement
+     * 
+     * @param id The ID of the book to update or create
+     * @param bookDetails The new book details
+     * @return The updated or created book, and whether it was created
+     * @throws com.bookstore.exception.DuplicateIsbnException if another book has the same ISBN
+     */
+    UpsertResult upsertBook(Long id, Book bookDetails);
+    
     /**
      * Delete a book by its ID
      * 
@@ -60,6 +127,25 @@ public interface BookService {
      */
     boolean deleteBook(Long id);
     
+    /**
+     * Multiply the price of every book of a genre with a single bulk UPDATE.
+     * Prices are rounded to cents, and caches and indexes are updated once the change is committed.
+     * 
+     * @param genre The genre of the books to reprice
+     * @param factor The positive factor to multiply the prices by, e.g. 0.9 for a 10% discount
+     * @return The number of updated books
+     */
+    int repriceBooks(Book.Genre genre, BigDecimal factor);
+    
+    /**
+     * Delete every book of a publisher with a single bulk DELETE.
+     * Caches and indexes are updated once the change is committed.
+     * 
+     * @param publisher The exact publisher name
+     * @return The number of deleted books
+     */
+    int deleteBooksByPublisher(String publisher);
+    
     /**
      * Search for books by author
      * 
@@ -68,6 +154,27 @@ public interface BookService {
      */
     List<Book> findBooksByAuthor(String author);
     
+    /**
+     * Get one page of the books returned by {@link #findBooksByAuthor(String)}
+     * 
+     * @param author The author to search for
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @return Slice of matching books
+     */
+    Slice<Book> findBooksByAuthor(String author, long afterId, Pageable pageable);
+    
+    /**
+     * Get one page of the books returned by {@link #findBooksByAuthor(String)}, reading only the given fields
+     * 
+     * @param author The author to search for
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @param fields The fields to read
+     * @return Slice of field values by field name
+     */
+    Slice<Map<String, Object>> findBooksByAuthor(String author, long afterId, Pageable pageable, Set<BookField> fields);
+    
     /**
      * Search for books by title
      * 
@@ -76,6 +183,27 @@ public interface BookService {
      */
     List<Book> findBooksByTitle(String title);
     
+    /**
+     * Get one page of the books returned by {@link #findBooksByTitle(String)}
+     * 
+     * @param title The title to search for
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @return Slice of matching books
+     */
+    Slice<Book> findBooksByTitle(String title, long afterId, Pageable pageable);
+    
+    /**
+     * Get one page of the books returned by {@link #findBooksByTitle(String)}, reading only the given fields
+     * 
+     * @param title The title to search for
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @param fields The fields to read
+     * @return Slice of field values by field name
+     */
+    Slice<Map<String, Object>> findBooksByTitle(String title, long afterId, Pageable pageable, Set<BookField> fields);
+    
     /**
      * Search for books by genre
      * 
@@ -83,4 +211,52 @@ public interface BookService {
      * @return List of books in the specified genre
      */
     List<Book> findBooksByGenre(Book.Genre genre);
+    
+    /**
+     * Get one page of the books returned by {@link #findBooksByGenre(Book.Genre)}
+     * 
+     * @param genre The genre to search for
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @return Slice of matching books
+     */
+    Slice<Book> findBooksByGenre(Book.Genre genre, long afterId, Pageable pageable);
+    
+    /**
+     * Get one page of the books returned by {@link #findBooksByGenre(Book.Genre)}, reading only the given fields
+     * 
+     * @param genre The genre to search for
+     * @param afterId Only books with an id greater than this one are returned
+     * @param pageable The page to fetch (sorted by id)
+     * @param fields The fields to read
+     * @return Slice of field values by field name
+     */
+    Slice<Map<String, Object>> findBooksByGenre(Book.Genre genre, long afterId, Pageable pageable, Set<BookField> fields);
+    
+    /**
+     * Get one page of the books matching all given criteria, without counting all matches
+     * 
+     * @param query The criteria
+     * @param pageable The page to fetch and its sort order
+     * @return Slice of matching books
+     */
+    Slice<Book> queryBooks(BookQuery query, Pageable pageable);
+    
+    /**
+     * Get one page of the books matching all given criteria, reading only the given fields
+     * 
+     * @param query The criteria
+     * @param pageable The page to fetch and its sort order
+     * @param fields The fields to read
+     * @return Slice of field values by field name
+     */
+    Slice<Map<String, Object>> queryBooks(BookQuery query, Pageable pageable, Set<BookField> fields);
+    
+    /**
+     * Count the books matching all given criteria
+     * 
+     * @param query The criteria
+     * @return The number of matching books
+     */
+    long countBooks(BookQuery query);
 }
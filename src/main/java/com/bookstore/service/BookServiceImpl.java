@@ -1,46 +1,136 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.BookCache;
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.dto.BookQuery;
+import com.bookstore.dto.UpsertResult;
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.exception.DuplicateIsbnException;
 import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.index.CatalogSnapshot;
 import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
 import com.bookstore.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.bookstore.repository.BookSpecifications.authorContains;
+import static com.bookstore.repository.BookSpecifications.genreIs;
+import static com.bookstore.repository.BookSpecifications.idGreaterThan;
+import static com.bookstore.repository.BookSpecifications.matching;
+import static com.bookstore.repository.BookSpecifications.titleContains;
 
 /**
  * Implementation of BookService interface
+ * <p>
+ * Every method is timed as {@code bookstore.book.service}, tagged with the method name.
  */
 @Service
+@Timed(value = "bookstore.book.service", histogram = true)
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
-    
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final EntityManager entityManager;
+    private final BookCache bookCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectProvider<CatalogSnapshot> catalogSnapshot;
 
     @Autowired
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, EntityManager entityManager,
+                           BookCache bookCache, ApplicationEventPublisher eventPublisher,
+                           Validator validator, ObjectProvider<CatalogSnapshot> catalogSnapshot) {
         this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.bookCache = bookCache;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.catalogSnapshot = catalogSnapshot;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
         return bookRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> getBooks(long afterId, Pageable pageable) {
+        return bookRepository.findByIdGreaterThan(afterId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getBooks(long afterId, Pageable pageable, Set<BookField> fields) {
+        return bookRepository.findFields(idGreaterThan(afterId), fields, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(Consumer<Book> consumer) {
+        long count = 0;
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                consumer.accept(book);
+                // Detach so the persistence context does not grow with every exported row
+                entityManager.detach(book);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(Set<BookField> fields, Consumer<Map<String, Object>> consumer) {
+        long count = 0;
+        try (Stream<Map<String, Object>> rows = bookRepository.streamFields(fields)) {
+            Iterator<Map<String, Object>> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Not transactional: cache hits need no connection, and the loaders run in the repository's
+    // read-only transaction
+
     @Override
     public Book getBookById(Long id) {
-        return bookRepository.findById(id)
+        return bookCache.getById(id, bookRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
     }
 
     @Override
     public Book getBookByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn)
+        return bookCache.getByIsbn(isbn, bookRepository::findByIsbn)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with ISBN: " + isbn));
     }
 
@@ -49,102 +139,223 @@ public class BookServiceImpl implements BookService {
     public Book createBook(Book book) {
         // Check if ISBN already exists
         bookRepository.findByIsbn(book.getIsbn()).ifPresent(existingBook -> {
-            throw new IllegalArgumentException("Book with ISBN " + book.getIsbn() + " already exists");
+            throw new DuplicateIsbnException(book.getIsbn());
         });
         
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.created(savedBook));
+        return savedBook;
     }
 
     @Override
     @Transactional
-    public Book updateBook(Long id, Book bookDetails) {
-        Book book;
-        boolean isNewBook = false;
+    public List<BatchItemResult> createBooks(List<Book> books) {
+        BatchItemResult[] results = new BatchItemResult[books.size()];
+        Map<String, Integer> indexByIsbn = new HashMap<>();
         
-        try {
-            // Try to find the book first
-            book = getBookById(id);
-        } catch (ResourceNotFoundException e) {
-            // If book doesn't exist, create a new one with the specified ID
-            book = new Book();
-            book.setId(id); // Explicitly set the ID to the requested ID
-            isNewBook = true;
-            
-            // Check if a book with this ID already exists (safety check)
-            if (bookRepository.existsById(id)) {
-                throw new IllegalArgumentException("Book with ID " + id + " already exists");
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            Set<ConstraintViolation<Book>> violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                results[i] = BatchItemResult.invalid(i, describe(violations));
+            } else if (indexByIsbn.putIfAbsent(book.getIsbn(), i) != null) {
+                results[i] = BatchItemResult.conflict(i, "Duplicate ISBN " + book.getIsbn() + " within the batch");
             }
         }
         
-        // Always check ISBN uniqueness when ISBN is provided, but handle differently for new vs existing books
-        if (bookDetails.getIsbn() != null) {
-            // If this is a new book or we're changing the ISBN of an existing book
-            if (isNewBook || book.getIsbn() == null || !bookDetails.getIsbn().equals(book.getIsbn())) {
-                bookRepository.findByIsbn(bookDetails.getIsbn()).ifPresent(existingBook -> {
-                    // Only throw if the existing book with this ISBN is different from the one we're updating
-                    if (!existingBook.getId().equals(id)) {
-                        throw new IllegalArgumentException("Book with ISBN " + bookDetails.getIsbn() + " already exists");
-                    }
-                });
+        // One IN query instead of a findByIsbn round trip per book
+        Set<String> existingIsbns = indexByIsbn.isEmpty()
+                ? Set.of()
+                : bookRepository.findExistingIsbns(indexByIsbn.keySet());
+        
+        List<Book> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : indexByIsbn.entrySet()) {
+            int index = entry.getValue();
+            if (existingIsbns.contains(entry.getKey())) {
+                results[index] = BatchItemResult.conflict(index, "Book with ISBN " + entry.getKey() + " already exists");
+            } else {
+                Book book = books.get(index);
+                // IDs are always generated, so every book is a plain insert
+                book.setId(null);
+                accepted.add(book);
+                acceptedIndexes.add(index);
             }
         }
         
-        // Update book fields
-        book.setTitle(bookDetails.getTitle());
-        book.setAuthor(bookDetails.getAuthor());
-        book.setIsbn(bookDetails.getIsbn());
-        book.setPublicationDate(bookDetails.getPublicationDate());
-        book.setPrice(bookDetails.getPrice());
-        book.setDescription(bookDetails.getDescription());
-        book.setPageCount(bookDetails.getPageCount());
-        book.setPublisher(bookDetails.getPublisher());
-        book.setGenre(bookDetails.getGenre());
+        // Inserts are sent in JDBC batches of hibernate.jdbc.batch_size at flush time
+        List<Book> saved = bookRepository.saveAll(accepted);
+        bookRepository.flush();
         
-        // Special handling for new books with pre-assigned IDs
-        if (isNewBook) {
-            // For new books with manual IDs, we need a specialized approach
-            // First check that no book with this ID exists
-            if (bookRepository.existsById(id)) {
-                throw new IllegalArgumentException("Cannot create book with ID " + id + " as it already exists");
-            }
-            
-            // Using the EntityManager directly to merge the entity with its ID
-            // This approach preserves the manually assigned ID
-            book = entityManager.merge(book);
-            entityManager.flush(); // Ensure the entity is persisted immediately
-            
-            // Verify the ID was preserved
-            if (!book.getId().equals(id)) {
-                throw new IllegalStateException("Failed to preserve requested ID " + id + " when creating new book");
-            }
-            
-            return book;
-        } else {
-            // Normal update for existing books
-            return bookRepository.save(book);
+        for (int i = 0; i < saved.size(); i++) {
+            Book book = saved.get(i);
+            results[acceptedIndexes.get(i)] = BatchItemResult.created(acceptedIndexes.get(i), book.getId());
+            eventPublisher.publishEvent(BookChangedEvent.created(book));
         }
+        return List.of(results);
+    }
+
+    @Override
+    @Transactional
+    public Book updateBook(Long id, Book bookDetails) {
+        return upsertBook(id, bookDetails).book();
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertBook(Long id, Book bookDetails) {
+        // One MERGE round trip: no existence check, and ISBN conflicts are reported by the
+        // unique constraint instead of being looked up first
+        Book book = new Book(bookDetails);
+        book.setId(id);
+        Book written;
+        try {
+            written = bookRepository.upsert(book);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateIsbnException(book.getIsbn());
+        }
+        boolean created = written.getVersion() == 0;
+        eventPublisher.publishEvent(created ? BookChangedEvent.created(written) : BookChangedEvent.updated(written));
+        return new UpsertResult(written, created);
     }
 
     @Override
     @Transactional
     public boolean deleteBook(Long id) {
-        Book book = getBookById(id);
+        Book book = loadBook(id);
         bookRepository.delete(book);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
         return true;
     }
 
     @Override
+    @Transactional
+    public int repriceBooks(Book.Genre genre, BigDecimal factor) {
+        // The statement returns the rows as written, so no book of the genre is loaded again
+        List<Book> repriced = bookRepository.multiplyPriceByGenre(genre, factor);
+        for (Book book : repriced) {
+            eventPublisher.publishEvent(BookChangedEvent.updated(book));
+        }
+        return repriced.size();
+    }
+
+    @Override
+    @Transactional
+    public int deleteBooksByPublisher(String publisher) {
+        // The IDs come from the DELETE itself: a book committed meanwhile is deleted and announced
+        List<Long> ids = bookRepository.deleteAllByPublisher(publisher);
+        for (Long id : ids) {
+            eventPublisher.publishEvent(BookChangedEvent.deleted(id));
+        }
+        return ids.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Book> findBooksByAuthor(String author) {
         return bookRepository.findByAuthorContainingIgnoreCase(author);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findBooksByAuthor(String author, long afterId, Pageable pageable) {
+        return bookRepository.findByAuthorContainingIgnoreCaseAndIdGreaterThan(author, afterId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findBooksByAuthor(String author, long afterId, Pageable pageable, Set<BookField> fields) {
+        return bookRepository.findFields(authorContains(author).and(idGreaterThan(afterId)), fields, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Book> findBooksByTitle(String title) {
         return bookRepository.findByTitleContainingIgnoreCase(title);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findBooksByTitle(String title, long afterId, Pageable pageable) {
+        return bookRepository.findByTitleContainingIgnoreCaseAndIdGreaterThan(title, afterId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findBooksByTitle(String title, long afterId, Pageable pageable, Set<BookField> fields) {
+        return bookRepository.findFields(titleContains(title).and(idGreaterThan(afterId)), fields, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Book> findBooksByGenre(Book.Genre genre) {
         return bookRepository.findByGenre(genre);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findBooksByGenre(Book.Genre genre, long afterId, Pageable pageable) {
+        return bookRepository.findByGenreAndIdGreaterThan(genre, afterId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findBooksByGenre(Book.Genre genre, long afterId, Pageable pageable, Set<BookField> fields) {
+        return bookRepository.findFields(genreIs(genre).and(idGreaterThan(afterId)), fields, pageable);
+    }
+
+    // Queries are not transactional here: when the snapshot answers them, no connection is needed
+
+    @Override
+    public Slice<Book> queryBooks(BookQuery query, Pageable pageable) {
+        CatalogSnapshot snapshot = readySnapshot();
+        if (snapshot != null) {
+            return snapshot.query(query, pageable);
+        }
+        return bookRepository.findSlice(matching(query), pageable);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> queryBooks(BookQuery query, Pageable pageable, Set<BookField> fields) {
+        CatalogSnapshot snapshot = readySnapshot();
+        if (snapshot != null) {
+            return snapshot.query(query, pageable, fields);
+        }
+        return bookRepository.findFields(matching(query), fields, pageable);
+    }
+
+    @Override
+    public long countBooks(BookQuery query) {
+        CatalogSnapshot snapshot = readySnapshot();
+        if (snapshot != null) {
+            return snapshot.count(query);
+        }
+        return bookRepository.count(matching(query));
+    }
+
+    /**
+     * The catalog snapshot, if it is enabled and already built
+     */
+    private CatalogSnapshot readySnapshot() {
+        CatalogSnapshot snapshot = catalogSnapshot.getIfAvailable();
+        return snapshot != null && snapshot.isReady() ? snapshot : null;
+    }
+
+    /**
+     * Load a managed book from the repository, bypassing the cache
+     */
+    private Book loadBook(Long id) {
+        return bookRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
+    }
+
+    /**
+     * Describe validation errors as "field: message" pairs
+     */
+    private static String describe(Set<ConstraintViolation<Book>> violations) {
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining(", "));
+    }
 }
@@ -0,0 +1,58 @@
+package com.bookstore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the metrics exposed on the Prometheus endpoint
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics-test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void prometheus_ShouldExposeLatencyHistogramsAndPoolGauges() throws Exception {
+        // given
+        mockMvc.perform(get("/api/books/1")).andExpect(status().isOk());
+
+        // when / then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/api/books/{id}\"")))
+                .andExpect(content().string(containsString("bookstore_book_service_seconds_bucket{")))
+                .andExpect(content().string(containsString("method=\"getBookById\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_max")));
+    }
+
+    @Test
+    void errors_ShouldBeCountedByOutcome() throws Exception {
+        // given
+        double before = meterRegistry.counter("bookstore.errors", "outcome", "not_found").count();
+
+        // when
+        mockMvc.perform(get("/api/books/999999")).andExpect(status().isNotFound());
+
+        // then
+        assertThat(meterRegistry.counter("bookstore.errors", "outcome", "not_found").count())
+                .isEqualTo(before + 1);
+    }
+}
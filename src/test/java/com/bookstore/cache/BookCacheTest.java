@@ -0,0 +1,133 @@
+package com.bookstore.cache;
+
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for BookCache
+ */
+public class BookCacheTest {
+
+    private BookCache bookCache;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        bookCache = new BookCache(100, Duration.ofMinutes(5));
+        book = Book.builder()
+                .id(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .isbn("1234567890")
+                .publicationDate(LocalDate.of(2022, 1, 1))
+                .price(new BigDecimal("19.99"))
+                .pageCount(200)
+                .publisher("Test Publisher")
+                .genre(Book.Genre.FICTION)
+                .build();
+    }
+
+    @Test
+    void getById_ShouldLoadOnceAndCacheDetachedCopy() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        Book first = bookCache.getById(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(book);
+        }).orElseThrow();
+        Book second = bookCache.getById(1L, id -> Optional.empty()).orElseThrow();
+
+        // then
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(second).isSameAs(first).isNotSameAs(book);
+        assertThat(bookCache.statistics().byId().hitCount()).isEqualTo(1);
+        assertThat(bookCache.statistics().byId().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getByIsbn_ShouldBeServedFromIdView() {
+        // given
+        bookCache.getById(1L, id -> Optional.of(book));
+
+        // when
+        Optional<Book> found = bookCache.getByIsbn("1234567890", isbn -> Optional.empty());
+
+        // then
+        assertThat(found).isPresent();
+        assertThat(found.get().getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void onBookChanged_ShouldInvalidateBothViews() {
+        // given
+        bookCache.getById(1L, id -> Optional.of(book));
+        Book updated = new Book(book);
+        updated.setIsbn("0987654321");
+
+        // when
+        bookCache.onBookChanged(BookChangedEvent.updated(updated));
+
+        // then
+        assertThat(bookCache.getById(1L, id -> Optional.empty())).isEmpty();
+        assertThat(bookCache.getByIsbn("1234567890", isbn -> Optional.empty())).isEmpty();
+    }
+
+    @Test
+    void getByIsbn_ShouldNotServeStaleMapping_WhenIsbnChanged() {
+        // given
+        bookCache.getByIsbn("1234567890", isbn -> Optional.of(book));
+        Book updated = new Book(book);
+        updated.setIsbn("0987654321");
+        bookCache.invalidate(1L);
+        bookCache.getById(1L, id -> Optional.of(updated));
+
+        // when
+        Optional<Book> found = bookCache.getByIsbn("1234567890", isbn -> Optional.empty());
+
+        // then
+        assertThat(found).isEmpty();
+    }
+
+    @Test
+    void getById_ShouldNotCacheLoad_WhenWriteCommittedWhileLoading() {
+        // when
+        bookCache.getById(1L, id -> {
+            bookCache.onBookChanged(BookChangedEvent.deleted(1L));
+            return Optional.of(book);
+        });
+
+        // then
+        assertThat(bookCache.getById(1L, id -> Optional.empty())).isEmpty();
+    }
+
+    @Test
+    void getById_ShouldNotCacheLoad_WhenOlderThanCommittedWrite() {
+        // given
+        Book written = new Book(book);
+        written.setVersion(3L);
+        Book lagging = new Book(book);
+        lagging.setVersion(2L);
+        bookCache.onBookChanged(BookChangedEvent.updated(written));
+
+        // when
+        Book loaded = bookCache.getById(1L, id -> Optional.of(lagging)).orElseThrow();
+        Book reloaded = bookCache.getById(1L, id -> Optional.of(written)).orElseThrow();
+
+        // then
+        assertThat(loaded.getVersion()).isEqualTo(2L);
+        assertThat(reloaded.getVersion()).isEqualTo(3L);
+        assertThat(bookCache.getById(1L, id -> Optional.empty())).contains(reloaded);
+    }
+}
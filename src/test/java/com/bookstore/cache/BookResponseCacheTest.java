@@ -0,0 +1,106 @@
+package com.bookstore.cache;
+
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.model.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for BookResponseCache
+ */
+public class BookResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private BookResponseCache cache;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookResponseCache(objectMapper, DataSize.ofMegabytes(1));
+        book = Book.builder()
+                .id(1L)
+                .title("Test Book")
+                .author("Test Author")
+                .isbn("1234567890")
+                .publicationDate(LocalDate.of(2022, 1, 1))
+                .price(new BigDecimal("19.99"))
+                .pageCount(200)
+                .publisher("Test Publisher")
+                .genre(Book.Genre.FICTION)
+                .build();
+        book.setVersion(0L);
+    }
+
+    @Test
+    void get_ShouldSerializeOnceAndServeBothVariants() throws IOException {
+        // when
+        BookResponseCache.Body first = cache.get(book);
+        BookResponseCache.Body second = cache.get(book);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(first.plain()).isEqualTo(objectMapper.writeValueAsBytes(book));
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(first.plain());
+        }
+        assertThat(cache.statistics().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void get_ShouldReserialize_WhenVersionChanged() throws IOException {
+        // given
+        BookResponseCache.Body stale = cache.get(book);
+        book.setTitle("New Title");
+        book.setVersion(1L);
+
+        // when
+        BookResponseCache.Body fresh = cache.get(book);
+
+        // then
+        assertThat(fresh).isNotSameAs(stale);
+        assertThat(objectMapper.readValue(fresh.plain(), Book.class).getTitle()).isEqualTo("New Title");
+    }
+
+    @Test
+    void get_ShouldKeepNewerVersion_WhenOlderVersionIsServedLate() {
+        // given
+        book.setVersion(2L);
+        BookResponseCache.Body newer = cache.get(book);
+        Book older = new Book(book);
+        older.setVersion(1L);
+
+        // when
+        cache.get(older);
+
+        // then
+        assertThat(cache.get(book)).isSameAs(newer);
+    }
+
+    @Test
+    void onBookChanged_ShouldDropBody() {
+        // given
+        BookResponseCache.Body cached = cache.get(book);
+
+        // when
+        cache.onBookChanged(BookChangedEvent.updated(book));
+
+        // then
+        assertThat(cache.get(book)).isNotSameAs(cached);
+    }
+}
@@ -0,0 +1,72 @@
+package com.bookstore.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for ConnectionLimitingDataSource
+ */
+public class ConnectionLimitingDataSourceTest {
+
+    private DataSource target;
+    private Connection connection;
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new ConnectionLimitingDataSource(target, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void getConnection_ShouldHoldPermitUntilClosed() throws SQLException {
+        // when
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        // then
+        assertThat(dataSource.availablePermits()).isZero();
+        first.close();
+        first.close();
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        verify(connection, times(2)).close();
+        second.close();
+        assertThat(dataSource.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void getConnection_ShouldTimeOut_WhenAllPermitsAreHeld() throws SQLException {
+        // given
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        // when / then
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        verify(target, times(2)).getConnection();
+    }
+
+    @Test
+    void getConnection_ShouldReleasePermit_WhenTargetFails() throws SQLException {
+        // given
+        when(target.getConnection()).thenThrow(new SQLException("down"));
+
+        // when / then
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+        assertThat(dataSource.availablePermits()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,120 @@
+package com.bookstore.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setCurrentTransactionReadOnly;
+
+/**
+ * Test class for ReadWriteRoutingDataSource and ReplicaLagMonitor
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private DataSource primary;
+    private DataSource replica;
+    private JdbcDataSource lagSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        lagSource = new JdbcDataSource();
+        lagSource.setURL("jdbc:h2:mem:lag-monitor-test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_ShouldUseReplica_OnlyInReadOnlyTransactions() throws Exception {
+        // given
+        ReadWriteRoutingDataSource routing = routing(monitor("SELECT 100", Duration.ofSeconds(1)));
+
+        // when
+        Connection write = routing.getConnection();
+        setCurrentTransactionReadOnly(true);
+        Connection read = routing.getConnection();
+
+        // then
+        assertThat(write).isSameAs(primaryConnection);
+        assertThat(read).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void getConnection_ShouldUsePrimary_WhenPrimaryIsRequired() {
+        // given
+        ReadWriteRoutingDataSource routing = routing(monitor("SELECT 100", Duration.ofSeconds(1)));
+        setCurrentTransactionReadOnly(true);
+
+        // when
+        Connection read = ReadRouting.onPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // then
+        assertThat(read).isSameAs(primaryConnection);
+        assertThat(ReadRouting.isPrimaryRequired()).isFalse();
+    }
+
+    @Test
+    void getConnection_ShouldFallBackToPrimary_WhenReplicaLagsTooFarBehind() throws Exception {
+        // given
+        ReplicaLagMonitor monitor = monitor("SELECT 8000", Duration.ofSeconds(5));
+        ReadWriteRoutingDataSource routing = routing(monitor);
+        setCurrentTransactionReadOnly(true);
+
+        // when
+        Connection read = routing.getConnection();
+
+        // then
+        assertThat(monitor.lag()).isEqualTo(Duration.ofSeconds(8));
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(read).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void check_ShouldMarkReplicaUnusable_WhenLagCannotBeMeasured() {
+        // given
+        ReplicaLagMonitor monitor = monitor("SELECT 100", Duration.ofSeconds(1));
+        ReplicaLagMonitor broken = new ReplicaLagMonitor(lagSource, "SELECT lag FROM missing_table",
+                Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        // when
+        broken.check();
+
+        // then
+        assertThat(monitor.isReplicaUsable()).isTrue();
+        assertThat(broken.isReplicaUsable()).isFalse();
+        assertThat(broken.lag()).isNull();
+    }
+
+    private ReplicaLagMonitor monitor(String lagQuery, Duration maxLag) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(lagSource, lagQuery, maxLag, Duration.ofSeconds(1));
+        monitor.check();
+        return monitor;
+    }
+
+    private ReadWriteRoutingDataSource routing(ReplicaLagMonitor monitor) {
+        return new ReadWriteRoutingDataSource(primary, replica, monitor, new SimpleMeterRegistry());
+    }
+}
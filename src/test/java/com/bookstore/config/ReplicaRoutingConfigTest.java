@@ -0,0 +1,177 @@
+package com.bookstore.config;
+
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.model.Book;
+import com.bookstore.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies the read/write split against two H2 databases, the replica being replicated from
+ * the primary only when a test asks for it
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "bookstore.datasource.replica.enabled=true",
+        "bookstore.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "bookstore.datasource.replica.simulate-replication=true",
+        "bookstore.datasource.replica.replication-interval=1h",
+        "bookstore.datasource.replica.check-interval=1h",
+        "bookstore.datasource.replica.max-lag=1h"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+public class ReplicaRoutingConfigTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private H2Replicator replicator;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        replicator.replicate();
+        lagMonitor.check();
+    }
+
+    @Test
+    void replica_ShouldHaveKeysAndIndexesOfPrimary() {
+        // given
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+
+        // when
+        List<String> constraints = replica.queryForList("SELECT constraint_type || ':' || constraint_name"
+                + " FROM information_schema.table_constraints WHERE table_name = 'BOOKS'", String.class);
+        List<String> indexes = replica.queryForList(
+                "SELECT index_name FROM information_schema.indexes WHERE table_name = 'BOOKS'", String.class);
+
+        // then
+        assertThat(constraints).contains("UNIQUE:UK_BOOKS_ISBN").anyMatch(name -> name.startsWith("PRIMARY KEY:"));
+        assertThat(indexes).contains("IDX_BOOKS_GENRE", "IDX_BOOKS_PUBLICATION_DATE", "IDX_BOOKS_PRICE",
+                "IDX_BOOKS_GENRE_PRICE", "IDX_BOOKS_PUBLISHER");
+    }
+
+    @Test
+    void readOnlyCalls_ShouldReadFromReplica_UntilWritesAreReplicated() throws Exception {
+        // given
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+        Book created = bookService.createBook(book("9791000000101", "Replicated Author"));
+
+        // when
+        int beforeReplication = bookService.findBooksByAuthor("Replicated Author").size();
+        replicator.replicate();
+        int afterReplication = bookService.findBooksByAuthor("Replicated Author").size();
+
+        // then
+        assertThat(beforeReplication).isZero();
+        assertThat(afterReplication).isEqualTo(1);
+        assertThat(bookService.getBookById(created.getId()).getIsbn()).isEqualTo("9791000000101");
+    }
+
+    @Test
+    void cacheMisses_ShouldReadFromReplica_UnlessPrimaryIsRequired() {
+        // given
+        Book created = bookService.createBook(book("9791000000102", "Lagging Author"));
+
+        // when / then
+        assertThatThrownBy(() -> bookService.getBookByIsbn("9791000000102"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(ReadRouting.onPrimary(() -> bookService.getBookById(created.getId())).getIsbn())
+                .isEqualTo("9791000000102");
+    }
+
+    @Test
+    void readsAfterWrite_ShouldGoToPrimary_ForClientsThatWrote() throws Exception {
+        // given
+        Cookie sticky = mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book("9791000000103", "Sticky Author"))))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        // when / then
+        mockMvc.perform(get("/api/books/isbn/9791000000103"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/books/isbn/9791000000103").cookie(sticky))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void indexedSearches_ShouldLoadHitsFromPrimary_WhileReplicaLags() throws Exception {
+        // given
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+        Book created = bookService.createBook(book("9791000000104", "Quillfeather Lagging"));
+        String etag = catalogVersion.etag();
+
+        // when / then
+        mockMvc.perform(get("/api/books/search").param("q", "quillfeather"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(jsonPath("$.content[*].id", contains(created.getId().intValue())));
+        mockMvc.perform(get("/api/books/search/author").param("author", "Quilfeather").param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(created.getId().intValue())));
+        mockMvc.perform(get("/api/books/range").param("priceMin", "12.50").param("priceMax", "12.50")
+                        .param("genre", "OTHER").param("fields", "isbn"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].isbn", hasItem("9791000000104")));
+    }
+
+    private static Book book(String isbn, String author) {
+        return Book.builder()
+                .title("Routing Book")
+                .author(author)
+                .isbn(isbn)
+                .publicationDate(LocalDate.of(2021, 5, 1))
+                .price(new BigDecimal("12.50"))
+                .pageCount(150)
+                .publisher("Routing Publisher")
+                .genre(Book.Genre.OTHER)
+                .build();
+    }
+}
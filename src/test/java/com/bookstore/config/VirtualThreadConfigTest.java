@@ -0,0 +1,74 @@
+package com.bookstore.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for VirtualThreadConfig, with virtual threads enabled and a running server
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtual-thread-test",
+        "bookstore.threads.virtual.enabled=true",
+        "bookstore.cache.maximum-size=0"
+})
+public class VirtualThreadConfigTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void context_ShouldUseVirtualThreadsAndLimitConnections() {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        Object executor = webServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+
+        assertThat(executor.getClass().getName()).isEqualTo("java.util.concurrent.ThreadPerTaskExecutor");
+        assertThat(dataSource).isInstanceOf(ConnectionLimitingDataSource.class);
+    }
+
+    @Test
+    void requests_ShouldNotPinCarrierThreads_WhileUsingJdbc() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream();
+             ExecutorService clients = Executors.newFixedThreadPool(16)) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            // More concurrent requests than pooled connections, all reading from the database
+            List<Future<HttpStatus>> responses = IntStream.rangeClosed(1, 200)
+                    .mapToObj(i -> clients.submit(() -> HttpStatus.valueOf(restTemplate
+                            .getForEntity("/api/books/" + (i % 45 + 1), String.class).getStatusCode().value())))
+                    .toList();
+            for (Future<HttpStatus> response : responses) {
+                assertThat(response.get()).isEqualTo(HttpStatus.OK);
+            }
+            recording.stop();
+        }
+
+        assertThat(pinned).extracting(event -> event.getStackTrace().toString()).isEmpty();
+    }
+}
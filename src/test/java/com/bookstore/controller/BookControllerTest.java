@@ -1,24 +1,69 @@
 package com.bookstore.controller;
 
+import com.bookstore.cache.BookResponseCache;
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.config.ReadRouting;
+import com.bookstore.config.ReplicaLagMonitor;
+import com.bookstore.converter.BookProtobufCodec;
+import com.bookstore.converter.BookProtobufHttpMessageConverter;
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.dto.BookQuery;
+import com.bookstore.dto.BookRange;
+import com.bookstore.dto.Cursor;
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.dto.IngestionStatus;
+import com.bookstore.dto.Suggestion;
+import com.bookstore.dto.UpsertResult;
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.exception.IngestionQueueFullException;
+import com.bookstore.index.SuggestIndex;
+import com.bookstore.index.TrigramIndex;
 import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import com.bookstore.service.BookIngestionQueue;
+import com.bookstore.service.BookSearchService;
 import com.bookstore.service.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,6 +72,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Test class for BookController
  */
 @WebMvcTest(BookController.class)
+@Import({SimpleMeterRegistry.class, CatalogVersion.class, BookResponseCache.class})
 public class BookControllerTest {
 
     @Autowired
@@ -35,9 +81,21 @@ public class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookSearchService bookSearchService;
+
+    @MockBean
+    private BookIngestionQueue bookIngestionQueue;
+
+    @MockBean
+    private ReplicaLagMonitor replicaLagMonitor;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     private Book book1;
     private Book book2;
     private List<Book> books;
@@ -75,18 +133,101 @@ public class BookControllerTest {
 
     @Test
     void getAllBooks() throws Exception {
-        when(bookService.getAllBooks()).thenReturn(books);
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
 
         mockMvc.perform(get("/api/books")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].title", is("Test Book 1")))
-                .andExpect(jsonPath("$[1].id", is(2)))
-                .andExpect(jsonPath("$[1].title", is("Test Book 2")));
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(1)))
+                .andExpect(jsonPath("$.content[0].title", is("Test Book 1")))
+                .andExpect(jsonPath("$.content[1].id", is(2)))
+                .andExpect(jsonPath("$.content[1].title", is("Test Book 2")))
+                .andExpect(jsonPath("$.limit", is(20)))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+
+        verify(bookService, times(1)).getBooks(eq(Long.MIN_VALUE), any(Pageable.class));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnNextCursor_WhenMoreBooksExist() throws Exception {
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 2), true));
+
+        mockMvc.perform(get("/api/books")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor", is(Cursor.encode(2L))));
+    }
+
+    @Test
+    void getAllBooks_ShouldStartAfterCursor() throws Exception {
+        when(bookService.getBooks(eq(2L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 20), false));
+
+        mockMvc.perform(get("/api/books")
+                .param("after", Cursor.encode(2L)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+
+        verify(bookService, times(1)).getBooks(eq(2L), any(Pageable.class));
+    }
+
+    @Test
+    void getAllBooks_ShouldCapLimit() throws Exception {
+        when(bookService.getBooks(anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 200), false));
+
+        mockMvc.perform(get("/api/books")
+                .param("limit", "1000000"))
+                .andExpect(status().isOk());
+
+        verify(bookService).getBooks(eq(Long.MIN_VALUE), argThat(pageable -> pageable.getPageSize() == 200));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnBadRequest_WhenCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/books")
+                .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).getBooks(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnBadRequest_WhenOffsetIsTooDeep() throws Exception {
+        mockMvc.perform(get("/api/books")
+                .param("page", "100000")
+                .param("limit", "100"))
+                .andExpect(status().isBadRequest());
 
-        verify(bookService, times(1)).getAllBooks();
+        verify(bookService, never()).getBooks(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void exportBooks_ShouldStreamOneJsonDocumentPerLine() throws Exception {
+        when(bookService.exportBooks(any())).thenAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            books.forEach(consumer);
+            return (long) books.size();
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(body).endsWith("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[1], Book.class).getTitle())
+                .isEqualTo("Test Book 2");
     }
 
     @Test
@@ -104,6 +245,177 @@ public class BookControllerTest {
         verify(bookService, times(1)).getBookById(1L);
     }
 
+    @Test
+    void getBookById_ShouldReturnStrongEtagOfVersion() throws Exception {
+        book1.setVersion(3L);
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        mockMvc.perform(get("/api/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(jsonPath("$.version", is(3)));
+    }
+
+    @Test
+    void getBookById_ShouldReturnNotModified_WhenEtagMatches() throws Exception {
+        book1.setVersion(3L);
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        mockMvc.perform(get("/api/books/1")
+                .header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/books/1")
+                .header("If-None-Match", "\"1-2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getBookById_ShouldTagEachRepresentationSeparately() throws Exception {
+        book1.setVersion(3L);
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        mockMvc.perform(get("/api/books/1")
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3-gz\""));
+        String projection = mockMvc.perform(get("/api/books/1")
+                .param("fields", "title")
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", "\"1-3\", \"1-3-gz\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        String otherProjection = mockMvc.perform(get("/api/books/1")
+                .param("fields", "author"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertThat(projection).startsWith("\"1-3-").isNotEqualTo(otherProjection);
+    }
+
+    @Test
+    void getBookById_ShouldVaryNotModifiedResponse() throws Exception {
+        book1.setVersion(3L);
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        mockMvc.perform(get("/api/books/1")
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", "\"1-3-gz\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnNotModifiedWithoutQuerying_WhenCatalogUnchanged() throws Exception {
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
+        String etag = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/books")
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        assertThat(etag).startsWith("W/");
+        verify(bookService, times(1)).getBooks(eq(Long.MIN_VALUE), any(Pageable.class));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnFreshPage_AfterCatalogChanged() throws Exception {
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
+        String etag = mockMvc.perform(get("/api/books"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        catalogVersion.onBookChanged(BookChangedEvent.deleted(2L));
+
+        mockMvc.perform(get("/api/books")
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void getAllBooks_ShouldOmitEtag_WhenReadFromReplica() throws Exception {
+        // given
+        when(replicaLagMonitor.isReplicaUsable()).thenReturn(true);
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    assertThat(ReadRouting.isPrimaryRequired()).isFalse();
+                    return new SliceImpl<>(books, PageRequest.of(0, 20), false);
+                });
+
+        // when / then
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void getAllBooks_ShouldRevalidateOnPrimary_WhenReplicaIsUsable() throws Exception {
+        // given
+        when(replicaLagMonitor.isReplicaUsable()).thenReturn(true);
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    assertThat(ReadRouting.isPrimaryRequired()).isTrue();
+                    return new SliceImpl<>(books, PageRequest.of(0, 20), false);
+                });
+        String current = catalogVersion.etag();
+
+        // when / then
+        mockMvc.perform(get("/api/books")
+                .header("If-None-Match", current))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/books")
+                .header("If-None-Match", "W/\"stale-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", current));
+        verify(bookService, times(1)).getBooks(eq(Long.MIN_VALUE), any(Pageable.class));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnOnlyRequestedFields() throws Exception {
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class), eq(BookField.parse("title,price"))))
+                .thenReturn(new SliceImpl<>(List.<Map<String, Object>>of(
+                        Map.of("id", 1L, "title", "Test Book 1", "price", new BigDecimal("19.99"))),
+                        PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/api/books")
+                .param("fields", "title,price")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title", is("Test Book 1")))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor", is(Cursor.encode(1L))));
+
+        verify(bookService, never()).getBooks(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getAllBooks_ShouldReturnBadRequest_WhenFieldIsUnknown() throws Exception {
+        mockMvc.perform(get("/api/books")
+                .param("fields", "title,secret"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Unknown field 'secret'")));
+    }
+
+    @Test
+    void getBookById_ShouldReturnOnlyRequestedFields() throws Exception {
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        mockMvc.perform(get("/api/books/1")
+                .param("fields", "author"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.author", is("Test Author 1")))
+                .andExpect(jsonPath("$.title").doesNotExist());
+    }
+
     @Test
     void getBookByIsbn() throws Exception {
         when(bookService.getBookByIsbn("1234567890")).thenReturn(book1);
@@ -132,9 +444,256 @@ public class BookControllerTest {
         verify(bookService, times(1)).createBook(any(Book.class));
     }
 
+    @Test
+    void createBook_ShouldQueueBook_WhenAsyncResponseIsPreferred() throws Exception {
+        when(bookIngestionQueue.submit(any(Book.class))).thenReturn(IngestionStatus.queued("abc"));
+
+        mockMvc.perform(post("/api/books")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(book1)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/books/ingestion/abc"))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.trackingId", is("abc")))
+                .andExpect(jsonPath("$.status", is("QUEUED")));
+
+        verify(bookService, never()).createBook(any(Book.class));
+    }
+
+    @Test
+    void createBook_ShouldReturnTooManyRequests_WhenQueueIsFull() throws Exception {
+        when(bookIngestionQueue.submit(any(Book.class))).thenThrow(new IngestionQueueFullException(10));
+
+        mockMvc.perform(post("/api/books")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(book1)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void createBook_ShouldNotQueueInvalidBook() throws Exception {
+        book1.setTitle("");
+
+        mockMvc.perform(post("/api/books")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(book1)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(bookIngestionQueue);
+    }
+
+    @Test
+    void getIngestionStatus_ShouldReturnStatusOrNotFound() throws Exception {
+        when(bookIngestionQueue.status("abc"))
+                .thenReturn(Optional.of(new IngestionStatus("abc", IngestionStatus.Status.CREATED, 7L, null)));
+        when(bookIngestionQueue.status("unknown")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/books/ingestion/abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("CREATED")))
+                .andExpect(jsonPath("$.id", is(7)));
+        mockMvc.perform(get("/api/books/ingestion/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createBooks_ShouldReturnResultPerItem() throws Exception {
+        when(bookService.createBooks(anyList())).thenReturn(List.of(
+                BatchItemResult.created(0, 1L),
+                BatchItemResult.conflict(1, "Book with ISBN 0987654321 already exists")));
+
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(books)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[1].status", is("CONFLICT")));
+    }
+
+    @Test
+    void createBooks_ShouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).createBooks(anyList());
+    }
+
+    @Test
+    void getBookById_ShouldWriteCachedGzipBody_WhenGzipIsAccepted() throws Exception {
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        MvcResult result = mockMvc.perform(get("/api/books/1")
+                .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertThat(objectMapper.readValue(body, Book.class).getTitle()).isEqualTo("Test Book 1");
+        }
+    }
+
+    @Test
+    void getBookById_ShouldReuseCachedBodyUntilVersionChanges() throws Exception {
+        when(bookService.getBookById(1L)).thenReturn(book1);
+        mockMvc.perform(get("/api/books/1")).andExpect(status().isOk());
+        // Mutating the shared instance without a version bump is not seen: the bytes come from the cache
+        book1.setTitle("Changed Title");
+
+        mockMvc.perform(get("/api/books/1"))
+                .andExpect(jsonPath("$.title", is("Test Book 1")));
+
+        book1.setVersion(1L);
+        mockMvc.perform(get("/api/books/1"))
+                .andExpect(jsonPath("$.title", is("Changed Title")))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    void getBookById_ShouldNegotiateCbor() throws Exception {
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        MvcResult result = mockMvc.perform(get("/api/books/1")
+                .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn();
+
+        Map<?, ?> decoded = new ObjectMapper(new CBORFactory()).readValue(result.getResponse().getContentAsByteArray(), Map.class);
+        assertThat(decoded.get("title")).isEqualTo("Test Book 1");
+        assertThat(decoded.get("publicationDate")).isEqualTo("2022-01-01");
+    }
+
+    @Test
+    void searchBooks_ShouldNegotiateSmile() throws Exception {
+        when(bookSearchService.search(eq("test"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(book1), PageRequest.of(0, 20), 1));
+
+        MvcResult result = mockMvc.perform(get("/api/books/search")
+                .param("q", "test")
+                .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        Map<?, ?> decoded = new ObjectMapper(new SmileFactory()).readValue(result.getResponse().getContentAsByteArray(), Map.class);
+        assertThat(decoded.get("totalHits")).isEqualTo(1);
+    }
+
+    @Test
+    void getAllBooks_ShouldNegotiateProtobuf() throws Exception {
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
+
+        MvcResult result = mockMvc.perform(get("/api/books")
+                .accept(BookProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn();
+
+        List<Book> decoded = BookProtobufCodec.readBooks(CodedInputStream.newInstance(result.getResponse().getContentAsByteArray()));
+        assertThat(decoded).usingRecursiveFieldByFieldElementComparator().containsExactly(book1, book2);
+    }
+
+    @Test
+    void getBookById_ShouldTagBinaryFormatsSeparately() throws Exception {
+        book1.setVersion(3L);
+        when(bookService.getBookById(1L)).thenReturn(book1);
+
+        mockMvc.perform(get("/api/books/1")
+                .accept("application/cbor")
+                .header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("ETag", "\"1-3-cbor\""))
+                .andExpect(header().string("Vary", containsString("Accept")));
+    }
+
+    @Test
+    void getAllBooks_ShouldTagProtobufSeparately() throws Exception {
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
+        String json = mockMvc.perform(get("/api/books"))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        String protobuf = mockMvc.perform(get("/api/books")
+                .accept(BookProtobufHttpMessageConverter.PROTOBUF)
+                .header("If-None-Match", json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/books")
+                .accept(BookProtobufHttpMessageConverter.PROTOBUF)
+                .header("If-None-Match", protobuf))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"));
+        assertThat(protobuf).startsWith("W/").isNotEqualTo(json);
+    }
+
+    @Test
+    void getAllBooks_ShouldDefaultToJson_WhenAnyTypeIsAccepted() throws Exception {
+        when(bookService.getBooks(eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
+
+        mockMvc.perform(get("/api/books")
+                .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void createBook_ShouldReadProtobufBody() throws Exception {
+        when(bookService.createBook(any(Book.class))).thenReturn(book1);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(body);
+        BookProtobufCodec.writeBook(book1, output);
+        output.flush();
+
+        mockMvc.perform(post("/api/books")
+                .contentType(BookProtobufHttpMessageConverter.PROTOBUF)
+                .content(body.toByteArray()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.title", is("Test Book 1")));
+
+        verify(bookService).createBook(argThat(book -> book.getPrice().equals(new BigDecimal("19.99"))
+                && book.getGenre() == Book.Genre.FICTION));
+    }
+
+    @Test
+    void createBook_ShouldReturnBadRequest_WhenProtobufBodyIsMalformed() throws Exception {
+        mockMvc.perform(post("/api/books")
+                .contentType(BookProtobufHttpMessageConverter.PROTOBUF)
+                .content(new byte[] {(byte) 0x12, (byte) 0x7f}))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void getFacets_ShouldReturnNotAcceptable_WhenOnlyProtobufIsAccepted() throws Exception {
+        when(bookSearchService.facets(null, 10)).thenReturn(new FacetCounts(0, List.of(), List.of()));
+
+        mockMvc.perform(get("/api/books/facets")
+                .accept(BookProtobufHttpMessageConverter.PROTOBUF))
+                .andExpect(status().isNotAcceptable());
+    }
+
     @Test
     void updateBook() throws Exception {
-        when(bookService.updateBook(anyLong(), any(Book.class))).thenReturn(book1);
+        when(bookService.upsertBook(anyLong(), any(Book.class))).thenReturn(new UpsertResult(book1, false));
 
         mockMvc.perform(put("/api/books/1")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -143,7 +702,19 @@ public class BookControllerTest {
                 .andExpect(jsonPath("$.id", is(1)))
                 .andExpect(jsonPath("$.title", is("Test Book 1")));
 
-        verify(bookService, times(1)).updateBook(anyLong(), any(Book.class));
+        verify(bookService, times(1)).upsertBook(anyLong(), any(Book.class));
+        verify(bookService, never()).getBookById(anyLong());
+    }
+
+    @Test
+    void updateBook_ShouldReturnCreated_WhenBookDidNotExist() throws Exception {
+        when(bookService.upsertBook(eq(1L), any(Book.class))).thenReturn(new UpsertResult(book1, true));
+
+        mockMvc.perform(put("/api/books/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(book1)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(1)));
     }
 
     @Test
@@ -160,41 +731,243 @@ public class BookControllerTest {
 
     @Test
     void findBooksByAuthor() throws Exception {
-        when(bookService.findBooksByAuthor("Test Author")).thenReturn(books);
+        when(bookService.findBooksByAuthor(eq("Test Author"), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
 
         mockMvc.perform(get("/api/books/search/author")
                 .param("author", "Test Author")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)));
+                .andExpect(jsonPath("$.content", hasSize(2)));
 
-        verify(bookService, times(1)).findBooksByAuthor("Test Author");
+        verify(bookService, times(1)).findBooksByAuthor(eq("Test Author"), eq(Long.MIN_VALUE), any(Pageable.class));
     }
 
     @Test
     void findBooksByTitle() throws Exception {
-        when(bookService.findBooksByTitle("Test Book")).thenReturn(books);
+        when(bookService.findBooksByTitle(eq("Test Book"), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(books, PageRequest.of(0, 20), false));
 
         mockMvc.perform(get("/api/books/search/title")
                 .param("title", "Test Book")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)));
+                .andExpect(jsonPath("$.content", hasSize(2)));
 
-        verify(bookService, times(1)).findBooksByTitle("Test Book");
+        verify(bookService, times(1)).findBooksByTitle(eq("Test Book"), eq(Long.MIN_VALUE), any(Pageable.class));
     }
 
     @Test
     void findBooksByGenre() throws Exception {
-        when(bookService.findBooksByGenre(Book.Genre.FICTION)).thenReturn(List.of(book1));
+        when(bookService.findBooksByGenre(eq(Book.Genre.FICTION), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(book1), PageRequest.of(0, 20), false));
 
         mockMvc.perform(get("/api/books/search/genre")
                 .param("genre", "FICTION")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].genre", is("FICTION")));
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].genre", is("FICTION")));
+
+        verify(bookService, times(1)).findBooksByGenre(eq(Book.Genre.FICTION), eq(Long.MIN_VALUE), any(Pageable.class));
+    }
+
+    @Test
+    void searchBooks_ShouldReturnRankedPageWithTotal() throws Exception {
+        when(bookSearchService.search(eq("test book"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(book2, book1), PageRequest.of(0, 2), 5));
+
+        mockMvc.perform(get("/api/books/search")
+                .param("q", "test book")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.page", is(0)))
+                .andExpect(jsonPath("$.limit", is(2)))
+                .andExpect(jsonPath("$.totalHits", is(5)));
+    }
+
+    @Test
+    void getFacets_ShouldReturnCountsOfSearchMatches() throws Exception {
+        when(bookSearchService.facets("test", 3))
+                .thenReturn(new FacetCounts(2,
+                        List.of(new FacetCounts.Count("FICTION", 2)),
+                        List.of(new FacetCounts.Count("Test Publisher", 2))));
+
+        mockMvc.perform(get("/api/books/facets")
+                .param("q", "test")
+                .param("publishers", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.genres[0].value", is("FICTION")))
+                .andExpect(jsonPath("$.publishers[0].count", is(2)));
+    }
+
+    @Test
+    void suggest_ShouldReturnSuggestionsWithCappedLimit() throws Exception {
+        when(bookSearchService.suggest("hob", SuggestIndex.MAX_LIMIT)).thenReturn(List.of(
+                new Suggestion(1L, "The Hobbit", Suggestion.Type.TITLE),
+                new Suggestion(null, "Thomas Hobbes", Suggestion.Type.AUTHOR)));
+
+        mockMvc.perform(get("/api/books/suggest")
+                .param("prefix", "hob")
+                .param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].text", is("The Hobbit")))
+                .andExpect(jsonPath("$[0].type", is("TITLE")))
+                .andExpect(jsonPath("$[1].id").doesNotExist())
+                .andExpect(jsonPath("$[1].type", is("AUTHOR")));
+    }
+
+    @Test
+    void suggest_ShouldReturnBadRequest_WhenLimitIsNotPositive() throws Exception {
+        mockMvc.perform(get("/api/books/suggest")
+                .param("prefix", "hob")
+                .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookSearchService, never()).suggest(any(), anyInt());
+    }
+
+    @Test
+    void getBooksByAuthor_ShouldReturnRankedPage_WhenFuzzy() throws Exception {
+        when(bookSearchService.fuzzySearch(TrigramIndex.Field.AUTHOR, "Tolkein", PageRequest.of(1, 2)))
+                .thenReturn(new PageImpl<>(List.of(book2), PageRequest.of(1, 2), 3));
+
+        mockMvc.perform(get("/api/books/search/author")
+                .param("author", "Tolkein")
+                .param("fuzzy", "true")
+                .param("page", "1")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.page", is(1)))
+                .andExpect(jsonPath("$.totalHits", is(3)));
+
+        verify(bookService, never()).findBooksByAuthor(any(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getBooksByTitle_ShouldReturnBadRequest_WhenFuzzyIsCombinedWithCursor() throws Exception {
+        mockMvc.perform(get("/api/books/search/title")
+                .param("title", "Hobit")
+                .param("fuzzy", "true")
+                .param("after", Cursor.encode(1L)))
+                .andExpect(status().isBadRequest());
+
+        verify(bookSearchService, never()).fuzzySearch(any(), any(), any());
+    }
+
+    @Test
+    void repriceBooks_ShouldReturnUpdatedCount() throws Exception {
+        when(bookService.repriceBooks(Book.Genre.FICTION, new BigDecimal("0.9"))).thenReturn(7);
+
+        mockMvc.perform(patch("/api/books/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"genre\": \"FICTION\", \"priceFactor\": 0.9}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(7)));
+    }
 
-        verify(bookService, times(1)).findBooksByGenre(Book.Genre.FICTION);
+    @Test
+    void repriceBooks_ShouldReturnBadRequest_WhenFactorIsNotPositive() throws Exception {
+        mockMvc.perform(patch("/api/books/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"genre\": \"FICTION\", \"priceFactor\": 0}"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).repriceBooks(any(), any());
+    }
+
+    @Test
+    void deleteBooksByPublisher_ShouldReturnDeletedCount() throws Exception {
+        when(bookService.deleteBooksByPublisher("Penguin Books")).thenReturn(3);
+
+        mockMvc.perform(delete("/api/books/bulk")
+                .param("publisher", "Penguin Books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted", is(3)));
+
+        verify(bookService, never()).deleteBook(anyLong());
+    }
+
+    @Test
+    void rangeBooks_ShouldReturnBooksInRangeWithTotal() throws Exception {
+        BookRange expected = new BookRange(new BigDecimal("10"), new BigDecimal("30"), LocalDate.of(2020, 1, 1), null,
+                Book.Genre.FICTION);
+        when(bookSearchService.range(expected, PageRequest.of(0, 2)))
+                .thenReturn(new PageImpl<>(List.of(book1, book2), PageRequest.of(0, 2), 7));
+
+        mockMvc.perform(get("/api/books/range")
+                .param("priceMin", "10")
+                .param("priceMax", "30")
+                .param("from", "2020-01-01")
+                .param("genre", "FICTION")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(1)))
+                .andExpect(jsonPath("$.totalHits", is(7)));
+    }
+
+    @Test
+    void queryBooks_ShouldCombineCriteriaAndSortInOneQuery() throws Exception {
+        BookQuery expected = new BookQuery(Set.of(Book.Genre.FICTION, Book.Genre.MYSTERY), "test", null,
+                new BigDecimal("10"), new BigDecimal("30"), LocalDate.of(2020, 1, 1), null, null, 500);
+        Pageable byPriceDesc = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id")));
+        when(bookService.queryBooks(expected, byPriceDesc))
+                .thenReturn(new SliceImpl<>(List.of(book2, book1), byPriceDesc, true));
+
+        mockMvc.perform(get("/api/books/query")
+                .param("genre", "FICTION", "MYSTERY")
+                .param("author", "test")
+                .param("minPrice", "10")
+                .param("maxPrice", "30")
+                .param("publishedFrom", "2020-01-01")
+                .param("maxPages", "500")
+                .param("sort", "price")
+                .param("direction", "desc")
+                .param("page", "1")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.page", is(1)))
+                .andExpect(jsonPath("$.hasNext", is(true)))
+                .andExpect(jsonPath("$.total").doesNotExist());
+
+        verify(bookService, never()).countBooks(any());
+    }
+
+    @Test
+    void queryBooks_ShouldCountMatches_WhenRequested() throws Exception {
+        BookQuery all = new BookQuery(null, null, null, null, null, null, null, null, null);
+        when(bookService.queryBooks(eq(all), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(book1), PageRequest.of(0, 20), false));
+        when(bookService.countBooks(all)).thenReturn(1L);
+
+        mockMvc.perform(get("/api/books/query")
+                .param("count", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(1)));
+    }
+
+    @Test
+    void queryBooks_ShouldReturnBadRequest_WhenGenreOrSortIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/books/query")
+                .param("genre", "NOVELLA"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("'genre'")));
+
+        mockMvc.perform(get("/api/books/query")
+                .param("sort", "secret"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Unknown field 'secret'")));
     }
 }
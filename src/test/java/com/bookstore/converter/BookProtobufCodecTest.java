@@ -0,0 +1,148 @@
+package com.bookstore.converter;
+
+import com.bookstore.model.Book;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for BookProtobufCodec
+ */
+public class BookProtobufCodecTest {
+
+    private final Book book = Book.builder()
+            .id(7L)
+            .title("Cien años de soledad")
+            .author("Gabriel García Márquez")
+            .isbn("9780060883287")
+            .publicationDate(LocalDate.of(1967, 5, 30))
+            .price(new BigDecimal("18.90"))
+            .description("Multi-generational story of the Buendía family")
+            .pageCount(417)
+            .publisher("Harper")
+            .genre(Book.Genre.FICTION)
+            .build();
+
+    @Test
+    void book_ShouldRoundTripAllFields() throws IOException {
+        // given
+        book.setVersion(3L);
+
+        // when
+        Book decoded = BookProtobufCodec.readBook(CodedInputStream.newInstance(encode(out -> BookProtobufCodec.writeBook(book, out))));
+
+        // then
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(book);
+    }
+
+    @Test
+    void book_ShouldLeaveAbsentFieldsNull() throws IOException {
+        // given
+        Book partial = Book.builder().title("Only a title").build();
+
+        // when
+        byte[] encoded = encode(out -> BookProtobufCodec.writeBook(partial, out));
+        Book decoded = BookProtobufCodec.readBook(CodedInputStream.newInstance(encoded));
+
+        // then
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(partial);
+        assertThat(encoded).hasSize(2 + "Only a title".length());
+    }
+
+    @Test
+    void page_ShouldBeReadableAsListOfBooks() throws IOException {
+        // given
+        Book other = Book.builder().id(8L).title("Other").genre(Book.Genre.OTHER).build();
+
+        // when
+        byte[] encoded = encode(out -> BookProtobufCodec.writePage(List.of(book, other), 2, 20, "abc", true, 42L, out));
+        List<Book> decoded = BookProtobufCodec.readBooks(CodedInputStream.newInstance(encoded));
+
+        // then
+        assertThat(decoded).usingRecursiveFieldByFieldElementComparator().containsExactly(book, other);
+    }
+
+    @Test
+    void page_ShouldEncodeFieldMapsAsPartialBooks() throws IOException {
+        // given
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 7L);
+        row.put("price", new BigDecimal("18.90"));
+        row.put("publicationDate", LocalDate.of(1967, 5, 30));
+
+        // when
+        byte[] encoded = encode(out -> BookProtobufCodec.writeBooks(List.of(row), out));
+        List<Book> decoded = BookProtobufCodec.readBooks(CodedInputStream.newInstance(encoded));
+
+        // then
+        assertThat(decoded).singleElement().satisfies(partial -> {
+            assertThat(partial.getId()).isEqualTo(7L);
+            assertThat(partial.getPrice()).isEqualTo(new BigDecimal("18.90"));
+            assertThat(partial.getPublicationDate()).isEqualTo(LocalDate.of(1967, 5, 30));
+            assertThat(partial.getTitle()).isNull();
+        });
+    }
+
+    @Test
+    void readBook_ShouldRejectUnknownGenre() throws IOException {
+        // given
+        byte[] encoded = encode(out -> out.writeEnum(BookProtobufCodec.GENRE, Book.Genre.values().length + 1));
+
+        // when / then
+        assertThatThrownBy(() -> BookProtobufCodec.readBook(CodedInputStream.newInstance(encoded)))
+                .isInstanceOf(InvalidProtocolBufferException.class)
+                .hasMessageContaining("Unknown genre");
+    }
+
+    @Test
+    void schema_ShouldNumberGenresInDeclarationOrder() throws IOException {
+        // given
+        String schema = Files.readString(Path.of("src/main/proto/bookstore.proto"));
+        Matcher genres = Pattern.compile("enum Genre \\{([^}]*)}").matcher(schema);
+        assertThat(genres.find()).isTrue();
+
+        // when
+        List<String> numbered = new ArrayList<>();
+        Matcher value = Pattern.compile("(\\w+) = (\\d+);").matcher(genres.group(1));
+        while (value.find()) {
+            if (!value.group(2).equals("0")) {
+                numbered.add(value.group(1));
+                assertThat(Integer.parseInt(value.group(2))).isEqualTo(numbered.size());
+            }
+        }
+
+        // then
+        assertThat(numbered).containsExactlyElementsOf(Arrays.stream(Book.Genre.values()).map(Enum::name).toList());
+    }
+
+    private static byte[] encode(Encoder encoder) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        encoder.encode(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+        void encode(CodedOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,57 @@
+package com.bookstore.index;
+
+import com.bookstore.model.Book;
+import com.bookstore.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for BookIndexer, against the seeded database
+ */
+@SpringBootTest
+@DirtiesContext
+public class BookIndexerTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Test
+    void indexes_ShouldBeBuiltFromSeedDataAtStartup() {
+        assertThat(fullTextIndex.size()).isEqualTo(bookService.getAllBooks().size());
+        assertThat(fullTextIndex.search("garcia marquez", 0, 10).totalHits()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void indexes_ShouldFollowCommittedWrites() {
+        // when
+        Book created = bookService.createBook(Book.builder()
+                .title("Zyzzyva Chronicles")
+                .author("Indexer Test")
+                .isbn("9790000000001")
+                .publicationDate(LocalDate.of(2020, 5, 5))
+                .price(new BigDecimal("12.50"))
+                .pageCount(120)
+                .publisher("Test Publisher")
+                .genre(Book.Genre.FANTASY)
+                .build());
+
+        // then
+        assertThat(fullTextIndex.search("zyzzyva", 0, 10).ids()).containsExactly(created.getId());
+
+        // when
+        bookService.deleteBook(created.getId());
+
+        // then
+        assertThat(fullTextIndex.search("zyzzyva", 0, 10).totalHits()).isZero();
+    }
+}
@@ -0,0 +1,163 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.BookQuery;
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for CatalogSnapshot
+ */
+public class CatalogSnapshotTest {
+
+    private static final BookQuery ALL = new BookQuery(null, null, null, null, null, null, null, null, null);
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        // Merged by flush() only, unless a test builds its own snapshot
+        snapshot = snapshot(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshot.shutdown();
+    }
+
+    private static CatalogSnapshot snapshot(Duration mergeDelay) {
+        CatalogSnapshot snapshot = new CatalogSnapshot(mergeDelay);
+        BookIndex.Builder builder = snapshot.newBuilder();
+        builder.add(book(1L, "Norwegian Wood", "Haruki Murakami", "12.50", 2000, Book.Genre.FICTION, 296));
+        builder.add(book(2L, "Kafka on the Shore", "Haruki Murakami", "15.00", 2005, Book.Genre.FICTION, 505));
+        builder.add(book(3L, "The Big Sleep", "Raymond Chandler", "9.99", 1939, Book.Genre.MYSTERY, null));
+        builder.add(book(4L, "Dune", "Frank Herbert", "15.00", 1965, Book.Genre.SCIENCE_FICTION, 412));
+        builder.publish();
+        return snapshot;
+    }
+
+    @Test
+    void query_ShouldCombineCriteria() {
+        // given
+        BookQuery query = new BookQuery(Set.of(Book.Genre.FICTION, Book.Genre.MYSTERY), "MURAKAMI", null,
+                new BigDecimal("10"), new BigDecimal("20"), LocalDate.of(2001, 1, 1), null, null, null);
+
+        // when
+        Slice<Book> slice = snapshot.query(query, PageRequest.of(0, 10, Sort.by("id")));
+
+        // then
+        assertThat(slice.getContent()).extracting(Book::getId).containsExactly(2L);
+        assertThat(slice.getContent().get(0).getPrice()).isEqualByComparingTo("15.00");
+        assertThat(snapshot.count(query)).isEqualTo(1);
+    }
+
+    @Test
+    void query_ShouldSortByFieldThenById() {
+        // when
+        Slice<Book> byPriceDesc = snapshot.query(ALL,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id"))));
+        Slice<Book> byTitle = snapshot.query(ALL, PageRequest.of(0, 10, Sort.by("title").and(Sort.by("id"))));
+
+        // then
+        assertThat(byPriceDesc.getContent()).extracting(Book::getId).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(byTitle.getContent()).extracting(Book::getId).containsExactly(4L, 2L, 1L, 3L);
+    }
+
+    @Test
+    void query_ShouldExcludeMissingPageCounts_WhenPagesAreFiltered() {
+        // when
+        long count = snapshot.count(new BookQuery(null, null, null, null, null, null, null, 0, 1000));
+
+        // then
+        assertThat(count).isEqualTo(3);
+    }
+
+    @Test
+    void query_ShouldPageAndProjectFields() {
+        // when
+        Slice<Map<String, Object>> page = snapshot.query(ALL, PageRequest.of(1, 2, Sort.by("id")),
+                BookField.parse("author"));
+
+        // then
+        assertThat(page.getContent()).containsExactly(
+                Map.of("id", 3L, "author", "Raymond Chandler"),
+                Map.of("id", 4L, "author", "Frank Herbert"));
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void query_ShouldReflectWrites_AfterMerging() {
+        // given
+        Book moved = book(1L, "Norwegian Wood", "Haruki Murakami", "12.50", 2000, Book.Genre.ROMANCE, 296);
+        moved.setVersion(1L);
+        snapshot.put(moved);
+        snapshot.put(book(5L, "Farewell, My Lovely", "Raymond Chandler", "11.00", 1940, Book.Genre.MYSTERY, 275));
+        snapshot.remove(3L);
+        assertThat(snapshot.count(ALL)).as("before the merge").isEqualTo(4);
+        assertThat(snapshot.query(ALL, PageRequest.of(0, 10, Sort.by("id"))).getContent())
+                .extracting(Book::getId).containsExactly(1L, 2L, 3L, 4L);
+
+        // when
+        snapshot.flush();
+
+        // then
+        Slice<Book> mysteries = snapshot.query(new BookQuery(Set.of(Book.Genre.MYSTERY), null, null,
+                null, null, null, null, null, null), PageRequest.of(0, 10, Sort.by("id")));
+        assertThat(mysteries.getContent()).extracting(Book::getId).containsExactly(5L);
+        Slice<Book> all = snapshot.query(ALL, PageRequest.of(0, 10, Sort.by("id")));
+        assertThat(all.getContent()).extracting(Book::getId).containsExactly(1L, 2L, 4L, 5L);
+        assertThat(all.getContent().get(0).getGenre()).isEqualTo(Book.Genre.ROMANCE);
+        assertThat(all.getContent().get(0).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void put_ShouldBeMergedInTheBackground() throws InterruptedException {
+        // given
+        CatalogSnapshot merging = snapshot(Duration.ofMillis(10));
+        try {
+            // when
+            merging.remove(3L);
+            merging.put(book(5L, "Farewell, My Lovely", "Raymond Chandler", "11.00", 1940, Book.Genre.MYSTERY, 275));
+
+            // then
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (merging.count(ALL) == 4 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(merging.query(ALL, PageRequest.of(0, 10, Sort.by("id"))).getContent())
+                    .extracting(Book::getId).containsExactly(1L, 2L, 4L, 5L);
+        } finally {
+            merging.shutdown();
+        }
+    }
+
+    private static Book book(Long id, String title, String author, String price, int year, Book.Genre genre,
+                             Integer pageCount) {
+        Book book = Book.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .isbn("97800000000" + id)
+                .publicationDate(LocalDate.of(year, 1, 1))
+                .price(new BigDecimal(price))
+                .pageCount(pageCount)
+                .publisher("Publisher")
+                .genre(genre)
+                .build();
+        book.setVersion(0L);
+        return book;
+    }
+}
@@ -0,0 +1,130 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for FacetIndex
+ */
+public class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        BookIndex.Builder builder = index.newBuilder();
+        builder.add(book(1L, "Penguin", Book.Genre.FICTION));
+        builder.add(book(2L, "Penguin", Book.Genre.FICTION));
+        builder.add(book(3L, "Vintage", Book.Genre.MYSTERY));
+        builder.add(book(4L, "Scribner", Book.Genre.FICTION));
+        builder.publish();
+    }
+
+    @Test
+    void counts_ShouldCountAllBooksPerGenreAndPublisher() {
+        // when
+        FacetCounts counts = index.counts(10);
+
+        // then
+        assertThat(counts.total()).isEqualTo(4);
+        assertThat(counts.genres()).containsExactly(
+                new FacetCounts.Count("FICTION", 3),
+                new FacetCounts.Count("MYSTERY", 1));
+        assertThat(counts.publishers()).containsExactly(
+                new FacetCounts.Count("Penguin", 2),
+                new FacetCounts.Count("Scribner", 1),
+                new FacetCounts.Count("Vintage", 1));
+    }
+
+    @Test
+    void counts_ShouldReturnTopPublishersOnly() {
+        // when
+        FacetCounts counts = index.counts(1);
+
+        // then
+        assertThat(counts.publishers()).containsExactly(new FacetCounts.Count("Penguin", 2));
+    }
+
+    @Test
+    void put_ShouldMoveBookToNewGenreAndPublisher() {
+        // when
+        index.put(book(1L, "Vintage", Book.Genre.MYSTERY));
+
+        // then
+        FacetCounts counts = index.counts(10);
+        assertThat(counts.total()).isEqualTo(4);
+        assertThat(counts.genres()).containsExactly(
+                new FacetCounts.Count("FICTION", 2),
+                new FacetCounts.Count("MYSTERY", 2));
+        assertThat(counts.publishers()).containsExactly(
+                new FacetCounts.Count("Vintage", 2),
+                new FacetCounts.Count("Penguin", 1),
+                new FacetCounts.Count("Scribner", 1));
+    }
+
+    @Test
+    void remove_ShouldDropEmptyFacets() {
+        // when
+        index.remove(3L);
+        index.remove(3L);
+
+        // then
+        FacetCounts counts = index.counts(10);
+        assertThat(counts.total()).isEqualTo(3);
+        assertThat(counts.genres()).containsExactly(new FacetCounts.Count("FICTION", 3));
+        assertThat(counts.publishers()).extracting(FacetCounts.Count::value).doesNotContain("Vintage");
+    }
+
+    @Test
+    void put_ShouldReuseSlotsOfRemovedBooks_AndKeepRankingCurrent() {
+        // when
+        index.remove(1L);
+        index.remove(2L);
+        index.put(book(5L, "Scribner", Book.Genre.HISTORY));
+        index.put(book(6L, "Penguin", Book.Genre.HISTORY));
+
+        // then
+        assertThat(index.counts(2).publishers()).containsExactly(
+                new FacetCounts.Count("Scribner", 2),
+                new FacetCounts.Count("Penguin", 1));
+        assertThat(index.counts(new long[]{1L, 4L, 5L, 6L}, 10).publishers()).containsExactly(
+                new FacetCounts.Count("Scribner", 2),
+                new FacetCounts.Count("Penguin", 1));
+    }
+
+    @Test
+    void counts_ShouldCountGivenBooksOnly() {
+        // when
+        FacetCounts counts = index.counts(new long[]{2L, 3L, 99L}, 10);
+
+        // then
+        assertThat(counts.total()).isEqualTo(2);
+        assertThat(counts.genres()).containsExactly(
+                new FacetCounts.Count("FICTION", 1),
+                new FacetCounts.Count("MYSTERY", 1));
+        assertThat(counts.publishers()).containsExactly(
+                new FacetCounts.Count("Penguin", 1),
+                new FacetCounts.Count("Vintage", 1));
+    }
+
+    private static Book book(Long id, String publisher, Book.Genre genre) {
+        return Book.builder()
+                .id(id)
+                .title("Book " + id)
+                .author("Author")
+                .isbn("978000000000" + id)
+                .publicationDate(LocalDate.of(2020, 1, 1))
+                .price(new BigDecimal("10.00"))
+                .publisher(publisher)
+                .genre(genre)
+                .build();
+    }
+}
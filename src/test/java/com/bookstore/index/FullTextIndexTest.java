@@ -0,0 +1,118 @@
+package com.bookstore.index;
+
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for FullTextIndex
+ */
+public class FullTextIndexTest {
+
+    private FullTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FullTextIndex();
+        BookIndex.Builder builder = index.newBuilder();
+        builder.add(book(1L, "One Hundred Years of Solitude", "Gabriel García Márquez",
+                "The multi-generational story of the Buendía family."));
+        builder.add(book(2L, "Love in the Time of Cholera", "Gabriel García Márquez",
+                "A love story spanning fifty years."));
+        builder.add(book(3L, "The Old Man and the Sea", "Ernest Hemingway",
+                "An aging fisherman struggles with a giant marlin far out at sea."));
+        builder.publish();
+    }
+
+    @Test
+    void search_ShouldFoldCaseAndAccents() {
+        // when
+        FullTextIndex.Hits hits = index.search("garcia MARQUEZ", 0, 10);
+
+        // then
+        assertThat(hits.totalHits()).isEqualTo(2);
+        assertThat(hits.ids()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void search_ShouldRankTitleMatchesFirst() {
+        // when
+        FullTextIndex.Hits hits = index.search("love story", 0, 10);
+
+        // then
+        assertThat(hits.ids()).containsExactly(2L, 1L);
+        assertThat(hits.scores().get(0)).isGreaterThan(hits.scores().get(1));
+    }
+
+    @Test
+    void search_ShouldPaginateRankedHits() {
+        // when
+        FullTextIndex.Hits firstPage = index.search("love story", 0, 1);
+        FullTextIndex.Hits secondPage = index.search("love story", 1, 1);
+
+        // then
+        assertThat(firstPage.totalHits()).isEqualTo(2);
+        assertThat(firstPage.ids()).containsExactly(2L);
+        assertThat(secondPage.ids()).containsExactly(1L);
+    }
+
+    @Test
+    void put_ShouldReplacePreviousVersionOfBook() {
+        // when
+        index.put(book(3L, "The Sun Also Rises", "Ernest Hemingway", "Expatriates travel to Pamplona."));
+
+        // then
+        assertThat(index.search("marlin", 0, 10).totalHits()).isZero();
+        assertThat(index.search("pamplona", 0, 10).ids()).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void remove_ShouldHideBookFromResults() {
+        // when
+        index.remove(1L);
+
+        // then
+        assertThat(index.search("marquez", 0, 10).ids()).containsExactly(2L);
+        assertThat(index.matchingIds("solitude")).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void remove_ShouldKeepResultsCorrectAfterCompaction() {
+        // given
+        for (long id = 100; id < 3100; id++) {
+            index.put(book(id, "Filler " + id, "Someone", "padding"));
+        }
+
+        // when
+        for (long id = 100; id < 3100; id++) {
+            index.remove(id);
+        }
+
+        // then
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("padding", 0, 10).totalHits()).isZero();
+        assertThat(index.search("sea", 0, 10).ids()).containsExactly(3L);
+    }
+
+    private static Book book(Long id, String title, String author, String description) {
+        return Book.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .isbn("978000000" + id)
+                .publicationDate(LocalDate.of(2000, 1, 1))
+                .price(new BigDecimal("9.99"))
+                .description(description)
+                .pageCount(100)
+                .publisher("Publisher")
+                .genre(Book.Genre.FICTION)
+                .build();
+    }
+}
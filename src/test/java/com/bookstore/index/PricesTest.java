@@ -0,0 +1,36 @@
+package com.bookstore.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for Prices
+ */
+public class PricesTest {
+
+    @Test
+    void cents_ShouldRoundFractionsOfACent() {
+        // given
+        BigDecimal amount = new BigDecimal("9.985");
+
+        // when / then
+        assertThat(Prices.cents(amount, RoundingMode.CEILING)).isEqualTo(999L);
+        assertThat(Prices.cents(amount, RoundingMode.FLOOR)).isEqualTo(998L);
+        assertThat(Prices.cents(new BigDecimal("15.5"), RoundingMode.HALF_UP)).isEqualTo(1550L);
+    }
+
+    @Test
+    void cents_ShouldClampAmountsBeyondTheRangeOfALong() {
+        // when
+        long max = Prices.cents(new BigDecimal("1e30"), RoundingMode.CEILING);
+        long min = Prices.cents(new BigDecimal("-1e30"), RoundingMode.FLOOR);
+
+        // then
+        assertThat(max).isEqualTo(Long.MAX_VALUE);
+        assertThat(min).isEqualTo(Long.MIN_VALUE);
+    }
+}
@@ -0,0 +1,206 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.BookRange;
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for RangeIndex
+ */
+public class RangeIndexTest {
+
+    private RangeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RangeIndex();
+        BookIndex.Builder builder = index.newBuilder();
+        builder.add(book(1L, "25.00", LocalDate.of(2021, 5, 1), Book.Genre.FICTION));
+        builder.add(book(2L, "9.99", LocalDate.of(2019, 1, 1), Book.Genre.MYSTERY));
+        builder.add(book(3L, "15.50", LocalDate.of(2022, 3, 1), Book.Genre.FICTION));
+        builder.add(book(4L, "15.50", LocalDate.of(2018, 7, 1), Book.Genre.FICTION));
+        builder.add(book(5L, "40.00", LocalDate.of(2020, 9, 1), Book.Genre.MYSTERY));
+        builder.publish();
+    }
+
+    @Test
+    void find_ShouldReturnPriceRangeByPriceThenId() {
+        // when
+        RangeIndex.Hits hits = index.find(range("10", "30", null, null, null), 0, 10);
+
+        // then
+        assertThat(hits.totalHits()).isEqualTo(3);
+        assertThat(hits.ids()).containsExactly(3L, 4L, 1L);
+    }
+
+    @Test
+    void find_ShouldIncludeBoundsAndRoundThemToCents() {
+        // when
+        RangeIndex.Hits hits = index.find(range("9.985", "15.5", null, null, null), 0, 10);
+
+        // then
+        assertThat(hits.ids()).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void find_ShouldOrderByDate_WhenOnlyDatesAreGiven() {
+        // when
+        RangeIndex.Hits hits = index.find(range(null, null, LocalDate.of(2019, 1, 1), LocalDate.of(2021, 5, 1), null), 0, 10);
+
+        // then
+        assertThat(hits.ids()).containsExactly(2L, 5L, 1L);
+    }
+
+    @Test
+    void find_ShouldCombinePriceAndDateRanges() {
+        // when
+        RangeIndex.Hits hits = index.find(range("10", null, LocalDate.of(2020, 1, 1), null, null), 0, 10);
+
+        // then
+        assertThat(hits.totalHits()).isEqualTo(3);
+        assertThat(hits.ids()).containsExactly(3L, 1L, 5L);
+    }
+
+    @Test
+    void find_ShouldUseGenreIndex() {
+        // when
+        RangeIndex.Hits hits = index.find(range(null, "30", null, null, Book.Genre.FICTION), 0, 10);
+
+        // then
+        assertThat(hits.ids()).containsExactly(3L, 4L, 1L);
+    }
+
+    @Test
+    void find_ShouldPageMatchesAndCountThemAll() {
+        // when
+        RangeIndex.Hits unfiltered = index.find(range(null, null, null, null, null), 1, 2);
+        RangeIndex.Hits filtered = index.find(range("10", null, LocalDate.of(2019, 1, 1), null, null), 1, 1);
+
+        // then
+        assertThat(unfiltered.totalHits()).isEqualTo(5);
+        assertThat(unfiltered.ids()).containsExactly(3L, 4L);
+        assertThat(filtered.totalHits()).isEqualTo(3);
+        assertThat(filtered.ids()).containsExactly(1L);
+    }
+
+    @Test
+    void put_ShouldMoveBookToNewPriceAndGenre() {
+        // when
+        index.put(book(2L, "20.00", LocalDate.of(2019, 1, 1), Book.Genre.FICTION));
+
+        // then
+        assertThat(index.find(range("10", "30", null, null, Book.Genre.FICTION), 0, 10).ids())
+                .containsExactly(3L, 4L, 2L, 1L);
+        assertThat(index.find(range(null, null, null, null, Book.Genre.MYSTERY), 0, 10).ids())
+                .containsExactly(5L);
+    }
+
+    @Test
+    void put_ShouldAddNewBook() {
+        // when
+        index.put(book(6L, "12.00", LocalDate.of(2023, 1, 1), Book.Genre.MYSTERY));
+
+        // then
+        assertThat(index.find(range(null, null, LocalDate.of(2022, 1, 1), null, null), 0, 10).ids())
+                .containsExactly(3L, 6L);
+    }
+
+    @Test
+    void remove_ShouldDropBookFromAllIndexes() {
+        // when
+        index.remove(4L);
+
+        // then
+        assertThat(index.find(range("15.50", "15.50", null, null, null), 0, 10).ids()).containsExactly(3L);
+        assertThat(index.find(range(null, null, null, LocalDate.of(2018, 12, 31), Book.Genre.FICTION), 0, 10).ids())
+                .isEmpty();
+    }
+
+    @Test
+    void find_ShouldMatchFullScan_AcrossChunks() {
+        // given
+        Random random = new Random(42);
+        Map<Long, Book> books = new HashMap<>();
+        BookIndex.Builder builder = index.newBuilder();
+        for (long id = 1; id <= 3000; id++) {
+            Book book = randomBook(id, random);
+            books.put(id, book);
+            builder.add(book);
+        }
+        builder.publish();
+        for (int i = 0; i < 3000; i++) {
+            long id = 1 + random.nextInt(4000);
+            if (random.nextBoolean()) {
+                Book book = randomBook(id, random);
+                books.put(id, book);
+                index.put(book);
+            } else {
+                books.remove(id);
+                index.remove(id);
+            }
+        }
+        List<BookRange> ranges = List.of(
+                range("20", "30", null, null, null),
+                range(null, null, LocalDate.of(2010, 1, 1), LocalDate.of(2012, 12, 31), null),
+                range("10", "90", LocalDate.of(2015, 6, 1), LocalDate.of(2015, 8, 31), null),
+                range("49.50", "50.50", LocalDate.of(2000, 1, 1), null, Book.Genre.MYSTERY));
+
+        for (BookRange range : ranges) {
+            // when
+            RangeIndex.Hits hits = index.find(range, 20, 50);
+
+            // then
+            List<Long> expected = fullScan(books.values(), range);
+            assertThat(hits.totalHits()).as("%s", range).isEqualTo(expected.size());
+            assertThat(hits.ids()).as("%s", range)
+                    .isEqualTo(expected.subList(Math.min(20, expected.size()), Math.min(70, expected.size())));
+        }
+    }
+
+    private static List<Long> fullScan(Collection<Book> books, BookRange range) {
+        boolean byPrice = range.minPrice() != null || range.maxPrice() != null;
+        Comparator<Book> order = byPrice ? Comparator.comparing(Book::getPrice) : Comparator.comparing(Book::getPublicationDate);
+        return books.stream()
+                .filter(book -> range.genre() == null || book.getGenre() == range.genre())
+                .filter(book -> range.minPrice() == null || book.getPrice().compareTo(range.minPrice()) >= 0)
+                .filter(book -> range.maxPrice() == null || book.getPrice().compareTo(range.maxPrice()) <= 0)
+                .filter(book -> range.from() == null || !book.getPublicationDate().isBefore(range.from()))
+                .filter(book -> range.to() == null || !book.getPublicationDate().isAfter(range.to()))
+                .sorted(order.thenComparing(Book::getId))
+                .map(Book::getId)
+                .toList();
+    }
+
+    private static Book randomBook(long id, Random random) {
+        return book(id, BigDecimal.valueOf(100 + random.nextInt(9900), 2).toPlainString(),
+                LocalDate.of(2000, 1, 1).plusDays(random.nextInt(8000)), Book.Genre.values()[random.nextInt(Book.Genre.values().length)]);
+    }
+
+    private static BookRange range(String minPrice, String maxPrice, LocalDate from, LocalDate to, Book.Genre genre) {
+        return new BookRange(minPrice == null ? null : new BigDecimal(minPrice),
+                maxPrice == null ? null : new BigDecimal(maxPrice), from, to, genre);
+    }
+
+    private static Book book(Long id, String price, LocalDate publicationDate, Book.Genre genre) {
+        return Book.builder()
+                .id(id)
+                .title("Book " + id)
+                .author("Author")
+                .price(new BigDecimal(price))
+                .publicationDate(publicationDate)
+                .genre(genre)
+                .build();
+    }
+}
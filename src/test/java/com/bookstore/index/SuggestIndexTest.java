@@ -0,0 +1,168 @@
+package com.bookstore.index;
+
+import com.bookstore.dto.Suggestion;
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for SuggestIndex
+ */
+public class SuggestIndexTest {
+
+    private SuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestIndex();
+        BookIndex.Builder builder = index.newBuilder();
+        builder.add(book(1L, "The Hobbit", "J.R.R. Tolkien"));
+        builder.add(book(2L, "The Lord of the Rings", "J.R.R. Tolkien"));
+        builder.add(book(3L, "One Hundred Years of Solitude", "Gabriel García Márquez"));
+        builder.add(book(4L, "Holes", "Louis Sachar"));
+        builder.publish();
+    }
+
+    @Test
+    void suggest_ShouldMatchWordStarts_IgnoringCaseAndAccents() {
+        // when / then
+        assertThat(index.suggest("HOB", 10)).containsExactly(new Suggestion(1L, "The Hobbit", Suggestion.Type.TITLE));
+        assertThat(index.suggest("marq", 10))
+                .containsExactly(new Suggestion(null, "Gabriel García Márquez", Suggestion.Type.AUTHOR));
+        assertThat(index.suggest("garcia ma", 10)).extracting(Suggestion::text)
+                .containsExactly("Gabriel García Márquez");
+        assertThat(index.suggest("lord of th", 10)).extracting(Suggestion::id).containsExactly(2L);
+        assertThat(index.suggest("xyz", 10)).isEmpty();
+        assertThat(index.suggest("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_ShouldRankByWeightThenLength_AndApplyLimit() {
+        // when
+        List<Suggestion> suggestions = index.suggest("ho", 10);
+        List<Suggestion> limited = index.suggest("ho", 1);
+
+        // then
+        assertThat(suggestions).extracting(Suggestion::text).containsExactly("Holes", "The Hobbit");
+        assertThat(limited).extracting(Suggestion::text).containsExactly("Holes");
+        assertThat(index.suggest("t", 10)).extracting(Suggestion::text).first().isEqualTo("J.R.R. Tolkien");
+    }
+
+    @Test
+    void put_ShouldReplaceTitleAndMoveAuthorWeight() {
+        // when
+        index.put(book(4L, "Wayside School", "Louis Sachar"));
+        index.put(book(1L, "The Hobbit", "Tolkien"));
+
+        // then
+        assertThat(index.suggest("holes", 10)).isEmpty();
+        assertThat(index.suggest("wayside", 10)).extracting(Suggestion::id).containsExactly(4L);
+        assertThat(index.suggest("tolkien", 10)).extracting(Suggestion::text)
+                .containsExactly("Tolkien", "J.R.R. Tolkien");
+    }
+
+    @Test
+    void remove_ShouldDropTitleAndAuthorWithoutBooks() {
+        // when
+        index.remove(4L);
+        index.remove(4L);
+
+        // then
+        assertThat(index.suggest("sachar", 10)).isEmpty();
+        assertThat(index.suggest("ho", 10)).extracting(Suggestion::text).containsExactly("The Hobbit");
+    }
+
+    @Test
+    void suggest_ShouldMatchBruteForce_AfterRandomWritesAndRebuild() {
+        // given: few words, so that titles share long prefixes and nodes exceed the cached limit
+        String[] words = {"the", "then", "theory", "of", "office", "war", "ward", "peace", "pea", "a", "an", "and"};
+        String[] authors = {"Ann Other", "Anne Author", "Theo Ward", "Pea Cox", "Warden Office"};
+        Random random = new Random(7);
+        Map<Long, Book> books = new HashMap<>();
+        index = new SuggestIndex();
+        index.newBuilder().publish();
+
+        // when
+        for (int i = 0; i < 3000; i++) {
+            long id = 1 + random.nextInt(400);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                books.remove(id);
+            } else {
+                StringBuilder title = new StringBuilder();
+                for (int w = 1 + random.nextInt(4); w > 0; w--) {
+                    title.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                Book book = book(id, title.toString().trim(), authors[random.nextInt(authors.length)]);
+                index.put(book);
+                books.put(id, book);
+            }
+        }
+        SuggestIndex rebuilt = new SuggestIndex();
+        BookIndex.Builder builder = rebuilt.newBuilder();
+        books.values().forEach(builder::add);
+        builder.publish();
+
+        // then
+        List<String> prefixes = new ArrayList<>(List.of("t", "th", "the", "then", "o", "of", "w", "war", "ward",
+                "p", "pea", "a", "an", "and", "the w", "a t", "ann", "anne a", "theo", "warden o", "x"));
+        for (String prefix : prefixes) {
+            List<Suggestion> expected = bruteForce(books, prefix, 15);
+            assertThat(index.suggest(prefix, 15)).as(prefix).isEqualTo(expected);
+            assertThat(rebuilt.suggest(prefix, 15)).as(prefix).isEqualTo(expected);
+        }
+    }
+
+    /**
+     * Suggestions computed by checking every title and author against the prefix
+     */
+    private static List<Suggestion> bruteForce(Map<Long, Book> books, String prefix, int limit) {
+        String key = String.join(" ", TextAnalyzer.tokenize(prefix));
+        Map<String, Integer> authorBooks = new HashMap<>();
+        books.values().forEach(book -> authorBooks.merge(book.getAuthor(), 1, Integer::sum));
+        record Candidate(Suggestion suggestion, int weight) {
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        books.values().forEach(book -> {
+            if (matches(book.getTitle(), key)) {
+                candidates.add(new Candidate(new Suggestion(book.getId(), book.getTitle(), Suggestion.Type.TITLE), 1));
+            }
+        });
+        authorBooks.forEach((author, count) -> {
+            if (matches(author, key)) {
+                candidates.add(new Candidate(new Suggestion(null, author, Suggestion.Type.AUTHOR), count));
+            }
+        });
+        return candidates.stream()
+                .sorted(Comparator.comparingInt(Candidate::weight).reversed()
+                        .thenComparingInt((Candidate candidate) -> candidate.suggestion().text().length())
+                        .thenComparing(candidate -> candidate.suggestion().text())
+                        .thenComparing(candidate -> candidate.suggestion().id() == null ? 0L : candidate.suggestion().id()))
+                .limit(limit)
+                .map(Candidate::suggestion)
+                .toList();
+    }
+
+    private static boolean matches(String text, String key) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            if (String.join(" ", tokens.subList(i, tokens.size())).startsWith(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Book book(Long id, String title, String author) {
+        return Book.builder().id(id).title(title).author(author).build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.bookstore.index;
+
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test class for TrigramIndex
+ */
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        BookIndex.Builder builder = index.newBuilder();
+        builder.add(book(1L, "The Hobbit", "J.R.R. Tolkien"));
+        builder.add(book(2L, "Nineteen Eighty-Four", "George Orwell"));
+        builder.add(book(3L, "One Hundred Years of Solitude", "Gabriel García Márquez"));
+        builder.add(book(4L, "Animal Farm", "George Orwell"));
+        builder.add(book(5L, "The Hobbit Companion", "David Day"));
+        builder.publish();
+    }
+
+    @Test
+    void search_ShouldTolerateTyposInEveryWord() {
+        // when / then
+        assertThat(index.search(TrigramIndex.Field.AUTHOR, "Tolkein", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search(TrigramIndex.Field.AUTHOR, "Orwel", 0, 10).ids()).containsExactly(2L, 4L);
+        assertThat(index.search(TrigramIndex.Field.AUTHOR, "Garcia Marquez", 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search(TrigramIndex.Field.AUTHOR, "Garsia Marques", 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search(TrigramIndex.Field.TITLE, "hundred yeers", 0, 10).ids()).containsExactly(3L);
+        assertThat(index.search(TrigramIndex.Field.AUTHOR, "Tolkien Orwell", 0, 10).ids()).isEmpty();
+        assertThat(index.search(TrigramIndex.Field.TITLE, "Tolkien", 0, 10).ids()).isEmpty();
+        assertThat(index.search(TrigramIndex.Field.TITLE, " ", 0, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void search_ShouldRankBySimilarity_AndPage() {
+        // when
+        TrigramIndex.Hits exact = index.search(TrigramIndex.Field.TITLE, "the hobbit", 0, 10);
+        TrigramIndex.Hits misspelled = index.search(TrigramIndex.Field.TITLE, "hobbitt", 0, 10);
+        TrigramIndex.Hits second = index.search(TrigramIndex.Field.TITLE, "hobbitt", 1, 1);
+
+        // then
+        assertThat(exact.ids()).containsExactly(1L, 5L);
+        assertThat(exact.scores()).containsExactly(1.0, 1.0);
+        assertThat(misspelled.totalHits()).isEqualTo(2);
+        assertThat(misspelled.scores().get(0)).isCloseTo(1 - 1.0 / 7, within(1e-9));
+        assertThat(second.ids()).containsExactly(5L);
+        assertThat(index.search(TrigramIndex.Field.AUTHOR, "Tolkein", 0, 10).scores().get(0))
+                .isCloseTo(1 - 2.0 / 7, within(1e-9));
+    }
+
+    @Test
+    void putAndRemove_ShouldReplaceIndexedWords() {
+        // when
+        index.put(book(4L, "Homage to Catalonia", "George Orwell"));
+        index.remove(2L);
+        index.remove(2L);
+
+        // then
+        assertThat(index.search(TrigramIndex.Field.TITLE, "animal", 0, 10).ids()).isEmpty();
+        assertThat(index.search(TrigramIndex.Field.TITLE, "catalona", 0, 10).ids()).containsExactly(4L);
+        assertThat(index.search(TrigramIndex.Field.AUTHOR, "orwell", 0, 10).ids()).containsExactly(4L);
+    }
+
+    @Test
+    void distance_ShouldMatchLevenshtein_UpToTheBound() {
+        // when / then
+        assertThat(TrigramIndex.distance("tolkein", "tolkien", 2)).isEqualTo(2);
+        assertThat(TrigramIndex.distance("orwel", "orwell", 1)).isEqualTo(1);
+        assertThat(TrigramIndex.distance("kitten", "sitting", 2)).isEqualTo(3);
+        assertThat(TrigramIndex.distance("abc", "abcdef", 2)).isEqualTo(3);
+        assertThat(TrigramIndex.distance("same", "same", 0)).isZero();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            String a = randomWord(random);
+            String b = randomWord(random);
+            int max = random.nextInt(4);
+            assertThat(TrigramIndex.distance(a, b, max)).as(a + " " + b).isEqualTo(Math.min(levenshtein(a, b), max + 1));
+        }
+    }
+
+    @Test
+    void search_ShouldMatchBruteForce_AfterRandomWritesAndCompaction() {
+        // given: short words over a small alphabet, so that most words have near misses
+        Random random = new Random(11);
+        Map<Long, Book> books = new HashMap<>();
+        index = new TrigramIndex();
+        index.newBuilder().publish();
+
+        // when: enough overwrites to trigger compactions
+        for (int i = 0; i < 8000; i++) {
+            long id = 1 + random.nextInt(1500);
+            if (random.nextInt(5) == 0) {
+                index.remove(id);
+                books.remove(id);
+            } else {
+                Book book = book(id, randomText(random), randomText(random));
+                index.put(book);
+                books.put(id, book);
+            }
+        }
+
+        // then
+        for (int i = 0; i < 200; i++) {
+            String query = randomText(random);
+            TrigramIndex.Field field = i % 2 == 0 ? TrigramIndex.Field.TITLE : TrigramIndex.Field.AUTHOR;
+            Map<Long, Double> expected = bruteForce(books, field, query);
+            TrigramIndex.Hits hits = index.search(field, query, 0, books.size());
+            assertThat(hits.totalHits()).as(query).isEqualTo(expected.size());
+            assertThat(hits.ids()).as(query).containsExactlyInAnyOrderElementsOf(expected.keySet());
+            for (int hit = 0; hit < hits.ids().size(); hit++) {
+                assertThat(hits.scores().get(hit)).isCloseTo(expected.get(hits.ids().get(hit)), within(1e-9));
+                if (hit > 0) {
+                    assertThat(hits.scores().get(hit)).isLessThanOrEqualTo(hits.scores().get(hit - 1) + 1e-9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores computed by comparing every query word with every word of every book
+     */
+    private static Map<Long, Double> bruteForce(Map<Long, Book> books, TrigramIndex.Field field, String query) {
+        List<String> queryWords = List.copyOf(new LinkedHashSet<>(TextAnalyzer.tokenize(query)));
+        Map<Long, Double> scores = new HashMap<>();
+        if (queryWords.isEmpty()) {
+            return scores;
+        }
+        books.values().forEach(book -> {
+            List<String> words = TextAnalyzer.tokenize(field == TrigramIndex.Field.TITLE ? book.getTitle() : book.getAuthor());
+            double total = 0;
+            for (String queryWord : queryWords) {
+                double best = -1;
+                for (String word : words) {
+                    int edits = levenshtein(queryWord, word);
+                    if (edits <= TrigramIndex.maxEdits(queryWord.length())) {
+                        best = Math.max(best, 1 - (double) edits / Math.max(queryWord.length(), word.length()));
+                    }
+                }
+                if (best < 0) {
+                    return;
+                }
+                total += best;
+            }
+            scores.put(book.getId(), total / queryWords.size());
+        });
+        return scores;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                } else {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 1 + random.nextInt(3); w > 0; w--) {
+            text.append(randomWord(random)).append(' ');
+        }
+        return text.toString().trim();
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int c = 1 + random.nextInt(8); c > 0; c--) {
+            word.append("abcde".charAt(random.nextInt(5)));
+        }
+        return word.toString();
+    }
+
+    private static Book book(Long id, String title, String author) {
+        return Book.builder().id(id).title(title).author(author).build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.bookstore.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test class for BookField
+ */
+public class BookFieldTest {
+
+    @Test
+    void parse_ShouldAlwaysIncludeId() {
+        assertThat(BookField.parse("price, title,,")).containsExactly(BookField.ID, BookField.TITLE, BookField.PRICE);
+        assertThat(BookField.parse("")).containsExactly(BookField.ID);
+    }
+
+    @Test
+    void parse_ShouldRejectUnknownFields() {
+        assertThrows(IllegalArgumentException.class, () -> BookField.parse("title,page_count"));
+    }
+
+    @Test
+    void project_ShouldCopyOnlyRequestedFields() {
+        // given
+        Book book = Book.builder().id(7L).title("Title").price(new BigDecimal("1.50")).description("Long text").build();
+
+        // when
+        Map<String, Object> projected = BookField.project(book, BookField.parse("title,price"));
+
+        // then
+        assertThat(projected).containsExactly(
+                Map.entry("id", 7L), Map.entry("title", "Title"), Map.entry("price", new BigDecimal("1.50")));
+    }
+}
@@ -1,17 +1,28 @@
 package com.bookstore.repository;
 
+import com.bookstore.dto.BookQuery;
 import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Test class for BookRepository
@@ -40,6 +51,74 @@ public class BookRepositoryTest {
         assertThat(found.get().getTitle()).isEqualTo(book.getTitle());
     }
 
+    @Test
+    void version_ShouldStartAtZeroAndIncrementOnUpdate() {
+        // given
+        Book book = entityManager.persistAndFlush(createTestBook());
+        assertThat(book.getVersion()).isZero();
+
+        // when
+        book.setPrice(new BigDecimal("9.99"));
+        entityManager.flush();
+
+        // then
+        assertThat(book.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void version_ShouldDefaultToZero_ForSeededBooks() {
+        // when
+        Optional<Book> seeded = bookRepository.findById(1L);
+
+        // then
+        assertThat(seeded).isPresent();
+        assertThat(seeded.get().getVersion()).isZero();
+    }
+
+    @Test
+    void upsert_ShouldInsertWithRequestedId_WhenBookDoesNotExist() {
+        // given
+        Book book = createTestBook();
+        book.setId(5000L);
+
+        // when
+        Book written = bookRepository.upsert(book);
+
+        // then
+        assertThat(written.getId()).isEqualTo(5000L);
+        assertThat(written.getVersion()).isZero();
+        assertThat(written.getGenre()).isEqualTo(book.getGenre());
+        assertThat(bookRepository.findByIsbn(book.getIsbn())).isPresent();
+    }
+
+    @Test
+    void upsert_ShouldUpdateAndIncrementVersion_WhenBookExists() {
+        // given
+        Book book = createTestBook();
+        book.setId(5000L);
+        bookRepository.upsert(book);
+        book.setTitle("Renamed");
+
+        // when
+        Book written = bookRepository.upsert(book);
+
+        // then
+        assertThat(written.getVersion()).isEqualTo(1L);
+        assertThat(written.getTitle()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void upsert_ShouldReportIsbnConflict_WhenIsbnBelongsToAnotherBook() {
+        // given
+        Book existing = entityManager.persistAndFlush(createTestBook());
+        Book book = createAnotherTestBook();
+        book.setId(existing.getId() + 1000);
+        book.setIsbn(existing.getIsbn());
+
+        // when / then
+        assertThrows(DuplicateKeyException.class, () -> bookRepository.upsert(book));
+    }
+
     @Test
     void findByIsbn_ShouldReturnEmpty_WhenIsbnDoesNotExist() {
         // when
@@ -99,6 +178,153 @@ public class BookRepositoryTest {
         assertThat(foundBooks.stream().anyMatch(book -> book.getTitle().equals(book1.getTitle()))).isTrue();
     }
 
+    @Test
+    void findByIdGreaterThan_ShouldReturnNextPageInIdOrder() {
+        // given
+        Book book1 = entityManager.persist(createTestBook());
+        Book book2 = entityManager.persist(createAnotherTestBook());
+        entityManager.flush();
+        PageRequest firstPage = PageRequest.of(0, 1, Sort.by("id"));
+
+        // when
+        Slice<Book> page = bookRepository.findByIdGreaterThan(book1.getId() - 1, firstPage);
+        Slice<Book> next = bookRepository.findByIdGreaterThan(page.getContent().get(0).getId(), firstPage);
+
+        // then
+        assertThat(page.getContent()).extracting(Book::getId).containsExactly(book1.getId());
+        assertThat(page.hasNext()).isTrue();
+        assertThat(next.getContent()).extracting(Book::getId).containsExactly(book2.getId());
+    }
+
+    @Test
+    void findByAuthorContainingIgnoreCaseAndIdGreaterThan_ShouldSkipBooksBeforeCursor() {
+        // given
+        Book book1 = entityManager.persist(createTestBook());
+        Book book2 = entityManager.persist(createAnotherTestBook());
+        entityManager.flush();
+
+        // when
+        Slice<Book> page = bookRepository.findByAuthorContainingIgnoreCaseAndIdGreaterThan(
+                "author", book1.getId(), PageRequest.of(0, 10, Sort.by("id")));
+
+        // then
+        assertThat(page.getContent()).extracting(Book::getId).containsExactly(book2.getId());
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void streamAll_ShouldStreamBooksInIdOrder() {
+        // given
+        Book book1 = entityManager.persist(createTestBook());
+        Book book2 = entityManager.persist(createAnotherTestBook());
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Long> ids;
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            ids = books.map(Book::getId).toList();
+        }
+
+        // then
+        assertThat(ids).containsSubsequence(book1.getId(), book2.getId());
+        assertThat(ids).isSorted();
+    }
+
+    @Test
+    void findFields_ShouldSelectOnlyRequestedFieldsForMatchingBooks() {
+        // given
+        Book book1 = entityManager.persist(createTestBook());
+        Book book2 = entityManager.persist(createAnotherTestBook());
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        Slice<Map<String, Object>> page = bookRepository.findFields(
+                BookSpecifications.authorContains("AUTHOR").and(BookSpecifications.idGreaterThan(book1.getId() - 1)),
+                BookField.parse("title,price"), PageRequest.of(0, 1, Sort.by("id")));
+
+        // then
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getContent().get(0)).containsOnlyKeys("id", "title", "price")
+                .containsEntry("id", book1.getId())
+                .containsEntry("title", "Test Book")
+                .containsEntry("price", new BigDecimal("19.99"));
+        assertThat(page.hasNext()).isTrue();
+        assertThat(entityManager.getEntityManager().contains(book2)).isFalse();
+    }
+
+    @Test
+    void authorContains_ShouldTreatLikeWildcardsLiterally() {
+        // given
+        entityManager.persistAndFlush(createTestBook());
+
+        // when
+        Slice<Map<String, Object>> page = bookRepository.findFields(
+                BookSpecifications.authorContains("Test_Author"), BookField.parse("author"), Pageable.unpaged());
+
+        // then
+        assertThat(page.getContent()).isEmpty();
+    }
+
+    @Test
+    void findSlice_ShouldApplyAllCriteriaAndSort() {
+        // given
+        Book cheap = entityManager.persist(createTestBook());
+        Book expensive = entityManager.persist(createAnotherTestBook());
+        Book other = createTestBook();
+        other.setIsbn("1111111111");
+        other.setGenre(Book.Genre.MYSTERY);
+        entityManager.persist(other);
+        entityManager.flush();
+        BookQuery query = new BookQuery(Set.of(Book.Genre.FICTION, Book.Genre.SCIENCE_FICTION), "author", null,
+                new BigDecimal("10.00"), new BigDecimal("30.00"), LocalDate.of(2021, 1, 1), null, 100, 400);
+
+        // when
+        Slice<Book> slice = bookRepository.findSlice(BookSpecifications.matching(query),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id"))));
+        long count = bookRepository.count(BookSpecifications.matching(query));
+
+        // then
+        assertThat(slice.getContent()).containsExactly(expensive, cheap);
+        assertThat(slice.hasNext()).isFalse();
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    void findSlice_ShouldReportNextPageWithoutCounting() {
+        // given
+        entityManager.persist(createTestBook());
+        entityManager.persist(createAnotherTestBook());
+        entityManager.flush();
+        BookQuery query = new BookQuery(null, "Author", null, null, null, null, null, null, null);
+
+        // when
+        Slice<Book> slice = bookRepository.findSlice(BookSpecifications.matching(query), PageRequest.of(0, 1, Sort.by("id")));
+
+        // then
+        assertThat(slice.getContent()).hasSize(1);
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    @Test
+    void streamFields_ShouldStreamRequestedFieldsInIdOrder() {
+        // given
+        entityManager.persist(createTestBook());
+        entityManager.persist(createAnotherTestBook());
+        entityManager.flush();
+
+        // when
+        List<Map<String, Object>> rows;
+        try (Stream<Map<String, Object>> stream = bookRepository.streamFields(BookField.parse("genre"))) {
+            rows = stream.toList();
+        }
+
+        // then
+        assertThat(rows).allSatisfy(row -> assertThat(row).containsOnlyKeys("id", "genre"));
+        assertThat(rows).extracting(row -> (Long) row.get("id")).isSorted();
+    }
+
     /**
      * Helper method to create a test book
      */
@@ -0,0 +1,241 @@
+package com.bookstore.repository;
+
+import com.bookstore.dto.BookQuery;
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.bookstore.repository.BookSpecifications.authorContains;
+import static com.bookstore.repository.BookSpecifications.genreIs;
+import static com.bookstore.repository.BookSpecifications.idGreaterThan;
+import static com.bookstore.repository.BookSpecifications.idIn;
+import static com.bookstore.repository.BookSpecifications.matching;
+import static com.bookstore.repository.BookSpecifications.titleContains;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression suite for BookRepository.
+ * <p>
+ * Every query the repository issues is captured from Hibernate, run through H2's
+ * {@code EXPLAIN} against a seeded table and must not fall back to a table scan.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.bookstore.repository.QueryPlanTest$RecordingInspector")
+public class QueryPlanTest {
+
+    private static final String TABLE_SCAN = ".tableScan";
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, Sort.by("id"));
+
+    /**
+     * Queries that read the whole table by design, with the reason
+     */
+    private static final Map<String, String> FULL_SCANS = Map.of(
+            "findAll", "returns every book",
+            "findByAuthorContainingIgnoreCase", "unpaged substring match, no B-tree index serves a leading wildcard",
+            "findByTitleContainingIgnoreCase", "unpaged substring match, no B-tree index serves a leading wildcard");
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // ANALYZE commits, so the seed rows outlive the test transaction and are inserted once
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE id > 100000", Long.class) > 0) {
+            return;
+        }
+        // Enough rows, with a spread of genres, prices and dates, for the planner to prefer indexes
+        jdbcTemplate.update("""
+                INSERT INTO books (id, title, author, isbn, publication_date, price, description,
+                                   page_count, publisher, genre, version)
+                SELECT 100000 + x, 'Title ' || x, 'Author ' || MOD(x, 500), CAST(9780000000000 + x AS VARCHAR),
+                       DATEADD(DAY, -x, DATE '2020-01-01'), MOD(x, 100) + 0.99, 'Description ' || x,
+                       100 + MOD(x, 400), 'Publisher ' || MOD(x, 50),
+                       ARRAY['FICTION', 'NON_FICTION', 'SCIENCE_FICTION', 'MYSTERY', 'BIOGRAPHY'][MOD(x, 5) + 1], 0
+                FROM SYSTEM_RANGE(1, 10000)
+                """);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void lookupsByKey_ShouldUseIndexes() {
+        assertIndexed("findById", () -> bookRepository.findById(1L));
+        assertIndexed("findAllById", () -> bookRepository.findAllById(List.of(1L, 100001L)));
+        assertIndexed("findByIsbn", () -> bookRepository.findByIsbn("9780000000001"));
+        assertIndexed("findExistingIsbns", () -> bookRepository.findExistingIsbns(Set.of("9780000000001", "9780000000002")));
+        // Issued with JdbcTemplate rather than Hibernate, so explained directly
+        assertThat(explain(BookRepositoryCustomImpl.UPSERT)).as("upsert").doesNotContain(TABLE_SCAN);
+    }
+
+    @Test
+    void keysetPages_ShouldUseIndexes() {
+        assertIndexed("findByIdGreaterThan", () -> bookRepository.findByIdGreaterThan(100L, FIRST_PAGE));
+        // Exports read the whole table, but in primary key order so they need no sort
+        assertIndexed("streamAll", () -> {
+            try (Stream<Book> books = bookRepository.streamAll()) {
+                books.findFirst();
+            }
+        });
+        assertIndexed("streamFields", () -> {
+            try (Stream<Map<String, Object>> rows = bookRepository.streamFields(BookField.parse("title"))) {
+                rows.findFirst();
+            }
+        });
+        assertIndexed("findByGenre", () -> bookRepository.findByGenre(Book.Genre.MYSTERY));
+        assertIndexed("findByGenreAndIdGreaterThan",
+                () -> bookRepository.findByGenreAndIdGreaterThan(Book.Genre.MYSTERY, 100L, FIRST_PAGE));
+        assertIndexed("findByAuthorContainingIgnoreCaseAndIdGreaterThan",
+                () -> bookRepository.findByAuthorContainingIgnoreCaseAndIdGreaterThan("author 7", 100L, FIRST_PAGE));
+        assertIndexed("findByTitleContainingIgnoreCaseAndIdGreaterThan",
+                () -> bookRepository.findByTitleContainingIgnoreCaseAndIdGreaterThan("title 7", 100L, FIRST_PAGE));
+    }
+
+    @Test
+    void projections_ShouldUseIndexes() {
+        Set<BookField> fields = BookField.parse("title,price");
+        assertIndexed("findFields", () -> bookRepository.findFields(idGreaterThan(100L), fields, FIRST_PAGE));
+        assertIndexed("findFields", () -> bookRepository.findFields(idIn(List.of(1L, 2L)), fields, Pageable.unpaged()));
+        assertIndexed("findFields",
+                () -> bookRepository.findFields(genreIs(Book.Genre.MYSTERY).and(idGreaterThan(100L)), fields, FIRST_PAGE));
+        assertIndexed("findFields",
+                () -> bookRepository.findFields(authorContains("author 7").and(idGreaterThan(100L)), fields, FIRST_PAGE));
+        assertIndexed("findFields",
+                () -> bookRepository.findFields(titleContains("title 7").and(idGreaterThan(100L)), fields, FIRST_PAGE));
+    }
+
+    @Test
+    void multiCriteriaQueries_ShouldUseIndexes() {
+        BigDecimal min = new BigDecimal("10.00");
+        BigDecimal max = new BigDecimal("12.00");
+        LocalDate from = LocalDate.of(2015, 1, 1);
+        LocalDate to = LocalDate.of(2015, 3, 1);
+        Pageable byPrice = PageRequest.of(0, 20, Sort.by("price").and(Sort.by("id")));
+        assertIndexed("findSlice", () -> bookRepository.findSlice(matching(
+                new BookQuery(Set.of(Book.Genre.MYSTERY), null, null, null, null, null, null, null, null)), FIRST_PAGE));
+        assertIndexed("findSlice", () -> bookRepository.findSlice(matching(
+                new BookQuery(null, null, null, min, max, null, null, null, null)), byPrice));
+        assertIndexed("findSlice", () -> bookRepository.findSlice(matching(
+                new BookQuery(null, null, null, null, null, from, to, null, null)), FIRST_PAGE));
+        assertIndexed("findSlice", () -> bookRepository.findSlice(matching(
+                new BookQuery(Set.of(Book.Genre.MYSTERY), "author 7", null, min, max, null, null, 100, 300)), byPrice));
+        assertIndexed("count", () -> bookRepository.count(matching(
+                new BookQuery(Set.of(Book.Genre.MYSTERY, Book.Genre.FICTION), null, null, min, max, null, null, null, null))));
+    }
+
+    @Test
+    void bulkStatements_ShouldUseIndexes() {
+        // Issued with JdbcTemplate rather than Hibernate, so explained directly
+        assertThat(explainDataChange(BookRepositoryCustomImpl.REPRICE)).as("multiplyPriceByGenre")
+                .startsWith("UPDATE").doesNotContain(TABLE_SCAN);
+        assertThat(explainDataChange(BookRepositoryCustomImpl.DELETE_BY_PUBLISHER)).as("deleteAllByPublisher")
+                .startsWith("DELETE").doesNotContain(TABLE_SCAN);
+    }
+
+    @Test
+    void fullScans_ShouldBeLimitedToExemptQueries() {
+        assertFullScan("findAll", () -> bookRepository.findAll());
+        assertFullScan("findByAuthorContainingIgnoreCase", () -> bookRepository.findByAuthorContainingIgnoreCase("author 7"));
+        assertFullScan("findByTitleContainingIgnoreCase", () -> bookRepository.findByTitleContainingIgnoreCase("title 7"));
+    }
+
+    @Test
+    void everyRepositoryQuery_ShouldBeCovered() {
+        // A new repository method must get a plan check here (or a documented full-scan exemption)
+        Set<String> covered = Set.of("findById", "findAllById", "findByIsbn", "findExistingIsbns", "upsert",
+                "findByIdGreaterThan", "streamAll", "streamFields", "findByGenre", "findByGenreAndIdGreaterThan",
+                "findByAuthorContainingIgnoreCaseAndIdGreaterThan", "findByTitleContainingIgnoreCaseAndIdGreaterThan",
+                "findFields", "findSlice", "multiplyPriceByGenre", "deleteAllByPublisher");
+        Set<String> declared = Stream.of(BookRepository.class, BookRepositoryCustom.class)
+                .flatMap(type -> Arrays.stream(type.getDeclaredMethods()))
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+
+        assertThat(declared).allMatch(name -> covered.contains(name) || FULL_SCANS.containsKey(name),
+                "has a plan check");
+    }
+
+    private void assertIndexed(String name, Runnable query) {
+        assertThat(plansOf(query))
+                .as("plans of %s", name)
+                .isNotEmpty()
+                .allSatisfy(plan -> assertThat(plan).as(name).doesNotContain(TABLE_SCAN));
+    }
+
+    private void assertFullScan(String name, Runnable query) {
+        assertThat(FULL_SCANS).containsKey(name);
+        assertThat(plansOf(query)).as("plans of %s", name).anyMatch(plan -> plan.contains(TABLE_SCAN));
+    }
+
+    /**
+     * Run the query and EXPLAIN every SELECT, UPDATE and DELETE it issued
+     */
+    private List<String> plansOf(Runnable query) {
+        entityManager.clear();
+        RecordingInspector.STATEMENTS.clear();
+        query.run();
+        Map<String, String> plans = new LinkedHashMap<>();
+        for (String sql : RecordingInspector.STATEMENTS) {
+            String statement = sql.strip().toLowerCase(Locale.ROOT);
+            if (statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete")) {
+                plans.put(sql, explain(sql));
+            }
+        }
+        return List.copyOf(plans.values());
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    /**
+     * EXPLAIN the statement inside {@code SELECT ... FROM FINAL|OLD TABLE (...)}: the plan of the
+     * delta table itself only shows a scan of the changed rows
+     */
+    private String explainDataChange(String sql) {
+        String statement = sql.strip();
+        return explain(statement.substring(statement.indexOf('(') + 1, statement.lastIndexOf(')')));
+    }
+
+    /**
+     * Records the SQL of every statement Hibernate prepares
+     */
+    public static class RecordingInspector implements StatementInspector {
+
+        private static final long serialVersionUID = 1L;
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the second-level and query cache of the l2cache profile with Hibernate statistics:
+ * repeated reads, each in its own session, must not execute any SQL
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache-test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("l2cache")
+@DirtiesContext
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findById_ShouldNotExecuteSql_WhenRepeated() {
+        // given
+        bookRepository.findById(1L).orElseThrow();
+        statistics.clear();
+
+        // when
+        Book book = bookRepository.findById(1L).orElseThrow();
+
+        // then
+        assertThat(book.getId()).isEqualTo(1L);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIsbn_ShouldResolveNaturalIdWithoutSql_WhenRepeated() {
+        // given
+        Book book = bookRepository.findById(2L).orElseThrow();
+        bookRepository.findByIsbn(book.getIsbn()).orElseThrow();
+        statistics.clear();
+
+        // when
+        Book found = bookRepository.findByIsbn(book.getIsbn()).orElseThrow();
+
+        // then
+        assertThat(found.getId()).isEqualTo(2L);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByGenre_ShouldBeAnsweredFromQueryCache_WhenRepeated() {
+        // given
+        List<Book> first = bookRepository.findByGenre(Book.Genre.HISTORY);
+        statistics.clear();
+
+        // when
+        List<Book> second = bookRepository.findByGenre(Book.Genre.HISTORY);
+
+        // then
+        assertThat(second).extracting(Book::getId).isEqualTo(first.stream().map(Book::getId).toList());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void upsert_ShouldEvictCachedState_WhenWrittenWithPlainSql() {
+        // given
+        Book cached = bookRepository.findById(3L).orElseThrow();
+        bookRepository.findByIsbn(cached.getIsbn()).orElseThrow();
+        bookRepository.findByGenre(cached.getGenre());
+        Book changed = new Book(cached);
+        changed.setTitle("Retitled Book");
+        changed.setIsbn("9791000000201");
+        changed.setGenre(Book.Genre.OTHER);
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> bookRepository.upsert(changed));
+
+        // then
+        assertThat(bookRepository.findById(3L).orElseThrow().getTitle()).isEqualTo("Retitled Book");
+        assertThat(bookRepository.findByIsbn(cached.getIsbn())).isEmpty();
+        assertThat(bookRepository.findByIsbn("9791000000201")).map(Book::getId).contains(3L);
+        assertThat(bookRepository.findByGenre(cached.getGenre())).extracting(Book::getId).doesNotContain(3L);
+        assertThat(bookRepository.findByGenre(Book.Genre.OTHER)).extracting(Book::getId).contains(3L);
+    }
+
+    @Test
+    void bulkStatements_ShouldEvictCachedState() {
+        // given
+        Book repriced = bookRepository.findByGenre(Book.Genre.TECHNOLOGY).get(0);
+        bookRepository.findById(repriced.getId()).orElseThrow();
+        Book deleted = bookRepository.findByGenre(Book.Genre.YOUNG_ADULT).get(0);
+        bookRepository.findByIsbn(deleted.getIsbn()).orElseThrow();
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRepository.multiplyPriceByGenre(Book.Genre.TECHNOLOGY, new BigDecimal("2"));
+            bookRepository.deleteAllByPublisher(deleted.getPublisher());
+        });
+
+        // then
+        assertThat(bookRepository.findById(repriced.getId()).orElseThrow().getPrice())
+                .isEqualByComparingTo(repriced.getPrice().multiply(new BigDecimal("2")));
+        assertThat(bookRepository.findByIsbn(deleted.getIsbn())).isEmpty();
+        assertThat(bookRepository.findByGenre(Book.Genre.YOUNG_ADULT)).isEmpty();
+    }
+
+    @Test
+    void save_ShouldUpdateCachedState_WhenWrittenThroughHibernate() {
+        // given
+        Book book = Book.builder()
+                .title("Cached Book")
+                .author("Cache Author")
+                .isbn("9791000000202")
+                .publicationDate(LocalDate.of(2020, 2, 2))
+                .price(new BigDecimal("5.00"))
+                .pageCount(80)
+                .publisher("Cache Publisher")
+                .genre(Book.Genre.POETRY)
+                .build();
+        Long id = bookRepository.save(book).getId();
+        bookRepository.findByGenre(Book.Genre.POETRY);
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            Book managed = bookRepository.findById(id).orElseThrow();
+            managed.setPrice(new BigDecimal("6.00"));
+        });
+        statistics.clear();
+        Book reloaded = bookRepository.findById(id).orElseThrow();
+
+        // then
+        assertThat(reloaded.getPrice()).isEqualByComparingTo("6.00");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(bookRepository.findByGenre(Book.Genre.POETRY)).extracting(Book::getId).contains(id);
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that bulk creation is executed with JDBC batching against the real database
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-insert-test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@DirtiesContext
+public class BookBatchInsertTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void createBooks_ShouldInsertInJdbcBatches() {
+        // given
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            books.add(Book.builder()
+                    .title("Batch Book " + i)
+                    .author("Batch Author")
+                    .isbn(String.format("979100%07d", i))
+                    .publicationDate(LocalDate.of(2020, 1, 1))
+                    .price(new BigDecimal("9.99"))
+                    .pageCount(100)
+                    .publisher("Batch Publisher")
+                    .genre(Book.Genre.OTHER)
+                    .build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        List<BatchItemResult> results = bookService.createBooks(books);
+
+        // then
+        assertThat(results).allMatch(result -> result.status() == BatchItemResult.Status.CREATED);
+        assertThat(results).extracting(BatchItemResult::id).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(200);
+        // 200 single-row inserts would prepare 200 statements; batches of 50 plus a few sequence calls prepare far fewer
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+    }
+}
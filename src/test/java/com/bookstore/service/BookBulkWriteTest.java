@@ -0,0 +1,113 @@
+package com.bookstore.service;
+
+import com.bookstore.cache.CatalogVersion;
+import com.bookstore.dto.BookQuery;
+import com.bookstore.dto.BookRange;
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.index.CatalogSnapshot;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies the bulk statements against the real database, and that the caches and indexes
+ * follow them
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-write-test",
+        "bookstore.snapshot.enabled=true"
+})
+@DirtiesContext
+public class BookBulkWriteTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Test
+    void repriceBooks_ShouldUpdateEveryBookOfTheGenre_AndRefreshCachesAndIndexes() {
+        // given
+        List<Book> before = bookRepository.findByGenre(Book.Genre.FANTASY);
+        Book cached = bookService.getBookById(before.get(0).getId());
+        Map<Long, BigDecimal> expectedPrices = before.stream().collect(Collectors.toMap(Book::getId,
+                book -> book.getPrice().multiply(new BigDecimal("0.85")).setScale(2, RoundingMode.HALF_UP)));
+        String etag = catalogVersion.etag();
+
+        // when
+        int updated = bookService.repriceBooks(Book.Genre.FANTASY, new BigDecimal("0.85"));
+
+        // then
+        assertThat(updated).isEqualTo(before.size());
+        Book reloaded = bookService.getBookById(cached.getId());
+        assertThat(reloaded.getPrice()).isEqualByComparingTo(expectedPrices.get(cached.getId()));
+        assertThat(reloaded.getVersion()).isEqualTo(cached.getVersion() + 1);
+        List<Book> ranged = bookSearchService.range(new BookRange(null, null, null, null, Book.Genre.FANTASY),
+                PageRequest.of(0, 20)).getContent();
+        assertThat(ranged).hasSize(before.size()).allSatisfy(book ->
+                assertThat(book.getPrice()).isEqualByComparingTo(expectedPrices.get(book.getId())));
+        catalogSnapshot.flush();
+        List<Book> queried = bookService.queryBooks(new BookQuery(Set.of(Book.Genre.FANTASY), null, null,
+                null, null, null, null, null, null), PageRequest.of(0, 20)).getContent();
+        assertThat(queried).allSatisfy(book ->
+                assertThat(book.getPrice()).isEqualByComparingTo(expectedPrices.get(book.getId())));
+        assertThat(catalogVersion.etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void repriceBooks_ShouldKeepPricesPositive() {
+        // when
+        bookService.repriceBooks(Book.Genre.COOKING, new BigDecimal("0.0001"));
+
+        // then
+        assertThat(bookRepository.findByGenre(Book.Genre.COOKING)).allSatisfy(book ->
+                assertThat(book.getPrice()).isEqualByComparingTo("0.01"));
+    }
+
+    @Test
+    void deleteBooksByPublisher_ShouldDeleteEveryBookOfThePublisher_AndRefreshCachesAndIndexes() {
+        // given
+        List<Long> ids = bookRepository.findAll().stream()
+                .filter(book -> book.getPublisher().equals("Ace Books"))
+                .map(Book::getId)
+                .toList();
+        bookService.getBookById(ids.get(0));
+        long total = bookSearchService.facets(null, 100).total();
+
+        // when
+        int deleted = bookService.deleteBooksByPublisher("Ace Books");
+
+        // then
+        assertThat(deleted).isEqualTo(ids.size()).isPositive();
+        assertThrows(ResourceNotFoundException.class, () -> bookService.getBookById(ids.get(0)));
+        FacetCounts counts = bookSearchService.facets(null, 100);
+        assertThat(counts.total()).isEqualTo(total - ids.size());
+        assertThat(counts.publishers()).extracting(FacetCounts.Count::value).doesNotContain("Ace Books");
+        assertThat(bookService.deleteBooksByPublisher("Ace Books")).isZero();
+    }
+}
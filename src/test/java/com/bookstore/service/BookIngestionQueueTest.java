@@ -0,0 +1,172 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.dto.IngestionStatus;
+import com.bookstore.exception.IngestionQueueFullException;
+import com.bookstore.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for BookIngestionQueue
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookIngestionQueueTest {
+
+    @Mock
+    private BookService bookService;
+
+    @Test
+    void drain_ShouldCreateQueuedBooksInOneBatch() {
+        // given
+        BookIngestionQueue queue = queue(10, 10);
+        when(bookService.createBooks(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        IngestionStatus first = queue.submit(book("1111111111"));
+        IngestionStatus second = queue.submit(book("2222222222"));
+
+        // when
+        queue.drain();
+
+        // then
+        verify(bookService, times(1)).createBooks(anyList());
+        assertThat(queue.status(first.trackingId())).hasValue(
+                new IngestionStatus(first.trackingId(), IngestionStatus.Status.CREATED, 100L, null));
+        assertThat(queue.status(second.trackingId())).hasValue(
+                new IngestionStatus(second.trackingId(), IngestionStatus.Status.CREATED, 101L, null));
+    }
+
+    @Test
+    void drain_ShouldSplitQueueIntoBatches() {
+        // given
+        BookIngestionQueue queue = queue(10, 2);
+        when(bookService.createBooks(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        for (int i = 0; i < 5; i++) {
+            queue.submit(book("000000000" + i));
+        }
+
+        // when
+        queue.drain();
+
+        // then
+        verify(bookService, times(3)).createBooks(anyList());
+    }
+
+    @Test
+    void submit_ShouldBeQueuedUntilCommitted() {
+        // given
+        BookIngestionQueue queue = queue(10, 10);
+
+        // when
+        IngestionStatus queued = queue.submit(book("1111111111"));
+
+        // then
+        assertThat(queue.status(queued.trackingId())).hasValue(IngestionStatus.queued(queued.trackingId()));
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void submit_ShouldReject_WhenQueueIsFull() {
+        // given
+        BookIngestionQueue queue = queue(1, 10);
+        queue.submit(book("1111111111"));
+
+        // when / then
+        assertThatThrownBy(() -> queue.submit(book("2222222222")))
+                .isInstanceOf(IngestionQueueFullException.class);
+    }
+
+    @Test
+    void drain_ShouldRetryBooksOneByOne_WhenBatchIsRolledBack() {
+        // given
+        BookIngestionQueue queue = queue(10, 10);
+        when(bookService.createBooks(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            if (books.size() > 1) {
+                throw new DataIntegrityViolationException("uk_books_isbn");
+            }
+            if (books.get(0).getIsbn().equals("2222222222")) {
+                throw new DataIntegrityViolationException("uk_books_isbn");
+            }
+            return created(books);
+        });
+        IngestionStatus first = queue.submit(book("1111111111"));
+        IngestionStatus second = queue.submit(book("2222222222"));
+
+        // when
+        queue.drain();
+
+        // then
+        assertThat(queue.status(first.trackingId())).get()
+                .extracting(IngestionStatus::status).isEqualTo(IngestionStatus.Status.CREATED);
+        assertThat(queue.status(second.trackingId())).get()
+                .extracting(IngestionStatus::status).isEqualTo(IngestionStatus.Status.FAILED);
+    }
+
+    @Test
+    void drain_ShouldFailWholeBatch_WhenNoTransactionCanBeCreated() {
+        // given
+        BookIngestionQueue queue = queue(10, 10);
+        when(bookService.createBooks(anyList()))
+                .thenThrow(new CannotCreateTransactionException("Connection limit reached"));
+        IngestionStatus first = queue.submit(book("1111111111"));
+        IngestionStatus second = queue.submit(book("2222222222"));
+
+        // when
+        queue.drain();
+
+        // then
+        assertThat(List.of(first, second)).allSatisfy(queued -> assertThat(queue.status(queued.trackingId())).get()
+                .extracting(IngestionStatus::status).isEqualTo(IngestionStatus.Status.FAILED));
+        verify(bookService, times(1)).createBooks(anyList());
+    }
+
+    @Test
+    void stop_ShouldCommitQueuedBooks() {
+        // given
+        BookIngestionQueue queue = queue(10, 10);
+        when(bookService.createBooks(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        queue.start();
+        List<IngestionStatus> submitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            submitted.add(queue.submit(book("000000000" + i)));
+        }
+
+        // when
+        queue.stop();
+
+        // then
+        assertThat(queue.isRunning()).isFalse();
+        assertThat(submitted).allSatisfy(queued -> assertThat(queue.status(queued.trackingId())).get()
+                .extracting(IngestionStatus::status).isEqualTo(IngestionStatus.Status.CREATED));
+    }
+
+    private BookIngestionQueue queue(int capacity, int batchSize) {
+        return new BookIngestionQueue(bookService, new SimpleMeterRegistry(), capacity, batchSize, Duration.ofMinutes(5));
+    }
+
+    private static List<BatchItemResult> created(List<Book> books) {
+        List<BatchItemResult> results = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) {
+            results.add(BatchItemResult.created(i, 100L + i));
+        }
+        return results;
+    }
+
+    private static Book book(String isbn) {
+        return Book.builder().title("Book " + isbn).author("Author").isbn(isbn).build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BookQuery;
+import com.bookstore.index.CatalogSnapshot;
+import com.bookstore.model.Book;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static com.bookstore.repository.BookSpecifications.matching;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that queries answered by the catalog snapshot return what the database returns
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot-test",
+        "bookstore.snapshot.enabled=true"
+})
+@DirtiesContext
+public class BookQuerySnapshotTest {
+
+    private static final List<BookQuery> QUERIES = List.of(
+            new BookQuery(null, null, null, null, null, null, null, null, null),
+            new BookQuery(Set.of(Book.Genre.FICTION, Book.Genre.MYSTERY), null, null, null, null, null, null, null, null),
+            new BookQuery(null, "an", "the", null, null, null, null, null, null),
+            new BookQuery(null, null, null, new BigDecimal("10.5"), new BigDecimal("15"), null, null, null, null),
+            new BookQuery(null, null, null, null, null, LocalDate.of(1950, 1, 1), LocalDate.of(2000, 12, 31), 200, 400));
+
+    private static final List<Sort> SORTS = List.of(
+            Sort.by("id"),
+            Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id")),
+            Sort.by("title").and(Sort.by("id")),
+            Sort.by("genre").and(Sort.by("id")),
+            Sort.by(Sort.Direction.DESC, "publicationDate").and(Sort.by("id")));
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Test
+    void queryBooks_ShouldMatchDatabase() {
+        // given
+        assertThat(catalogSnapshot.isReady()).isTrue();
+
+        // then
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void queryBooks_ShouldMatchDatabase_AfterWrites() {
+        // given
+        Book book = bookService.getBookById(1L);
+        Book details = new Book(book);
+        details.setGenre(Book.Genre.MYSTERY);
+        details.setPrice(new BigDecimal("11.11"));
+
+        // when
+        bookService.updateBook(1L, details);
+        bookService.deleteBook(2L);
+        catalogSnapshot.flush();
+
+        // then
+        assertMatchesDatabase();
+    }
+
+    private void assertMatchesDatabase() {
+        for (BookQuery query : QUERIES) {
+            assertThat(bookService.countBooks(query)).as("count %s", query)
+                    .isEqualTo(bookRepository.count(matching(query)));
+            for (Sort sort : SORTS) {
+                Pageable pageable = PageRequest.of(1, 5, sort);
+                assertThat(bookService.queryBooks(query, pageable).getContent())
+                        .as("%s sorted by %s", query, sort)
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .containsExactlyElementsOf(bookRepository.findSlice(matching(query), pageable).getContent());
+            }
+        }
+    }
+}
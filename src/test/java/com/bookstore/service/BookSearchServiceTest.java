@@ -0,0 +1,192 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.BookRange;
+import com.bookstore.dto.FacetCounts;
+import com.bookstore.dto.Suggestion;
+import com.bookstore.index.FacetIndex;
+import com.bookstore.index.FullTextIndex;
+import com.bookstore.index.RangeIndex;
+import com.bookstore.index.SuggestIndex;
+import com.bookstore.index.TrigramIndex;
+import com.bookstore.model.Book;
+import com.bookstore.model.BookField;
+import com.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for BookSearchService
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookSearchServiceTest {
+
+    @Mock
+    private FullTextIndex fullTextIndex;
+
+    @Mock
+    private FacetIndex facetIndex;
+
+    @Mock
+    private RangeIndex rangeIndex;
+
+    @Mock
+    private SuggestIndex suggestIndex;
+
+    @Mock
+    private TrigramIndex trigramIndex;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookSearchServiceImpl bookSearchService;
+
+    private Book book1;
+    private Book book2;
+
+    @BeforeEach
+    void setUp() {
+        book1 = Book.builder().id(1L).title("Test Book 1").build();
+        book2 = Book.builder().id(2L).title("Test Book 2").build();
+    }
+
+    @Test
+    void search_ShouldReturnBooksInRankOrder() {
+        // given
+        when(fullTextIndex.search("test", 0, 20))
+                .thenReturn(new FullTextIndex.Hits(2, List.of(2L, 1L), List.of(2.0, 1.0)));
+        when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(book1, book2));
+
+        // when
+        Page<Book> result = bookSearchService.search("test", PageRequest.of(0, 20));
+
+        // then
+        assertThat(result.getContent()).containsExactly(book2, book1);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void search_ShouldReturnRequestedFieldsInRankOrder() {
+        // given
+        Set<BookField> fields = BookField.parse("title");
+        when(fullTextIndex.search("test", 0, 20))
+                .thenReturn(new FullTextIndex.Hits(2, List.of(2L, 1L), List.of(2.0, 1.0)));
+        when(bookRepository.findFields(any(), eq(fields), eq(Pageable.unpaged())))
+                .thenReturn(new SliceImpl<>(List.of(
+                        Map.of("id", 1L, "title", "Test Book 1"),
+                        Map.of("id", 2L, "title", "Test Book 2"))));
+
+        // when
+        Page<Map<String, Object>> result = bookSearchService.search("test", PageRequest.of(0, 20), fields);
+
+        // then
+        assertThat(result.getContent()).extracting(row -> row.get("title")).containsExactly("Test Book 2", "Test Book 1");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        verify(bookRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void search_ShouldSkipBooksDeletedSinceIndexRead() {
+        // given
+        when(fullTextIndex.search("test", 0, 20))
+                .thenReturn(new FullTextIndex.Hits(2, List.of(2L, 1L), List.of(2.0, 1.0)));
+        when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(book1));
+
+        // when
+        Page<Book> result = bookSearchService.search("test", PageRequest.of(0, 20));
+
+        // then
+        assertThat(result.getContent()).containsExactly(book1);
+    }
+
+    @Test
+    void search_ShouldNotQueryDatabase_WhenNothingMatches() {
+        // given
+        when(fullTextIndex.search("nothing", 0, 20)).thenReturn(new FullTextIndex.Hits(0, List.of(), List.of()));
+
+        // when
+        Page<Book> result = bookSearchService.search("nothing", PageRequest.of(0, 20));
+
+        // then
+        assertThat(result.getContent()).isEmpty();
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void suggest_ShouldBeServedFromTrieWithoutDatabase() {
+        // given
+        List<Suggestion> suggestions = List.of(new Suggestion(1L, "Test Book 1", Suggestion.Type.TITLE));
+        when(suggestIndex.suggest("tes", 10)).thenReturn(suggestions);
+
+        // when
+        List<Suggestion> result = bookSearchService.suggest("tes", 10);
+
+        // then
+        assertThat(result).isSameAs(suggestions);
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void fuzzySearch_ShouldLoadHitsInSimilarityOrder() {
+        // given
+        when(trigramIndex.search(TrigramIndex.Field.TITLE, "tset", 0, 10))
+                .thenReturn(new TrigramIndex.Hits(2, List.of(2L, 1L), List.of(0.75, 0.5)));
+        when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(book1, book2));
+
+        // when
+        Page<Book> result = bookSearchService.fuzzySearch(TrigramIndex.Field.TITLE, "tset", PageRequest.of(0, 10));
+
+        // then
+        assertThat(result.getContent()).containsExactly(book2, book1);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void facets_ShouldCountMatchesOfTextQuery() {
+        // given
+        long[] matches = {1L, 2L};
+        FacetCounts counts = new FacetCounts(2, List.of(new FacetCounts.Count("FICTION", 2)), List.of());
+        when(fullTextIndex.matchingIds("test")).thenReturn(matches);
+        when(facetIndex.counts(matches, 5)).thenReturn(counts);
+
+        // when
+        FacetCounts result = bookSearchService.facets("test", 5);
+
+        // then
+        assertThat(result).isSameAs(counts);
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void range_ShouldReturnBooksInIndexOrderWithTotal() {
+        // given
+        BookRange range = new BookRange(new BigDecimal("10"), new BigDecimal("20"), null, null, null);
+        when(rangeIndex.find(range, 20, 20)).thenReturn(new RangeIndex.Hits(22, List.of(2L, 1L)));
+        when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(book1, book2));
+
+        // when
+        Page<Book> result = bookSearchService.range(range, PageRequest.of(1, 20));
+
+        // then
+        assertThat(result.getContent()).containsExactly(book2, book1);
+        assertThat(result.getTotalElements()).isEqualTo(22);
+    }
+}
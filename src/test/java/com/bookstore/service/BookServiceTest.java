@@ -1,25 +1,49 @@
 package com.bookstore.service;
 
+import com.bookstore.cache.BookCache;
+import com.bookstore.dto.BatchItemResult;
+import com.bookstore.dto.UpsertResult;
+import com.bookstore.event.BookChangedEvent;
+import com.bookstore.exception.DuplicateIsbnException;
 import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.index.CatalogSnapshot;
 import com.bookstore.model.Book;
 import com.bookstore.repository.BookRepository;
 import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
 
@@ -34,6 +58,18 @@ public class BookServiceTest {
     
     @Mock
     private EntityManager entityManager;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private ObjectProvider<CatalogSnapshot> catalogSnapshot;
+    
+    @Spy
+    private BookCache bookCache = new BookCache(100, Duration.ofMinutes(5));
+    
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @InjectMocks
     private BookServiceImpl bookService;
@@ -88,6 +124,22 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).findAll();
     }
 
+    @Test
+    void getBooks_ShouldReturnPageAfterGivenId() {
+        // given
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("id"));
+        when(bookRepository.findByIdGreaterThan(0L, pageable)).thenReturn(new SliceImpl<>(bookList, pageable, true));
+
+        // when
+        Slice<Book> result = bookService.getBooks(0L, pageable);
+
+        // then
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.hasNext()).isTrue();
+        verify(bookRepository, times(1)).findByIdGreaterThan(0L, pageable);
+        verify(bookRepository, never()).findAll();
+    }
+
     @Test
     void getBookById_ShouldReturnBook_WhenBookExists() {
         // given
@@ -103,6 +155,23 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getBookById_ShouldServeRepeatedReadsFromCache() {
+        // given
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book1));
+
+        // when
+        Book first = bookService.getBookById(1L);
+        Book second = bookService.getBookById(1L);
+        Book byIsbn = bookService.getBookByIsbn("1234567890");
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(byIsbn).isSameAs(first);
+        verify(bookRepository, times(1)).findById(1L);
+        verify(bookRepository, never()).findByIsbn(any());
+    }
+
     @Test
     void getBookById_ShouldThrowException_WhenBookDoesNotExist() {
         // given
@@ -182,6 +251,7 @@ public class BookServiceTest {
         assertThat(result.getTitle()).isEqualTo("New Book");
         verify(bookRepository, times(1)).findByIsbn("9876543210");
         verify(bookRepository, times(1)).save(any(Book.class));
+        verify(eventPublisher, times(1)).publishEvent(BookChangedEvent.created(savedBook));
     }
 
     @Test
@@ -209,6 +279,49 @@ public class BookServiceTest {
         verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    void createBooks_ShouldReportResultPerItemAndCheckIsbnsWithOneQuery() {
+        // given
+        Book fresh = Book.builder()
+                .id(42L)  // client-provided IDs are ignored
+                .title("New Book")
+                .author("New Author")
+                .isbn("9876543210")
+                .publicationDate(LocalDate.of(2023, 3, 3))
+                .price(new BigDecimal("39.99"))
+                .pageCount(400)
+                .publisher("New Publisher")
+                .genre(Book.Genre.FANTASY)
+                .build();
+        Book duplicateInBatch = new Book(fresh);
+        Book existing = new Book(book1);
+        Book invalid = Book.builder().title("No author").build();
+
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(Set.of("1234567890"));
+        when(bookRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Book> toSave = invocation.getArgument(0);
+            toSave.forEach(book -> book.setId(100L));
+            return toSave;
+        });
+
+        // when
+        List<BatchItemResult> results = bookService.createBooks(List.of(fresh, duplicateInBatch, existing, invalid));
+
+        // then
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(
+                BatchItemResult.Status.CREATED,
+                BatchItemResult.Status.CONFLICT,
+                BatchItemResult.Status.CONFLICT,
+                BatchItemResult.Status.INVALID);
+        assertThat(results.get(0).id()).isEqualTo(100L);
+        assertThat(results.get(3).message()).contains("author");
+        verify(bookRepository, times(1)).findExistingIsbns(Set.of("9876543210", "1234567890"));
+        verify(bookRepository, never()).findByIsbn(any());
+        verify(bookRepository, times(1)).saveAll(List.of(fresh));
+        verify(bookRepository, times(1)).flush();
+        verify(eventPublisher, times(1)).publishEvent(BookChangedEvent.created(fresh));
+    }
+
     @Test
     void updateBook_ShouldReturnUpdatedBook_WhenBookExists() {
         // given
@@ -237,20 +350,22 @@ public class BookServiceTest {
                 .genre(Book.Genre.MYSTERY)
                 .build();
 
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book1));
-        when(bookRepository.save(any(Book.class))).thenReturn(updatedBook);
+        updatedBook.setVersion(1L);
+        when(bookRepository.upsert(any(Book.class))).thenReturn(updatedBook);
 
         // when
-        Book result = bookService.updateBook(1L, updatedDetails);
+        UpsertResult result = bookService.upsertBook(1L, updatedDetails);
 
         // then
-        assertThat(result).isNotNull();
-        assertThat(result.getId()).isEqualTo(1L);
-        assertThat(result.getTitle()).isEqualTo("Updated Title");
-        assertThat(result.getAuthor()).isEqualTo("Updated Author");
-        assertThat(result.getGenre()).isEqualTo(Book.Genre.MYSTERY);
-        verify(bookRepository, times(1)).findById(1L);
-        verify(bookRepository, times(1)).save(any(Book.class));
+        assertThat(result.created()).isFalse();
+        assertThat(result.book().getId()).isEqualTo(1L);
+        assertThat(result.book().getTitle()).isEqualTo("Updated Title");
+        assertThat(result.book().getAuthor()).isEqualTo("Updated Author");
+        assertThat(result.book().getGenre()).isEqualTo(Book.Genre.MYSTERY);
+        verify(bookRepository, times(1)).upsert(argThat(book -> book.getId().equals(1L)));
+        verify(bookRepository, never()).findById(any());
+        verify(bookRepository, never()).findByIsbn(any());
+        verify(eventPublisher, times(1)).publishEvent(BookChangedEvent.updated(updatedBook));
     }
 
     @Test
@@ -280,28 +395,30 @@ public class BookServiceTest {
                 .publisher("New Publisher")
                 .genre(Book.Genre.MYSTERY)
                 .build();
+        newBook.setVersion(0L);
 
-        when(bookRepository.findById(99L)).thenReturn(Optional.empty());
-        // Mock existsById to return false (book doesn't exist)
-        when(bookRepository.existsById(99L)).thenReturn(false);
-        // Only mock findByIsbn if the service implementation actually calls it
-        // This will be used if the service checks for ISBN uniqueness
-        lenient().when(bookRepository.findByIsbn("5555555555")).thenReturn(Optional.empty());
-        
-        // Mock EntityManager merge method to return the book with the ID preserved
-        when(entityManager.merge(any(Book.class))).thenReturn(newBook);
+        when(bookRepository.upsert(any(Book.class))).thenReturn(newBook);
 
         // when
-        Book result = bookService.updateBook(99L, updatedDetails);
+        UpsertResult result = bookService.upsertBook(99L, updatedDetails);
 
         // then
-        assertThat(result).isNotNull();
-        assertThat(result.getId()).isEqualTo(99L);
-        assertThat(result.getTitle()).isEqualTo("New Title");
-        verify(bookRepository, times(1)).findById(99L);
-        verify(bookRepository, times(1)).existsById(99L);
-        verify(entityManager, times(1)).merge(any(Book.class));
-        verify(entityManager, times(1)).flush();
+        assertThat(result.created()).isTrue();
+        assertThat(result.book().getId()).isEqualTo(99L);
+        assertThat(result.book().getTitle()).isEqualTo("New Title");
+        assertThat(updatedDetails.getId()).isNull();
+        verify(bookRepository, times(1)).upsert(argThat(book -> book.getId().equals(99L)));
+        verify(eventPublisher, times(1)).publishEvent(BookChangedEvent.created(newBook));
+    }
+
+    @Test
+    void updateBook_ShouldPropagateConflict_WhenIsbnBelongsToAnotherBook() {
+        // given
+        when(bookRepository.upsert(any(Book.class))).thenThrow(new DuplicateKeyException("uk_books_isbn"));
+
+        // when & then
+        assertThrows(DuplicateIsbnException.class, () -> bookService.updateBook(1L, book1));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -317,6 +434,7 @@ public class BookServiceTest {
         assertThat(result).isTrue();
         verify(bookRepository, times(1)).findById(1L);
         verify(bookRepository, times(1)).delete(any(Book.class));
+        verify(eventPublisher, times(1)).publishEvent(BookChangedEvent.deleted(1L));
     }
 
     @Test
@@ -332,6 +450,48 @@ public class BookServiceTest {
         verify(bookRepository, never()).delete(any(Book.class));
     }
 
+    @Test
+    void repriceBooks_ShouldPublishUpdatedBooks_AfterBulkUpdate() {
+        // given
+        when(bookRepository.multiplyPriceByGenre(Book.Genre.FICTION, new BigDecimal("0.9"))).thenReturn(bookList);
+
+        // when
+        int result = bookService.repriceBooks(Book.Genre.FICTION, new BigDecimal("0.9"));
+
+        // then
+        assertThat(result).isEqualTo(2);
+        verify(eventPublisher).publishEvent(BookChangedEvent.updated(book1));
+        verify(eventPublisher).publishEvent(BookChangedEvent.updated(book2));
+        verify(bookRepository, never()).findByGenre(any());
+    }
+
+    @Test
+    void deleteBooksByPublisher_ShouldPublishDeletedIds_AfterBulkDelete() {
+        // given
+        when(bookRepository.deleteAllByPublisher("Test Publisher")).thenReturn(List.of(1L, 2L));
+
+        // when
+        int result = bookService.deleteBooksByPublisher("Test Publisher");
+
+        // then
+        assertThat(result).isEqualTo(2);
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(1L));
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(2L));
+    }
+
+    @Test
+    void deleteBooksByPublisher_ShouldPublishNothing_WhenPublisherHasNoBooks() {
+        // given
+        when(bookRepository.deleteAllByPublisher("Unknown")).thenReturn(List.of());
+
+        // when
+        int result = bookService.deleteBooksByPublisher("Unknown");
+
+        // then
+        assertThat(result).isZero();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     void findBooksByAuthor_ShouldReturnBooks_WhenAuthorMatches() {
         // given
@@ -371,4 +531,36 @@ public class BookServiceTest {
         assertThat(result.get(0).getTitle()).isEqualTo("Test Book 1");
         verify(bookRepository, times(1)).findByGenre(Book.Genre.FICTION);
     }
+
+    @Test
+    void findBooksByGenre_ShouldReturnPageAfterGivenId() {
+        // given
+        Pageable pageable = PageRequest.of(0, 20, Sort.by("id"));
+        when(bookRepository.findByGenreAndIdGreaterThan(Book.Genre.FICTION, 1L, pageable))
+                .thenReturn(new SliceImpl<>(List.of(book1), pageable, false));
+
+        // when
+        Slice<Book> result = bookService.findBooksByGenre(Book.Genre.FICTION, 1L, pageable);
+
+        // then
+        assertThat(result.getContent()).hasSize(1);
+        verify(bookRepository, times(1)).findByGenreAndIdGreaterThan(Book.Genre.FICTION, 1L, pageable);
+    }
+
+    @Test
+    void exportBooks_ShouldPassEveryBookToConsumerAndDetachIt() {
+        // given
+        when(bookRepository.streamAll()).thenReturn(Stream.of(book1, book2));
+        List<Book> exported = new ArrayList<>();
+
+        // when
+        long count = bookService.exportBooks(exported::add);
+
+        // then
+        assertThat(count).isEqualTo(2);
+        assertThat(exported).containsExactly(book1, book2);
+        verify(entityManager, times(1)).detach(book1);
+        verify(entityManager, times(1)).detach(book2);
+        verify(bookRepository, never()).findAll();
+    }
 }
@@ -0,0 +1,70 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.UpsertResult;
+import com.bookstore.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the single-statement upsert against the real database, under concurrent writers
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:upsert-test")
+@DirtiesContext
+public class BookUpsertTest {
+
+    private static final int WRITERS = 8;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void upsertBook_ShouldCreateExactlyOnce_WhenSameIdIsWrittenConcurrently() throws Exception {
+        // given
+        Book details = Book.builder()
+                .title("Concurrent Book")
+                .author("Upsert Author")
+                .isbn("9791000000001")
+                .publicationDate(LocalDate.of(2020, 1, 1))
+                .price(new BigDecimal("9.99"))
+                .pageCount(100)
+                .publisher("Upsert Publisher")
+                .genre(Book.Genre.OTHER)
+                .build();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UpsertResult>> results = new ArrayList<>();
+
+        // when
+        try (ExecutorService writers = Executors.newFixedThreadPool(WRITERS)) {
+            for (int i = 0; i < WRITERS; i++) {
+                results.add(writers.submit(() -> {
+                    start.await();
+                    return bookService.upsertBook(7000L, details);
+                }));
+            }
+            start.countDown();
+        }
+
+        // then
+        List<UpsertResult> outcomes = new ArrayList<>();
+        for (Future<UpsertResult> result : results) {
+            outcomes.add(result.get());
+        }
+        assertThat(outcomes).filteredOn(UpsertResult::created).hasSize(1);
+        assertThat(outcomes).extracting(outcome -> outcome.book().getVersion())
+                .containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(bookService.getBookById(7000L).getVersion()).isEqualTo(WRITERS - 1L);
+    }
+}